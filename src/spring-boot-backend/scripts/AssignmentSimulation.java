@@ -0,0 +1,277 @@
+import com.safecity.assignment.WorkloadIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Discrete-event simulation of case assignment over a synthetic workload. Cases arrive in
+ * districts with a skewed spread, each officer works one case at a time (high priority
+ * first), and the same arrivals are replayed under each strategy:
+ *
+ *   desk       - the filing officer takes the case; the front desk files 30% of a district's cases
+ *   round-robin - officers of the district in turn
+ *   workload   - WorkloadIndex.pick, as the assignment engine does
+ *   rebalanced - workload plus a rebalance of not-yet-started cases every REBALANCE_HOURS
+ *
+ * Run after compiling: java -cp target/classes scripts/AssignmentSimulation.java [officers] [districts] [cases] [utilization]
+ */
+public class AssignmentSimulation {
+
+    static final String[] PRIORITIES = {"high", "medium", "low"};
+    static final double[] PRIORITY_SHARE = {0.2, 0.5, 0.3};
+    static final double[] SERVICE_HOURS = {4, 8, 12};
+    static final int[] WEIGHTS = {3, 2, 1};
+    static final long REBALANCE_THRESHOLD = 6;
+    // assignment.rebalance.interval-ms=300000
+    static final double REBALANCE_HOURS = 5 / 60.0;
+    // Share of a district's cases filed by its front-desk officer
+    static final double DESK_SHARE = 0.3;
+
+    record Arrival(double at, int district, int priority, double work, double deskRoll, int filer) {
+    }
+
+    static final class Job {
+        final Arrival arrival;
+        int officer;
+
+        Job(Arrival arrival) {
+            this.arrival = arrival;
+        }
+    }
+
+    static final class Officer {
+        final int id;
+        final int district;
+        // Waiting cases, one queue per priority level
+        final List<ArrayDeque<Job>> waiting = List.of(new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>());
+        Job working;
+
+        Officer(int id, int district) {
+            this.id = id;
+            this.district = district;
+        }
+
+        int open() {
+            return waiting.get(0).size() + waiting.get(1).size() + waiting.get(2).size() + (working != null ? 1 : 0);
+        }
+    }
+
+    public static void main(String[] args) {
+        int officers = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int districts = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int cases = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        double utilization = args.length > 3 ? Double.parseDouble(args[3]) : 0.8;
+
+        double meanService = 0;
+        for (int i = 0; i < 3; i++) {
+            meanService += PRIORITY_SHARE[i] * SERVICE_HOURS[i];
+        }
+        double arrivalsPerHour = utilization * officers / meanService;
+        List<Arrival> arrivals = arrivals(cases, districts, officers, arrivalsPerHour, new Random(42));
+
+        System.out.printf("%d officers in %d districts, %d cases at %.1f/h (utilization %.2f)%n",
+                officers, districts, cases, arrivalsPerHour, utilization);
+        System.out.printf("%-12s %10s %10s %10s %10s %12s %12s%n",
+                "strategy", "mean h", "p90 h", "p99 h", "high p90", "peak open", "pick ns");
+        for (String strategy : List.of("desk", "round-robin", "workload", "rebalanced")) {
+            run(strategy, arrivals, officers, districts);
+        }
+    }
+
+    static List<Arrival> arrivals(int cases, int districts, int officers, double perHour, Random random) {
+        // Zipf-like district weights: the busiest district gets several times the quietest one's cases
+        double[] cumulative = new double[districts];
+        double total = 0;
+        for (int d = 0; d < districts; d++) {
+            total += 1.0 / Math.pow(d + 1, 0.8);
+            cumulative[d] = total;
+        }
+        List<Arrival> arrivals = new ArrayList<>(cases);
+        double now = 0;
+        for (int i = 0; i < cases; i++) {
+            now += -Math.log(1 - random.nextDouble()) / perHour;
+            double roll = random.nextDouble() * total;
+            int district = 0;
+            while (cumulative[district] < roll) {
+                district++;
+            }
+            double p = random.nextDouble();
+            int priority = p < PRIORITY_SHARE[0] ? 0 : p < PRIORITY_SHARE[0] + PRIORITY_SHARE[1] ? 1 : 2;
+            double work = -Math.log(1 - random.nextDouble()) * SERVICE_HOURS[priority];
+            arrivals.add(new Arrival(now, district, priority, work, random.nextDouble(), random.nextInt(officers)));
+        }
+        return arrivals;
+    }
+
+    static void run(String strategy, List<Arrival> arrivals, int officerCount, int districts) {
+        Officer[] officers = new Officer[officerCount];
+        Map<Integer, List<Officer>> byDistrict = new HashMap<>();
+        Map<String, String> postings = new HashMap<>();
+        int[] posted = staffing(arrivals, officerCount, districts);
+        for (int i = 0, d = 0; i < officerCount; i++) {
+            while (posted[d] == 0) {
+                d++;
+            }
+            posted[d]--;
+            officers[i] = new Officer(i, d);
+            byDistrict.computeIfAbsent(d, k -> new ArrayList<>()).add(officers[i]);
+            postings.put(String.valueOf(i), String.valueOf(d));
+        }
+        WorkloadIndex index = new WorkloadIndex(WEIGHTS[0], WEIGHTS[1], WEIGHTS[2]);
+        index.replaceAll(postings, List.of());
+        int[] nextInTurn = new int[districts];
+
+        // Completion events as {time, officer}
+        PriorityQueue<double[]> completions = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        List<Double> resolution = new ArrayList<>(arrivals.size());
+        List<Double> highResolution = new ArrayList<>();
+        long pickNanos = 0;
+        int peakOpen = 0;
+        double nextRebalance = REBALANCE_HOURS;
+
+        for (Arrival arrival : arrivals) {
+            while (!completions.isEmpty() && completions.peek()[0] <= arrival.at()) {
+                double[] done = completions.poll();
+                finish(officers[(int) done[1]], done[0], index, completions, resolution, highResolution);
+            }
+            if (strategy.equals("rebalanced")) {
+                while (nextRebalance <= arrival.at()) {
+                    rebalance(index, officers, districts, nextRebalance, completions);
+                    nextRebalance += REBALANCE_HOURS;
+                }
+            }
+
+            List<Officer> local = byDistrict.get(arrival.district());
+            Officer assignee;
+            switch (strategy) {
+                case "desk" -> assignee = arrival.deskRoll() < DESK_SHARE
+                        ? local.get(0) : local.get(arrival.filer() % local.size());
+                case "round-robin" -> assignee = local.get(nextInTurn[arrival.district()]++ % local.size());
+                default -> {
+                    long start = System.nanoTime();
+                    String picked = index.pick(String.valueOf(arrival.district()));
+                    pickNanos += System.nanoTime() - start;
+                    assignee = officers[Integer.parseInt(picked)];
+                }
+            }
+
+            Job job = new Job(arrival);
+            job.officer = assignee.id;
+            assignee.waiting.get(arrival.priority()).addLast(job);
+            index.adjust(String.valueOf(assignee.id), PRIORITIES[arrival.priority()], 1);
+            startNext(assignee, arrival.at(), completions);
+            peakOpen = Math.max(peakOpen, assignee.open());
+        }
+        while (!completions.isEmpty()) {
+            double[] done = completions.poll();
+            finish(officers[(int) done[1]], done[0], index, completions, resolution, highResolution);
+        }
+
+        double[] all = resolution.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double[] high = highResolution.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        System.out.printf("%-12s %10.1f %10.1f %10.1f %10.1f %12d %12s%n",
+                strategy, Arrays.stream(all).average().orElse(0), percentile(all, 0.9), percentile(all, 0.99),
+                percentile(high, 0.9), peakOpen,
+                strategy.equals("workload") || strategy.equals("rebalanced")
+                        ? String.format("%.0f", pickNanos / (double) arrivals.size()) : "-");
+    }
+
+    // Officers per district in proportion to its share of cases (largest remainder), at least one each
+    static int[] staffing(List<Arrival> arrivals, int officers, int districts) {
+        int[] counts = new int[districts];
+        for (Arrival arrival : arrivals) {
+            counts[arrival.district()]++;
+        }
+        int[] posted = new int[districts];
+        double[] remainder = new double[districts];
+        int assigned = 0;
+        for (int d = 0; d < districts; d++) {
+            double exact = (double) counts[d] * (officers - districts) / arrivals.size();
+            posted[d] = 1 + (int) exact;
+            remainder[d] = exact - (int) exact;
+            assigned += posted[d];
+        }
+        while (assigned < officers) {
+            int best = 0;
+            for (int d = 1; d < districts; d++) {
+                if (remainder[d] > remainder[best]) {
+                    best = d;
+                }
+            }
+            posted[best]++;
+            remainder[best] = -1;
+            assigned++;
+        }
+        return posted;
+    }
+
+    static void startNext(Officer officer, double now, PriorityQueue<double[]> completions) {
+        if (officer.working != null) {
+            return;
+        }
+        for (ArrayDeque<Job> queue : officer.waiting) {
+            Job next = queue.pollFirst();
+            if (next != null) {
+                officer.working = next;
+                completions.add(new double[]{now + next.arrival.work(), officer.id});
+                return;
+            }
+        }
+    }
+
+    static void finish(Officer officer, double now, WorkloadIndex index, PriorityQueue<double[]> completions,
+                       List<Double> resolution, List<Double> highResolution) {
+        Job done = officer.working;
+        officer.working = null;
+        index.adjust(String.valueOf(officer.id), PRIORITIES[done.arrival.priority()], -1);
+        resolution.add(now - done.arrival.at());
+        if (done.arrival.priority() == 0) {
+            highResolution.add(now - done.arrival.at());
+        }
+        startNext(officer, now, completions);
+    }
+
+    // Same rule as the service: move the newest waiting case that narrows the heaviest-lightest gap
+    static void rebalance(WorkloadIndex index, Officer[] officers, int districts, double now,
+                          PriorityQueue<double[]> completions) {
+        for (int d = 0; d < districts; d++) {
+            String district = String.valueOf(d);
+            for (int moves = 0; moves < 50; moves++) {
+                WorkloadIndex.Load heaviest = index.heaviest(district);
+                WorkloadIndex.Load lightest = index.lightest(district);
+                long gap = heaviest.score() - lightest.score();
+                if (gap <= REBALANCE_THRESHOLD) {
+                    break;
+                }
+                Officer from = officers[Integer.parseInt(heaviest.officerId())];
+                Job moved = null;
+                for (int level = 0; level < 3 && moved == null; level++) {
+                    if (WEIGHTS[level] < gap) {
+                        moved = from.waiting.get(level).pollLast();
+                    }
+                }
+                if (moved == null) {
+                    break;
+                }
+                Officer to = officers[Integer.parseInt(lightest.officerId())];
+                String priority = PRIORITIES[moved.arrival.priority()];
+                index.adjust(String.valueOf(from.id), priority, -1);
+                to.waiting.get(moved.arrival.priority()).addLast(moved);
+                moved.officer = to.id;
+                index.adjust(String.valueOf(to.id), priority, 1);
+                startNext(to, now, completions);
+            }
+        }
+    }
+
+    static double percentile(double[] sorted, double q) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))];
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dashboard polling against a running API, once re-fetching everything and once revalidating
+ * with If-None-Match, while a background writer adds a case note now and then so some polls
+ * do see changes. Reports requests served, response body bytes and, when the server's PID is
+ * given (same host, Linux), server CPU time per thousand requests read from /proc.
+ *
+ *   java scripts/EtagPollingBenchmark.java [baseUrl] [serverPid|-] [clients] [seconds] [writesPerSecond]
+ *
+ * Start the server with --rate-limit.enabled=false so polling clients are not throttled. The
+ * client does not ask for gzip, so byte counts are uncompressed JSON.
+ */
+public class EtagPollingBenchmark {
+
+    static final String EMAIL = "admin@safecity.com";
+    static final String PASSWORD = "admin123";
+
+    record Result(long requests, long notModified, long bytes, double cpuSeconds) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api";
+        String pid = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        double writesPerSecond = args.length > 4 ? Double.parseDouble(args[4]) : 1;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String token = signIn(client, baseUrl);
+        List<String> paths = new ArrayList<>(List.of("/cases?page=0&size=20", "/incidents?page=0&size=20"));
+        List<String> caseIds = caseIds(client, baseUrl, token);
+        for (String id : caseIds.subList(0, Math.min(5, caseIds.size()))) {
+            paths.add("/cases/" + id);
+        }
+
+        // Warm-up pass so both runs start from compiled code
+        run(client, baseUrl, token, paths, caseIds, clients, 5, writesPerSecond, true, pid);
+
+        System.out.printf("%-14s %10s %8s %12s %12s %14s%n", "", "requests", "304 %", "MB", "KB/request", "CPU ms/1k req");
+        report("unconditional", run(client, baseUrl, token, paths, caseIds, clients, seconds, writesPerSecond, false, pid));
+        report("If-None-Match", run(client, baseUrl, token, paths, caseIds, clients, seconds, writesPerSecond, true, pid));
+    }
+
+    static Result run(HttpClient client, String baseUrl, String token, List<String> paths, List<String> caseIds,
+                      int clients, int seconds, double writesPerSecond, boolean conditional, String pid) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong requests = new AtomicLong();
+        AtomicLong notModified = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        double cpuBefore = cpuSeconds(pid);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients + 1);
+        for (int c = 0; c < clients; c++) {
+            int offset = c;
+            pool.submit(() -> {
+                // Each client keeps its own tags, as a browser cache would
+                Map<String, String> tags = new ConcurrentHashMap<>();
+                for (int i = offset; running.get(); i++) {
+                    String path = paths.get(i % paths.size());
+                    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .header("Authorization", "Bearer " + token)
+                            .GET();
+                    String tag = tags.get(path);
+                    if (conditional && tag != null) {
+                        request.header("If-None-Match", tag);
+                    }
+                    try {
+                        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                        requests.incrementAndGet();
+                        bytes.addAndGet(response.body().length);
+                        if (response.statusCode() == 304) {
+                            notModified.incrementAndGet();
+                        }
+                        response.headers().firstValue("ETag").ifPresent(value -> tags.put(path, value));
+                    } catch (IOException | InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+        if (writesPerSecond > 0 && !caseIds.isEmpty()) {
+            long pauseMillis = (long) (1000 / writesPerSecond);
+            pool.submit(() -> {
+                for (int i = 0; running.get(); i++) {
+                    HttpRequest note = HttpRequest.newBuilder(URI.create(baseUrl + "/cases/" + caseIds.get(i % caseIds.size()) + "/notes"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"content\":\"benchmark note\",\"internal\":true}"))
+                            .build();
+                    try {
+                        client.send(note, HttpResponse.BodyHandlers.discarding());
+                        Thread.sleep(pauseMillis);
+                    } catch (IOException | InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return new Result(requests.get(), notModified.get(), bytes.get(), cpuSeconds(pid) - cpuBefore);
+    }
+
+    static String signIn(HttpClient client, String baseUrl) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Sign-in failed with " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    static List<String> caseIds(HttpClient client, String baseUrl, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/cases?page=0&size=20"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f]{24})\"").matcher(body);
+        while (matcher.find()) {
+            if (!ids.contains(matcher.group(1))) {
+                ids.add(matcher.group(1));
+            }
+        }
+        return ids;
+    }
+
+    // utime + stime of the server process, in clock ticks of 1/100 s
+    static double cpuSeconds(String pid) throws IOException {
+        if (pid == null) {
+            return 0;
+        }
+        String stat = Files.readString(Path.of("/proc", pid, "stat"));
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) / 100.0;
+    }
+
+    static void report(String label, Result result) {
+        System.out.printf("%-14s %10d %8.1f %12.1f %12.2f %14s%n", label, result.requests(),
+                100.0 * result.notModified() / Math.max(1, result.requests()),
+                result.bytes() / 1e6, result.bytes() / 1024.0 / Math.max(1, result.requests()),
+                result.cpuSeconds() > 0 ? String.format("%.1f", result.cpuSeconds() * 1e6 / result.requests()) : "-");
+    }
+}
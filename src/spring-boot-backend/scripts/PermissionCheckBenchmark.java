@@ -0,0 +1,140 @@
+import com.safecity.model.User;
+import com.safecity.security.PermissionAuthorizationManager;
+import com.safecity.security.PermissionRegistry;
+import com.safecity.security.UserDetailsImpl;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @PreAuthorize checks through PermissionAuthorizationManager, wired the way SecurityConfig
+ * wires it, against stock @EnableMethodSecurity. First prints the allow/deny decisions of both
+ * for each role on a role-only, an admin-only and a mixed expression (they must agree), then
+ * the cost of an officer-or-admin check on a proxied bean, interceptor included. Run after
+ * compiling, with the dependency classpath:
+ *
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *   java -cp "target/classes:$(cat target/classpath.txt)" scripts/PermissionCheckBenchmark.java [calls]
+ */
+public class PermissionCheckBenchmark {
+
+    static final List<String> ROLES = List.of("admin", "officer", "user");
+
+    public interface Endpoints {
+        @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+        int officerOrAdmin();
+
+        @PreAuthorize("hasRole('ADMIN')")
+        int adminOnly();
+
+        // Not a plain or-of-roles, so the bitset manager hands it to the expression evaluator
+        @PreAuthorize("hasAuthority('case:read') and isAuthenticated()")
+        int mixed();
+    }
+
+    public static class EndpointsImpl implements Endpoints {
+        public int officerOrAdmin() {
+            return 1;
+        }
+
+        public int adminOnly() {
+            return 1;
+        }
+
+        public int mixed() {
+            return 1;
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableMethodSecurity(prePostEnabled = false)
+    public static class Bitset {
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static Advisor preAuthorize(ApplicationContext context) {
+            return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(new PermissionAuthorizationManager(context));
+        }
+
+        @Bean
+        public Endpoints endpoints() {
+            return new EndpointsImpl();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableMethodSecurity
+    public static class Expression {
+        @Bean
+        public Endpoints endpoints() {
+            return new EndpointsImpl();
+        }
+    }
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        for (Class<?> config : List.of(Expression.class, Bitset.class)) {
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+                // The source launcher loads this file in its own class loader, which proxies must be defined in
+                context.setClassLoader(PermissionCheckBenchmark.class.getClassLoader());
+                context.register(config);
+                context.refresh();
+                Endpoints endpoints = context.getBean(Endpoints.class);
+                StringBuilder decisions = new StringBuilder();
+                for (String role : ROLES) {
+                    SecurityContextHolder.getContext().setAuthentication(authentication(role));
+                    decisions.append(String.format("%s[%s %s %s] ", role, decide(endpoints::officerOrAdmin),
+                            decide(endpoints::adminOnly), decide(endpoints::mixed)));
+                }
+                SecurityContextHolder.clearContext();
+                decisions.append("anonymous[").append(decide(endpoints::officerOrAdmin)).append("]");
+                System.out.printf("%-10s %s%n", config.getSimpleName(), decisions);
+
+                SecurityContextHolder.getContext().setAuthentication(authentication("officer"));
+                // The first rounds are warmup; the last is the figure to quote
+                for (int round = 1; round <= 3; round++) {
+                    long sink = 0;
+                    long start = System.nanoTime();
+                    for (int i = 0; i < calls; i++) {
+                        sink += endpoints.officerOrAdmin();
+                    }
+                    double nanos = (System.nanoTime() - start) / (double) calls;
+                    System.out.printf("%-10s round %d: %.0f ns per officer-or-admin check%s%n",
+                            config.getSimpleName(), round, nanos, sink == calls ? "" : " (?)");
+                }
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    static UsernamePasswordAuthenticationToken authentication(String role) {
+        User user = new User();
+        user.setId(role);
+        user.setEmail(role + "@safecity.local");
+        user.setPassword("");
+        user.setRole(role);
+        user.setPermissions(new HashSet<>(PermissionRegistry.defaultPermissions(role)));
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    static String decide(Runnable call) {
+        try {
+            call.run();
+            return "allow";
+        } catch (RuntimeException e) {
+            return "deny";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.safecity.model.Case;
+import com.safecity.model.CaseNote;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and serialization time of a case list page (the shape GET /cases returns) in
+ * JSON, CBOR and Smile, each with the mapper Boot builds by default and with the Blackbird
+ * module the application registers. Run after compiling, with the dependency classpath:
+ *
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *   java -cp "target/classes:$(cat target/classpath.txt)" scripts/SerializationBenchmark.java [cases] [notesPerCase]
+ */
+public class SerializationBenchmark {
+
+    static final int WARMUP_ROUNDS = 20_000;
+    static final int MEASURED_ROUNDS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int notes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Map<String, Object> page = page(cases, notes, new Random(7));
+
+        System.out.printf("Page of %d cases with %d notes each%n", cases, notes);
+        System.out.printf("%-8s %10s %12s %12s %14s%n", "format", "KB", "KB gzipped", "us default", "us blackbird");
+        report("json", Jackson2ObjectMapperBuilder.json(), page);
+        report("cbor", Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()), page);
+        report("smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()), page);
+    }
+
+    static void report(String format, Jackson2ObjectMapperBuilder builder, Map<String, Object> page) throws IOException {
+        ObjectMapper plain = builder.build();
+        ObjectMapper blackbird = builder.modulesToInstall(new BlackbirdModule()).build();
+        byte[] bytes = plain.writeValueAsBytes(page);
+        System.out.printf("%-8s %10.1f %12.1f %12.1f %14.1f%n", format, bytes.length / 1024.0, gzip(bytes).length / 1024.0,
+                micros(plain.writer(), page), micros(blackbird.writer(), page));
+    }
+
+    static double micros(ObjectWriter writer, Object value) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += writer.writeValueAsBytes(value).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += writer.writeValueAsBytes(value).length;
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / MEASURED_ROUNDS;
+        return sink > 0 ? micros : -1;
+    }
+
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    static Map<String, Object> page(int count, int notesPerCase, Random random) {
+        String[] statuses = {"new", "in-progress", "resolved"};
+        String[] priorities = {"high", "medium", "low"};
+        String[] types = {"theft", "assault", "fraud", "vandalism", "missing-person"};
+        LocalDateTime now = LocalDateTime.of(2024, 1, 15, 10, 30);
+        List<Case> cases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Case c = new Case();
+            c.setId(String.format("65a4f%019x", random.nextLong() & Long.MAX_VALUE));
+            c.setCaseNumber("FIR-" + (100000 + random.nextInt(900000)));
+            c.setTitle("Reported " + types[i % types.length] + " near market road");
+            c.setDescription("Complainant reports an incident of " + types[i % types.length]
+                    + " at the location below. Witnesses present; CCTV footage requested from nearby shops.");
+            c.setStatus(statuses[random.nextInt(statuses.length)]);
+            c.setPriority(priorities[random.nextInt(priorities.length)]);
+            c.setType(types[i % types.length]);
+            c.setLocation("Sector " + random.nextInt(60) + ", Main Market");
+            c.setDistrict("District " + random.nextInt(20));
+            c.setState("Delhi");
+            c.setLatitude(28.4 + random.nextDouble() * 0.5);
+            c.setLongitude(77.0 + random.nextDouble() * 0.5);
+            c.setComplainant("Complainant " + i);
+            c.setComplainantContact("+91-98" + (10000000 + random.nextInt(89999999)));
+            c.setAssignedTo(String.format("65a50%019x", random.nextLong() & Long.MAX_VALUE));
+            for (int n = 0; n < notesPerCase; n++) {
+                CaseNote note = new CaseNote();
+                note.setId("note-" + n);
+                note.setContent("Follow-up " + n + ": spoke to witness, statement recorded and added to the file.");
+                note.setCreatedBy(c.getAssignedTo());
+                note.setCreatedAt(now.plusHours(n));
+                note.setInternal(n % 3 == 0);
+                c.getNotes().add(note);
+            }
+            c.setCreatedAt(now);
+            c.setUpdatedAt(now.plusHours(notesPerCase));
+            c.setReportedAt(now.minusHours(2));
+            cases.add(c);
+        }
+        Map<String, Object> page = new HashMap<>();
+        page.put("cases", cases);
+        page.put("currentPage", 0);
+        page.put("totalItems", 1000L);
+        page.put("totalPages", 100);
+        return page;
+    }
+}
@@ -0,0 +1,143 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SOS acknowledgement latency against a running API, first on an idle server and then while
+ * dashboard clients poll case lists and stat cards as fast as they can. Every SOS creates an
+ * incident, so point it at a scratch database. Start the server with rate limiting off so the
+ * dashboard clients are not throttled:
+ *
+ *   mvn spring-boot:run -Dspring-boot.run.arguments=--rate-limit.enabled=false
+ *   java scripts/SosLatencyBenchmark.java [baseUrl] [dashboardClients] [sosRequests]
+ */
+public class SosLatencyBenchmark {
+
+    static final String EMAIL = "admin@safecity.com";
+    static final String PASSWORD = "admin123";
+    static final List<String> DASHBOARD_PATHS = List.of(
+            "/cases?page=0&size=50", "/incidents?page=0&size=50", "/analytics/dashboard");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api";
+        int dashboardClients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int sosRequests = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String token = signIn(client, baseUrl);
+
+        // Warm both paths before measuring
+        measure(client, baseUrl, token, 200);
+        dashboard(client, baseUrl, token, dashboardClients, Duration.ofSeconds(5));
+
+        System.out.printf("%-28s %10s %10s %10s %10s %12s%n", "", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "dash req/s");
+        report("idle", measure(client, baseUrl, token, sosRequests), 0);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong served = new AtomicLong();
+        ExecutorService load = Executors.newFixedThreadPool(dashboardClients);
+        for (int i = 0; i < dashboardClients; i++) {
+            load.submit(() -> poll(client, baseUrl, token, running, served));
+        }
+        Thread.sleep(2000);
+        long start = System.nanoTime();
+        served.set(0);
+        long[] loaded = measure(client, baseUrl, token, sosRequests);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        load.shutdown();
+        report(dashboardClients + " dashboard clients", loaded, served.get() / seconds);
+    }
+
+    static String signIn(HttpClient client, String baseUrl) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Sign-in failed with " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    // Sequential SOS triggers, so each latency is one request with nothing of ours queued ahead of it
+    static long[] measure(HttpClient client, String baseUrl, String token, int count) throws Exception {
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; i++) {
+            double lat = 28.5 + ThreadLocalRandom.current().nextDouble(0.3);
+            double lng = 77.1 + ThreadLocalRandom.current().nextDouble(0.3);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/sos/trigger"))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"location\":{\"lat\":" + lat + ",\"lng\":" + lng + "},\"details\":\"benchmark\"}"))
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            nanos[i] = System.nanoTime() - start;
+            if (response.statusCode() != 202) {
+                throw new IllegalStateException("SOS trigger returned " + response.statusCode());
+            }
+        }
+        return nanos;
+    }
+
+    static void dashboard(HttpClient client, String baseUrl, String token, int clients, Duration duration)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService load = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            load.submit(() -> poll(client, baseUrl, token, running, new AtomicLong()));
+        }
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        load.shutdown();
+        load.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    static void poll(HttpClient client, String baseUrl, String token, AtomicBoolean running, AtomicLong served) {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : DASHBOARD_PATHS) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build());
+        }
+        for (int i = 0; running.get(); i++) {
+            try {
+                client.send(requests.get(i % requests.size()), HttpResponse.BodyHandlers.discarding());
+                served.incrementAndGet();
+            } catch (Exception e) {
+                return;
+            }
+        }
+    }
+
+    static void report(String label, long[] nanos, double dashboardRate) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-28s %10.2f %10.2f %10.2f %10.2f %12s%n", label,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted[sorted.length - 1] / 1e6, dashboardRate > 0 ? String.format("%.0f", dashboardRate) : "-");
+    }
+
+    static double percentile(long[] sorted, double q) {
+        return sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Latency in the first minute after startup, with the readiness warmup off and on. Each run
+ * starts the server jar, waits for /actuator/health/readiness, then sends a fixed-rate mix of
+ * case and incident reads with one sign-in (a BCrypt check) in every 50 requests. Requests
+ * are sent on schedule whether or not earlier ones have answered, so a slow response does not
+ * hide the ones queued behind it. Point it at a database that already holds the sample data
+ * (start the server once beforehand), so seeding does not run during a measured minute.
+ *
+ *   mvn -DskipTests package
+ *   java scripts/WarmupBenchmark.java target/safecity-api-0.0.1-SNAPSHOT.jar [seconds] [requestsPerSecond] [runs]
+ *
+ * Environment: PORT (default 8080), MONGODB_URI (default mongodb://localhost:27017/safecity),
+ * JAVA (default java on PATH).
+ */
+public class WarmupBenchmark {
+
+    static final String SIGN_IN = "{\"email\":\"admin@safecity.com\",\"password\":\"admin123\"}";
+    static final int SIGN_IN_EVERY = 50;
+
+    record Result(long readyMillis, List<Long> reads, List<Long> signIns, int errors) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java scripts/WarmupBenchmark.java <jar> [seconds] [requestsPerSecond] [runs]");
+            System.exit(2);
+        }
+        String jar = args[0];
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 80;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        String port = System.getenv().getOrDefault("PORT", "8080");
+        String baseUrl = "http://localhost:" + port + "/api";
+
+        System.out.printf("%-8s %4s %10s %10s %10s %10s %14s %7s%n",
+                "warmup", "run", "ready ms", "p50 ms", "p99 ms", "max ms", "sign-in p99", "errors");
+        for (boolean warmup : new boolean[] {false, true}) {
+            for (int run = 1; run <= runs; run++) {
+                Result result = run(jar, port, baseUrl, warmup, seconds, rate);
+                report(warmup ? "on" : "off", run, result);
+            }
+        }
+    }
+
+    static Result run(String jar, String port, String baseUrl, boolean warmup, int seconds, int rate) throws Exception {
+        List<String> command = List.of(System.getenv().getOrDefault("JAVA", "java"), "-jar", jar,
+                "--server.port=" + port,
+                "--spring.data.mongodb.uri=" + System.getenv().getOrDefault("MONGODB_URI", "mongodb://localhost:27017/safecity"),
+                "--warmup.enabled=" + warmup,
+                "--rate-limit.enabled=false");
+        long start = System.nanoTime();
+        Process server = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        try {
+            awaitReady(client, baseUrl, server);
+            long readyMillis = (System.nanoTime() - start) / 1_000_000;
+
+            ConcurrentLinkedQueue<Long> reads = new ConcurrentLinkedQueue<>();
+            ConcurrentLinkedQueue<Long> signIns = new ConcurrentLinkedQueue<>();
+            ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            long signInStart = System.nanoTime();
+            String token = signIn(client, baseUrl);
+            signIns.add(System.nanoTime() - signInStart);
+            List<HttpRequest> mix = readMix(client, baseUrl, token);
+
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long total = (long) seconds * rate;
+            long begin = System.nanoTime();
+            for (long i = 1; i < total; i++) {
+                long due = begin + i * intervalNanos;
+                long sleep = due - System.nanoTime();
+                if (sleep > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+                boolean isSignIn = i % SIGN_IN_EVERY == 0;
+                HttpRequest request = isSignIn ? signInRequest(baseUrl) : mix.get((int) (i % mix.size()));
+                // Latency counts from when the request was due, not from when it was actually sent
+                pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, failure) -> {
+                            if (failure != null || response.statusCode() >= 400) {
+                                errors.add(failure != null ? failure : new IOException("HTTP " + response.statusCode()));
+                            }
+                            (isSignIn ? signIns : reads).add(System.nanoTime() - due);
+                        }));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+            return new Result(readyMillis, sorted(reads), sorted(signIns), errors.size());
+        } finally {
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+            }
+        }
+    }
+
+    static void awaitReady(HttpClient client, String baseUrl, Process server) throws Exception {
+        HttpRequest readiness = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness")).GET().build();
+        while (true) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with " + server.exitValue() + " before becoming ready");
+            }
+            try {
+                if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    static HttpRequest signInRequest(String baseUrl) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(SIGN_IN))
+                .build();
+    }
+
+    static String signIn(HttpClient client, String baseUrl) throws Exception {
+        HttpResponse<String> response = client.send(signInRequest(baseUrl), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Sign-in failed with " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    // Case and incident list pages plus a few case details, all with the bearer token
+    static List<HttpRequest> readMix(HttpClient client, String baseUrl, String token) throws Exception {
+        List<String> paths = new ArrayList<>(List.of("/cases?page=0&size=20", "/incidents?page=0&size=20"));
+        HttpRequest list = HttpRequest.newBuilder(URI.create(baseUrl + paths.get(0)))
+                .header("Authorization", "Bearer " + token).GET().build();
+        Matcher ids = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f]{24})\"")
+                .matcher(client.send(list, HttpResponse.BodyHandlers.ofString()).body());
+        for (int i = 0; i < 4 && ids.find(); i++) {
+            paths.add("/cases/" + ids.group(1));
+        }
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token).GET().build());
+        }
+        return requests;
+    }
+
+    static List<Long> sorted(ConcurrentLinkedQueue<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    static void report(String label, int run, Result result) {
+        System.out.printf("%-8s %4d %10d %10.2f %10.2f %10.2f %14.1f %7d%n", label, run, result.readyMillis(),
+                percentile(result.reads(), 0.5), percentile(result.reads(), 0.99),
+                percentile(result.reads(), 1), percentile(result.signIns(), 0.99), result.errors());
+    }
+
+    static double percentile(List<Long> sorted, double q) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) (q * sorted.size()))) / 1e6;
+    }
+}
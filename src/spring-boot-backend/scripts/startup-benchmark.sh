@@ -0,0 +1,105 @@
+#!/usr/bin/env bash
+#
+# Cold-start benchmark for the three ways of running the API. For each mode that has been
+# built it starts the server, times the first sign-in answered with 200 (which touches
+# security, Mongo and JWT) and reads the process RSS at that moment. Earlier answers, such
+# as a 401 while the sample users are still being seeded, count as not ready yet; a run that
+# gets no 200 within TIMEOUT seconds is reported with the last status it saw.
+#
+#   mvn -DskipTests package                       -> jar
+#   mvn -Pappcds -DskipTests package              -> appcds (needs MongoDB for the training run)
+#   mvn -Pnative -DskipTests native:compile       -> native (needs GraalVM)
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# Environment: PORT (default 8080), MONGODB_URI (default mongodb://localhost:27017/safecity),
+#              JAVA (default java on PATH), TIMEOUT (default 120)
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+MONGODB_URI="${MONGODB_URI:-mongodb://localhost:27017/safecity}"
+JAVA="${JAVA:-java}"
+TIMEOUT="${TIMEOUT:-120}"
+URL="http://localhost:${PORT}/api/auth/signin"
+BODY='{"email":"admin@safecity.com","password":"admin123"}'
+ARGS=(--server.port="${PORT}" --spring.data.mongodb.uri="${MONGODB_URI}")
+
+fat_jar=$(ls target/safecity-api-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)
+
+command_for() {
+    case "$1" in
+        jar) [[ -n "$fat_jar" ]] && echo "$JAVA -jar $fat_jar" ;;
+        appcds) [[ -f target/appcds/app.jsa ]] \
+            && echo "$JAVA -XX:SharedArchiveFile=target/appcds/app.jsa -Dspring.aot.enabled=true -jar target/appcds/safecity-api.jar" ;;
+        native) [[ -x target/safecity-api ]] && echo "target/safecity-api" ;;
+    esac
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+run_once() {
+    local command="$1"
+    local start pid code rss elapsed
+    start=$(now_ms)
+    $command "${ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+    while true; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "failed"
+            return
+        fi
+        code=$(curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' -d "$BODY" "$URL" || true)
+        if [[ "$code" == "200" ]]; then
+            break
+        fi
+        if (( $(now_ms) - start > TIMEOUT * 1000 )); then
+            kill "$pid"
+            wait "$pid" 2> /dev/null || true
+            echo "timeout ${code}"
+            return
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/${pid}/status")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "${elapsed} $(( rss / 1024 ))"
+}
+
+printf '%-8s %6s %20s %12s\n' mode runs "first sign-in (ms)" "RSS (MB)"
+for mode in jar appcds native; do
+    command=$(command_for "$mode" || true)
+    if [[ -z "$command" ]]; then
+        printf '%-8s %s\n' "$mode" "not built, skipped"
+        continue
+    fi
+    total_ms=0
+    total_rss=0
+    ok=0
+    problems=""
+    for ((i = 0; i < RUNS; i++)); do
+        read -r elapsed rss <<< "$(run_once "$command")"
+        if [[ "$elapsed" == "failed" ]]; then
+            problems="${problems} exited-before-200"
+            continue
+        fi
+        if [[ "$elapsed" == "timeout" ]]; then
+            problems="${problems} timeout(last=${rss})"
+            continue
+        fi
+        total_ms=$(( total_ms + elapsed ))
+        total_rss=$(( total_rss + rss ))
+        ok=$(( ok + 1 ))
+    done
+    if (( ok == 0 )); then
+        printf '%-8s %s\n' "$mode" "no run got a 200 sign-in:${problems}"
+        continue
+    fi
+    printf '%-8s %6d %20d %12d %s\n' "$mode" "$ok" $(( total_ms / ok )) $(( total_rss / ok )) "${problems}"
+done
@@ -1,12 +1,17 @@
 
 package com.safecity;
 
+import com.safecity.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableMongoAuditing
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class SafeCityApplication {
     
     public static void main(String[] args) {
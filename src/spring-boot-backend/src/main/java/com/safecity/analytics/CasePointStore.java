@@ -0,0 +1,269 @@
+
+package com.safecity.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Case coordinates held column-wise in blocks of primitive arrays so density passes can
+ * scan millions of points without boxing. Type and district are dictionary-encoded.
+ * Removal swaps the last row into the freed slot.
+ *
+ * Writers are serialised on the store; histograms bin a snapshot without holding any lock.
+ * Taking a snapshot marks every block shared, and a writer copies a shared block, and the
+ * block table, before changing it, so only blocks written since the last snapshot are copied.
+ */
+public class CasePointStore {
+
+    public static final int ANY = -1;
+
+    private static final int NO_MATCH = -2;
+
+    private static final int MIN_CHUNK = 1 << 16;
+
+    private static final int BLOCK_BITS = 12;
+
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    public record Filter(long fromMillis, String type, String district) {
+    }
+
+    private static final class Block {
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] createdAt;
+        final int[] types;
+        final int[] districts;
+        final long generation;
+
+        Block(long generation) {
+            this.latitudes = new double[BLOCK_SIZE];
+            this.longitudes = new double[BLOCK_SIZE];
+            this.createdAt = new long[BLOCK_SIZE];
+            this.types = new int[BLOCK_SIZE];
+            this.districts = new int[BLOCK_SIZE];
+            this.generation = generation;
+        }
+
+        Block(Block other, long generation) {
+            this.latitudes = other.latitudes.clone();
+            this.longitudes = other.longitudes.clone();
+            this.createdAt = other.createdAt.clone();
+            this.types = other.types.clone();
+            this.districts = other.districts.clone();
+            this.generation = generation;
+        }
+    }
+
+    private record Snapshot(Block[] blocks, int size, long version) {
+    }
+
+    private final Map<String, Integer> rows = new HashMap<>();
+
+    // Read by histograms outside the store lock
+    private final Map<String, Integer> typeCodes = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> districtCodes = new ConcurrentHashMap<>();
+
+    private String[] ids = new String[BLOCK_SIZE];
+
+    private Block[] blocks = new Block[0];
+
+    // Blocks, and a block table, from an earlier generation may be in use by a histogram
+    private long generation;
+
+    private long tableGeneration;
+
+    private int size;
+
+    private long version;
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized long upsert(String id, double latitude, double longitude, long createdAtMillis, String type, String district) {
+        Integer row = rows.get(id);
+        if (row == null) {
+            row = size++;
+            if (row == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1));
+            }
+            rows.put(id, row);
+            ids[row] = id;
+        }
+        Block block = writable(row);
+        int i = row & BLOCK_MASK;
+        block.latitudes[i] = latitude;
+        block.longitudes[i] = longitude;
+        block.createdAt[i] = createdAtMillis;
+        block.types[i] = encode(typeCodes, type);
+        block.districts[i] = encode(districtCodes, district);
+        return ++version;
+    }
+
+    public synchronized long remove(String id) {
+        Integer row = rows.remove(id);
+        if (row != null) {
+            int last = --size;
+            if (row != last) {
+                Block from = blocks[last >> BLOCK_BITS];
+                int j = last & BLOCK_MASK;
+                Block to = writable(row);
+                int i = row & BLOCK_MASK;
+                to.latitudes[i] = from.latitudes[j];
+                to.longitudes[i] = from.longitudes[j];
+                to.createdAt[i] = from.createdAt[j];
+                to.types[i] = from.types[j];
+                to.districts[i] = from.districts[j];
+                ids[row] = ids[last];
+                rows.put(ids[row], row);
+            }
+            ids[last] = null;
+        }
+        return ++version;
+    }
+
+    public record Histogram(double[] counts, int points, long version) {
+    }
+
+    /**
+     * Bins matching points into the padded grid of the given density, in parallel over
+     * point ranges. There is one range, and one grid-sized buffer, per pool worker at most;
+     * the first range bins straight into the result and the others are added to it.
+     */
+    public Histogram histogram(ForkJoinPool pool, KernelDensity density, Filter filter) {
+        Snapshot snapshot = snapshot();
+        int type = code(typeCodes, filter.type());
+        int district = code(districtCodes, filter.district());
+        int count = snapshot.size();
+        if (type == NO_MATCH || district == NO_MATCH || count == 0) {
+            return new Histogram(new double[density.paddedCells()], 0, snapshot.version());
+        }
+        int parts = Math.max(1, Math.min(pool.getParallelism(), count / MIN_CHUNK));
+        List<BinTask> tasks = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            tasks.add(new BinTask(snapshot.blocks(), density, filter.fromMillis(), type, district,
+                    (int) ((long) count * part / parts), (int) ((long) count * (part + 1) / parts)));
+        }
+        for (int part = 1; part < parts; part++) {
+            pool.execute(tasks.get(part));
+        }
+        BinResult result = pool.invoke(tasks.get(0));
+        double[] counts = result.counts;
+        int points = result.points;
+        for (int part = 1; part < parts; part++) {
+            BinResult other = tasks.get(part).join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            points += other.points;
+        }
+        return new Histogram(counts, points, snapshot.version());
+    }
+
+    private synchronized Snapshot snapshot() {
+        generation++;
+        return new Snapshot(blocks, size, version);
+    }
+
+    // The block holding the row, copied first if a snapshot may be reading it
+    private Block writable(int row) {
+        int index = row >> BLOCK_BITS;
+        if (tableGeneration != generation || index == blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(blocks.length, index + 1));
+            tableGeneration = generation;
+        }
+        Block block = blocks[index];
+        if (block == null) {
+            block = new Block(generation);
+            blocks[index] = block;
+        } else if (block.generation != generation) {
+            block = new Block(block, generation);
+            blocks[index] = block;
+        }
+        return block;
+    }
+
+    private record BinResult(double[] counts, int points) {
+    }
+
+    private static final class BinTask extends RecursiveTask<BinResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Block[] blocks;
+        private final transient KernelDensity density;
+        private final long fromMillis;
+        private final int type;
+        private final int district;
+        private final int start;
+        private final int end;
+
+        BinTask(Block[] blocks, KernelDensity density, long fromMillis, int type, int district, int start, int end) {
+            this.blocks = blocks;
+            this.density = density;
+            this.fromMillis = fromMillis;
+            this.type = type;
+            this.district = district;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected BinResult compute() {
+            double[] counts = new double[density.paddedCells()];
+            int points = 0;
+            for (int row = start; row < end; ) {
+                Block block = blocks[row >> BLOCK_BITS];
+                int from = row & BLOCK_MASK;
+                int to = Math.min(BLOCK_SIZE, from + end - row);
+                for (int i = from; i < to; i++) {
+                    if (block.createdAt[i] < fromMillis
+                            || (type != ANY && block.types[i] != type)
+                            || (district != ANY && block.districts[i] != district)) {
+                        continue;
+                    }
+                    int cell = density.paddedCell(block.latitudes[i], block.longitudes[i]);
+                    if (cell >= 0) {
+                        counts[cell]++;
+                        points++;
+                    }
+                }
+                row += to - from;
+            }
+            return new BinResult(counts, points);
+        }
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        if (value == null || value.isBlank()) {
+            return ANY;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NO_MATCH;
+    }
+
+    // Null and blank values share one code, which only an unfiltered query matches
+    private static int encode(Map<String, Integer> codes, String value) {
+        String key = value == null || value.isBlank() ? "" : value;
+        Integer code = codes.get(key);
+        if (code == null) {
+            code = codes.size();
+            codes.put(key, code);
+        }
+        return code;
+    }
+}
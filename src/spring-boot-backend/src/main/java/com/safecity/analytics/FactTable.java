@@ -0,0 +1,276 @@
+package com.safecity.analytics;
+
+import org.roaringbitmap.BatchIterator;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rows of categorical facts held column-wise: every dimension is dictionary-encoded into an
+ * int array, with a roaring bitmap of rows per value. Filters are bitmap unions and
+ * intersections; a single-dimension group-by is one intersection count per value, and wider
+ * group-bys scan only the selected rows. Deleted rows leave a hole, so row numbers only grow.
+ */
+public class FactTable {
+
+    public static final String NONE = "none";
+
+    private static final int MAX_DENSE_CELLS = 1 << 20;
+
+    public record Group(List<String> values, long count) {
+    }
+
+    private static final class Dimension {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<RoaringBitmap> rows = new ArrayList<>();
+        int[] column = new int[1024];
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value == null || value.isBlank() ? NONE : value, v -> {
+                values.add(v);
+                rows.add(new RoaringBitmap());
+                return values.size() - 1;
+            });
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<String> names;
+
+    private final Dimension[] dimensions;
+
+    private final Map<String, Integer> rows = new HashMap<>();
+
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    private int nextRow;
+
+    public FactTable(List<String> names) {
+        this.names = List.copyOf(names);
+        this.dimensions = new Dimension[names.size()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = new Dimension();
+        }
+    }
+
+    public List<String> dimensions() {
+        return names;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a row. Values follow the order of {@link #dimensions()}.
+     */
+    public void upsert(String id, String[] values) {
+        lock.writeLock().lock();
+        try {
+            write(id, values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces many rows under one lock acquisition.
+     */
+    public void upsertAll(Map<String, String[]> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(id);
+            if (row != null) {
+                live.remove(row);
+                for (Dimension dimension : dimensions) {
+                    dimension.rows.get(dimension.column[row]).remove(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts rows matching every filter (any of the listed values per dimension), grouped by
+     * the given dimensions, largest groups first. Empty groups are left out.
+     */
+    public List<Group> groupBy(Map<String, ? extends Collection<String>> filters, List<String> groupBy, int limit) {
+        int[] grouped = new int[groupBy.size()];
+        for (int i = 0; i < grouped.length; i++) {
+            grouped[i] = indexOf(groupBy.get(i));
+        }
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap selection = select(filters);
+            List<Group> groups = new ArrayList<>();
+            if (grouped.length == 0) {
+                long count = selection != null ? selection.getLongCardinality() : rows.size();
+                groups.add(new Group(List.of(), count));
+            } else if (grouped.length == 1) {
+                Dimension dimension = dimensions[grouped[0]];
+                for (int code = 0; code < dimension.values.size(); code++) {
+                    RoaringBitmap valueRows = dimension.rows.get(code);
+                    long count = selection != null ? RoaringBitmap.andCardinality(valueRows, selection) : valueRows.getLongCardinality();
+                    if (count > 0) {
+                        groups.add(new Group(List.of(dimension.values.get(code)), count));
+                    }
+                }
+            } else {
+                scan(selection, grouped, limit, groups);
+            }
+            groups.sort((a, b) -> Long.compare(b.count(), a.count()));
+            return groups.size() > limit ? new ArrayList<>(groups.subList(0, limit)) : groups;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Null when nothing is filtered, meaning every live row
+    private RoaringBitmap select(Map<String, ? extends Collection<String>> filters) {
+        RoaringBitmap selection = null;
+        for (Map.Entry<String, ? extends Collection<String>> filter : filters.entrySet()) {
+            Dimension dimension = dimensions[indexOf(filter.getKey())];
+            List<RoaringBitmap> matching = new ArrayList<>();
+            for (String value : filter.getValue()) {
+                Integer code = dimension.codes.get(value);
+                if (code != null) {
+                    matching.add(dimension.rows.get(code));
+                }
+            }
+            RoaringBitmap union = matching.isEmpty() ? new RoaringBitmap() : FastAggregation.or(matching.iterator());
+            selection = selection == null ? union : RoaringBitmap.and(selection, union);
+        }
+        return selection;
+    }
+
+    // Counts by a mixed-radix cell number over the grouped dimensions' codes, keeping only the largest cells
+    private void scan(RoaringBitmap selection, int[] grouped, int limit, List<Group> groups) {
+        int[][] columns = new int[grouped.length][];
+        int[] radix = new int[grouped.length];
+        long cells = 1;
+        for (int i = 0; i < grouped.length; i++) {
+            columns[i] = dimensions[grouped[i]].column;
+            radix[i] = Math.max(1, dimensions[grouped[i]].values.size());
+            cells *= radix[i];
+        }
+
+        // Row numbers are ints, so an int count cannot overflow
+        Map<Long, int[]> sparse = cells > MAX_DENSE_CELLS ? new HashMap<>() : null;
+        int[] dense = sparse == null ? new int[(int) cells] : null;
+        BatchIterator batches = (selection != null ? selection : live).getBatchIterator();
+        int[] batch = new int[256];
+        while (batches.hasNext()) {
+            int n = batches.nextBatch(batch);
+            for (int j = 0; j < n; j++) {
+                int row = batch[j];
+                long cell = 0;
+                for (int i = 0; i < columns.length; i++) {
+                    cell = cell * radix[i] + columns[i][row];
+                }
+                if (dense != null) {
+                    dense[(int) cell]++;
+                } else {
+                    sparse.computeIfAbsent(cell, c -> new int[1])[0]++;
+                }
+            }
+        }
+
+        // Entries are {count, cell}, smallest count on top
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+        if (dense != null) {
+            for (int cell = 0; cell < dense.length; cell++) {
+                offer(top, limit, dense[cell], cell);
+            }
+        } else {
+            sparse.forEach((cell, count) -> offer(top, limit, count[0], cell));
+        }
+        for (long[] entry : top) {
+            groups.add(new Group(decode(entry[1], grouped, radix), entry[0]));
+        }
+    }
+
+    private static void offer(PriorityQueue<long[]> top, int limit, long count, long cell) {
+        if (count == 0) {
+            return;
+        }
+        if (top.size() < limit) {
+            top.add(new long[]{count, cell});
+        } else if (count > top.peek()[0]) {
+            top.poll();
+            top.add(new long[]{count, cell});
+        }
+    }
+
+    private List<String> decode(long cell, int[] grouped, int[] radix) {
+        String[] values = new String[grouped.length];
+        for (int i = grouped.length - 1; i >= 0; i--) {
+            values[i] = dimensions[grouped[i]].values.get((int) (cell % radix[i]));
+            cell /= radix[i];
+        }
+        return Arrays.asList(values);
+    }
+
+    private void write(String id, String[] values) {
+        Integer existing = rows.get(id);
+        int row;
+        if (existing != null) {
+            row = existing;
+        } else {
+            row = nextRow++;
+            rows.put(id, row);
+            live.add(row);
+        }
+        for (int i = 0; i < dimensions.length; i++) {
+            Dimension dimension = dimensions[i];
+            if (row >= dimension.column.length) {
+                dimension.column = Arrays.copyOf(dimension.column, Math.max(row + 1, dimension.column.length * 2));
+            }
+            int code = dimension.encode(values[i]);
+            if (existing != null) {
+                int previous = dimension.column[row];
+                if (previous == code) {
+                    continue;
+                }
+                dimension.rows.get(previous).remove(row);
+            }
+            dimension.column[row] = code;
+            dimension.rows.get(code).add(row);
+        }
+    }
+
+    private int indexOf(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new RuntimeException("Unknown dimension: " + name + " (expected one of " + names + ")");
+        }
+        return index;
+    }
+}
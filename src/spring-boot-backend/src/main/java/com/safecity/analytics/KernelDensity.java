@@ -0,0 +1,165 @@
+
+package com.safecity.analytics;
+
+import com.safecity.geo.GeoUtils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Gaussian kernel density over a lat/lng raster. Points are binned into a grid padded by
+ * the kernel radius and smoothed with two separable passes, each split across row bands.
+ */
+public class KernelDensity {
+
+    private static final int ROWS_PER_TASK = 16;
+
+    private final double west;
+    private final double north;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int width;
+    private final int height;
+    private final int radiusX;
+    private final int radiusY;
+    private final int paddedWidth;
+    private final int paddedHeight;
+    private final double[] kernelX;
+    private final double[] kernelY;
+
+    public KernelDensity(double west, double south, double east, double north, int width, int height, double bandwidthMeters) {
+        this.west = west;
+        this.north = north;
+        this.width = width;
+        this.height = height;
+        this.cellWidth = (east - west) / width;
+        this.cellHeight = (north - south) / height;
+
+        double middleLatitude = Math.toRadians((north + south) / 2);
+        double sigmaX = bandwidthMeters / (cellWidth * GeoUtils.METERS_PER_DEGREE * Math.max(0.01, Math.cos(middleLatitude)));
+        double sigmaY = bandwidthMeters / (cellHeight * GeoUtils.METERS_PER_DEGREE);
+        this.radiusX = Math.min(width, (int) Math.ceil(3 * sigmaX));
+        this.radiusY = Math.min(height, (int) Math.ceil(3 * sigmaY));
+        this.kernelX = kernel(sigmaX, radiusX);
+        this.kernelY = kernel(sigmaY, radiusY);
+        this.paddedWidth = width + 2 * radiusX;
+        this.paddedHeight = height + 2 * radiusY;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int paddedCells() {
+        return paddedWidth * paddedHeight;
+    }
+
+    /**
+     * Index of the point in the padded grid, or -1 when it is too far outside the raster to contribute.
+     */
+    public int paddedCell(double latitude, double longitude) {
+        double x = Math.floor((longitude - west) / cellWidth) + radiusX;
+        double y = Math.floor((north - latitude) / cellHeight) + radiusY;
+        if (x < 0 || y < 0 || x >= paddedWidth || y >= paddedHeight) {
+            return -1;
+        }
+        return (int) y * paddedWidth + (int) x;
+    }
+
+    /**
+     * Smooths a padded histogram into a width x height raster, rows ordered north to south.
+     */
+    public double[] smooth(ForkJoinPool pool, double[] histogram) {
+        double[] horizontal = new double[paddedHeight * width];
+        pool.invoke(new PassTask(0, paddedHeight, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int in = y * paddedWidth;
+                int out = y * width;
+                for (int x = 0; x < width; x++) {
+                    double sum = 0;
+                    for (int k = 0; k < kernelX.length; k++) {
+                        sum += kernelX[k] * histogram[in + x + k];
+                    }
+                    horizontal[out + x] = sum;
+                }
+            }
+        }));
+
+        double[] raster = new double[width * height];
+        pool.invoke(new PassTask(0, height, (from, to) -> {
+            // Accumulate whole rows so both buffers are read sequentially
+            for (int y = from; y < to; y++) {
+                int out = y * width;
+                for (int k = 0; k < kernelY.length; k++) {
+                    double weight = kernelY[k];
+                    if (weight == 0) {
+                        continue;
+                    }
+                    int in = (y + k) * width;
+                    for (int x = 0; x < width; x++) {
+                        raster[out + x] += weight * horizontal[in + x];
+                    }
+                }
+            }
+        }));
+        return raster;
+    }
+
+    public double latitude(int y) {
+        return north - (y + 0.5) * cellHeight;
+    }
+
+    public double longitude(int x) {
+        return west + (x + 0.5) * cellWidth;
+    }
+
+    private static double[] kernel(double sigma, int radius) {
+        double[] kernel = new double[2 * radius + 1];
+        if (sigma <= 0 || radius == 0) {
+            kernel[radius] = 1;
+            return kernel;
+        }
+        double sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            kernel[i + radius] = Math.exp(-(i * (double) i) / (2 * sigma * sigma));
+            sum += kernel[i + radius];
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= sum;
+        }
+        return kernel;
+    }
+
+    private interface RowPass {
+        void run(int from, int to);
+    }
+
+    private static final class PassTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient RowPass pass;
+
+        PassTask(int from, int to, RowPass pass) {
+            this.from = from;
+            this.to = to;
+            this.pass = pass;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                pass.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PassTask(from, middle, pass), new PassTask(middle, to, pass));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.safecity.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Running per-officer case metrics: open workload, resolved count, a resolution-time
+ * histogram and SLA hits. Every case contributes one {@link CaseFacts}; a state transition
+ * retracts the old facts and adds the new ones, so reassignment, resolution and reopening
+ * are all the same two calls. Counters are atomics, so reads need no lock; callers that
+ * rebuild alongside live updates serialise the two themselves.
+ */
+public class OfficerMetrics {
+
+    // Upper bounds of the resolution-time buckets in hours; one more bucket holds everything longer
+    public static final double[] BUCKET_HOURS = {1, 2, 4, 8, 12, 24, 48, 72, 168, 336, 720};
+
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    /**
+     * What one case contributes to its assignee. resolutionMillis is negative for unresolved cases.
+     */
+    public record CaseFacts(String officerId, boolean open, long resolutionMillis, boolean withinSla) {
+    }
+
+    public record Summary(String officerId, long open, long resolved, double meanHours, double medianHours,
+                          double p90Hours, double slaCompliance, long[] histogram) {
+    }
+
+    private static final class Stats {
+        final AtomicLong open = new AtomicLong();
+        final AtomicLong resolved = new AtomicLong();
+        final AtomicLong withinSla = new AtomicLong();
+        final AtomicLong totalMillis = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_HOURS.length + 1);
+    }
+
+    private volatile Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public void add(CaseFacts facts) {
+        apply(stats, facts, 1);
+    }
+
+    public void remove(CaseFacts facts) {
+        apply(stats, facts, -1);
+    }
+
+    /**
+     * Swaps in metrics computed from scratch.
+     */
+    public void replaceAll(Iterable<CaseFacts> allFacts) {
+        Map<String, Stats> rebuilt = new ConcurrentHashMap<>();
+        for (CaseFacts facts : allFacts) {
+            apply(rebuilt, facts, 1);
+        }
+        stats = rebuilt;
+    }
+
+    public List<Summary> summaries() {
+        List<Summary> summaries = new ArrayList<>();
+        stats.forEach((officerId, s) -> summaries.add(summarize(officerId, s)));
+        return summaries;
+    }
+
+    public Summary summary(String officerId) {
+        Stats s = stats.get(officerId);
+        return s != null ? summarize(officerId, s) : null;
+    }
+
+    private static void apply(Map<String, Stats> target, CaseFacts facts, int sign) {
+        if (facts == null || facts.officerId() == null) {
+            return;
+        }
+        Stats s = target.computeIfAbsent(facts.officerId(), id -> new Stats());
+        if (facts.open()) {
+            s.open.addAndGet(sign);
+        }
+        if (facts.resolutionMillis() >= 0) {
+            s.resolved.addAndGet(sign);
+            s.totalMillis.addAndGet(sign * facts.resolutionMillis());
+            s.buckets.addAndGet(bucket(facts.resolutionMillis()), sign);
+            if (facts.withinSla()) {
+                s.withinSla.addAndGet(sign);
+            }
+        }
+    }
+
+    private static int bucket(long millis) {
+        double hours = millis / MILLIS_PER_HOUR;
+        for (int i = 0; i < BUCKET_HOURS.length; i++) {
+            if (hours <= BUCKET_HOURS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_HOURS.length;
+    }
+
+    private static Summary summarize(String officerId, Stats s) {
+        long[] histogram = new long[s.buckets.length()];
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = s.buckets.get(i);
+            total += histogram[i];
+        }
+        long resolved = s.resolved.get();
+        return new Summary(officerId, s.open.get(), resolved,
+                resolved > 0 ? s.totalMillis.get() / MILLIS_PER_HOUR / resolved : 0,
+                quantile(histogram, total, 0.5),
+                quantile(histogram, total, 0.9),
+                resolved > 0 ? (double) s.withinSla.get() / resolved : 0,
+                histogram);
+    }
+
+    // Upper bound of the bucket holding the quantile; the open-ended bucket reports the last bound
+    private static double quantile(long[] histogram, long total, double q) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return BUCKET_HOURS[Math.min(i, BUCKET_HOURS.length - 1)];
+            }
+        }
+        return BUCKET_HOURS[BUCKET_HOURS.length - 1];
+    }
+}
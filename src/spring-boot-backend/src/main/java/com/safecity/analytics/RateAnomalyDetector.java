@@ -0,0 +1,164 @@
+
+package com.safecity.analytics;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming spike detector for event arrival rates. Each key counts arrivals in fixed
+ * time buckets and keeps a Holt-Winters style baseline: an EWMA level, an hour-of-week
+ * seasonal factor and an EWMA of the squared residual. An arrival that pushes the
+ * current bucket well above its seasonal expectation raises one alert for that bucket.
+ * Arrivals only touch atomics; the baseline is replaced by CAS when a bucket closes.
+ */
+public class RateAnomalyDetector {
+
+    public record Alert(String key, long bucketStart, long observed, double expected, double score) {
+    }
+
+    private static final int SEASON_SLOTS = 7 * 24;
+
+    private static final int COUNT_BITS = 24;
+
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final long EMPTY = -1;
+
+    private static final double MIN_SEASONAL = 0.05;
+
+    private static final double MAX_SEASONAL = 20;
+
+    private final long bucketMs;
+
+    private final double alpha;
+
+    private final double gamma;
+
+    private final double threshold;
+
+    private final long minCount;
+
+    private final long warmupBuckets;
+
+    private final ZoneId zone;
+
+    private final ConcurrentHashMap<String, Stream> streams = new ConcurrentHashMap<>();
+
+    private record Baseline(long lastBucket, long buckets, double level, double variance, double[] seasonal) {
+
+        static Baseline empty() {
+            double[] seasonal = new double[SEASON_SLOTS];
+            Arrays.fill(seasonal, 1.0);
+            return new Baseline(EMPTY, 0, 0, 0, seasonal);
+        }
+    }
+
+    private static final class Stream {
+        // Current bucket in the high bits, its arrival count in the low COUNT_BITS
+        final AtomicLong state = new AtomicLong(EMPTY);
+        final AtomicReference<Baseline> baseline = new AtomicReference<>(Baseline.empty());
+        final AtomicLong alertedBucket = new AtomicLong(EMPTY);
+    }
+
+    public RateAnomalyDetector(long bucketMs, double alpha, double gamma, double threshold, long minCount,
+                               long warmupBuckets, ZoneId zone) {
+        this.bucketMs = bucketMs;
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.threshold = threshold;
+        this.minCount = minCount;
+        this.warmupBuckets = warmupBuckets;
+        this.zone = zone;
+    }
+
+    public int size() {
+        return streams.size();
+    }
+
+    /**
+     * Counts one arrival and returns an alert when it makes its bucket anomalous, at most once
+     * per key and bucket. Arrivals for buckets that have already closed are ignored.
+     */
+    public Alert record(String key, long timestampMillis, boolean alerts) {
+        long bucket = Math.floorDiv(timestampMillis, bucketMs);
+        Stream stream = streams.computeIfAbsent(key, k -> new Stream());
+
+        long count;
+        while (true) {
+            long state = stream.state.get();
+            long current = state >>> COUNT_BITS;
+            long currentCount = state & COUNT_MASK;
+            if (state != EMPTY && current == bucket) {
+                if (currentCount == COUNT_MASK || stream.state.compareAndSet(state, state + 1)) {
+                    count = Math.min(currentCount + 1, COUNT_MASK);
+                    break;
+                }
+            } else if (state == EMPTY || current < bucket) {
+                if (stream.state.compareAndSet(state, (bucket << COUNT_BITS) | 1)) {
+                    // Only the thread that closed the bucket folds it
+                    if (state != EMPTY) {
+                        stream.baseline.updateAndGet(baseline -> advance(baseline, current, currentCount));
+                    }
+                    count = 1;
+                    break;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (!alerts) {
+            return null;
+        }
+        Baseline baseline = stream.baseline.get();
+        if (baseline.buckets() < warmupBuckets || count < minCount) {
+            return null;
+        }
+        double expected = baseline.level() * baseline.seasonal()[slot(bucket)];
+        // The Poisson term keeps sparse keys from alerting on a near-zero variance
+        double score = (count - expected) / Math.sqrt(baseline.variance() + expected + 1);
+        long alerted = stream.alertedBucket.get();
+        if (score < threshold || alerted >= bucket || !stream.alertedBucket.compareAndSet(alerted, bucket)) {
+            return null;
+        }
+        return new Alert(key, bucket * bucketMs, count, expected, score);
+    }
+
+    // Folds a closed bucket, plus empty buckets since the last fold, into a new baseline
+    private Baseline advance(Baseline baseline, long bucket, long count) {
+        long lastBucket = baseline.lastBucket();
+        long buckets = baseline.buckets();
+        double level = baseline.level();
+        double variance = baseline.variance();
+        double[] seasonal = baseline.seasonal().clone();
+
+        long from = lastBucket == EMPTY ? bucket : Math.max(lastBucket + 1, bucket - SEASON_SLOTS * Math.max(1, 3_600_000 / bucketMs));
+        for (long b = Math.min(from, bucket); b <= bucket; b++) {
+            double observed = b == bucket ? count : 0;
+            int slot = slot(b);
+            if (buckets == 0) {
+                level = observed;
+            } else {
+                double residual = observed - level * seasonal[slot];
+                variance = (1 - alpha) * variance + alpha * residual * residual;
+                level += alpha * (observed / seasonal[slot] - level);
+                if (level > 1e-6) {
+                    double factor = seasonal[slot] + gamma * (observed / level - seasonal[slot]);
+                    seasonal[slot] = Math.min(MAX_SEASONAL, Math.max(MIN_SEASONAL, factor));
+                }
+            }
+            buckets++;
+        }
+        return new Baseline(Math.max(lastBucket, bucket), buckets, level, variance, seasonal);
+    }
+
+    private int slot(long bucket) {
+        ZonedDateTime start = Instant.ofEpochMilli(bucket * bucketMs).atZone(zone);
+        return (start.getDayOfWeek().getValue() - 1) * 24 + start.getHour();
+    }
+}
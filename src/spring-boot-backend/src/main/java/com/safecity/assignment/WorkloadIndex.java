@@ -0,0 +1,192 @@
+package com.safecity.assignment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Officers ordered by weighted open workload, one ordered set per posting district plus one
+ * over everybody. Open cases count by priority weight, so two low-priority cases can weigh
+ * less than one high. A change to an officer's load re-sorts only that officer, and the
+ * lightest officer in a district is the first element of its set, so both are O(log n).
+ */
+public class WorkloadIndex {
+
+    public static final String UNPOSTED = "";
+
+    public record Load(String officerId, String district, int high, int medium, int low, long score) {
+    }
+
+    private static final class Officer {
+        final String id;
+        String district;
+        final int[] open = new int[3];
+        long score;
+
+        Officer(String id, String district) {
+            this.id = id;
+            this.district = district;
+        }
+
+        Load load() {
+            return new Load(id, district, open[0], open[1], open[2], score);
+        }
+    }
+
+    // Ties go to the officer id so the order is total and removal finds the exact element
+    private static final Comparator<Officer> ORDER = Comparator.<Officer>comparingLong(o -> o.score).thenComparing(o -> o.id);
+
+    private final int[] weights;
+
+    private final Map<String, Officer> officers = new HashMap<>();
+
+    private final Map<String, TreeSet<Officer>> byDistrict = new HashMap<>();
+
+    private final TreeSet<Officer> all = new TreeSet<>(ORDER);
+
+    public WorkloadIndex(int highWeight, int mediumWeight, int lowWeight) {
+        this.weights = new int[]{highWeight, mediumWeight, lowWeight};
+    }
+
+    /**
+     * Adds an officer, or moves an existing one to another posting district keeping their load.
+     */
+    public synchronized void putOfficer(String officerId, String district) {
+        String posting = posting(district);
+        Officer officer = officers.get(officerId);
+        if (officer == null) {
+            officer = new Officer(officerId, posting);
+            officers.put(officerId, officer);
+        } else if (officer.district.equals(posting)) {
+            return;
+        } else {
+            unlink(officer);
+            officer.district = posting;
+        }
+        link(officer);
+    }
+
+    public synchronized void removeOfficer(String officerId) {
+        Officer officer = officers.remove(officerId);
+        if (officer != null) {
+            unlink(officer);
+        }
+    }
+
+    /**
+     * Counts an open case in or out of an officer's load. Officers not in the index are ignored.
+     */
+    public synchronized void adjust(String officerId, String priority, int delta) {
+        Officer officer = officerId != null ? officers.get(officerId) : null;
+        if (officer == null) {
+            return;
+        }
+        int level = level(priority);
+        unlink(officer);
+        officer.open[level] = Math.max(0, officer.open[level] + delta);
+        officer.score = score(officer.open);
+        link(officer);
+    }
+
+    /**
+     * The least loaded officer posted to the district, or the least loaded overall when
+     * nobody is posted there. Null when there are no officers.
+     */
+    public synchronized String pick(String district) {
+        TreeSet<Officer> posted = district != null ? byDistrict.get(district) : null;
+        if (posted != null && !posted.isEmpty()) {
+            return posted.first().id;
+        }
+        return all.isEmpty() ? null : all.first().id;
+    }
+
+    public synchronized Load lightest(String district) {
+        TreeSet<Officer> posted = byDistrict.get(posting(district));
+        return posted == null || posted.isEmpty() ? null : posted.first().load();
+    }
+
+    public synchronized Load heaviest(String district) {
+        TreeSet<Officer> posted = byDistrict.get(posting(district));
+        return posted == null || posted.isEmpty() ? null : posted.last().load();
+    }
+
+    public synchronized List<String> districts() {
+        return new ArrayList<>(byDistrict.keySet());
+    }
+
+    public synchronized List<Load> loads() {
+        List<Load> loads = new ArrayList<>(all.size());
+        for (Officer officer : all) {
+            loads.add(officer.load());
+        }
+        return loads;
+    }
+
+    public synchronized int size() {
+        return officers.size();
+    }
+
+    public int weight(String priority) {
+        return weights[level(priority)];
+    }
+
+    /**
+     * Replaces everything with officers and open cases read from scratch. Each open case is
+     * {officerId, priority}.
+     */
+    public synchronized void replaceAll(Map<String, String> postings, Iterable<String[]> openCases) {
+        officers.clear();
+        byDistrict.clear();
+        all.clear();
+        postings.forEach((id, district) -> officers.put(id, new Officer(id, posting(district))));
+        for (String[] openCase : openCases) {
+            Officer officer = officers.get(openCase[0]);
+            if (officer != null) {
+                officer.open[level(openCase[1])]++;
+            }
+        }
+        for (Officer officer : officers.values()) {
+            officer.score = score(officer.open);
+            link(officer);
+        }
+    }
+
+    private void link(Officer officer) {
+        byDistrict.computeIfAbsent(officer.district, d -> new TreeSet<>(ORDER)).add(officer);
+        all.add(officer);
+    }
+
+    private void unlink(Officer officer) {
+        TreeSet<Officer> posted = byDistrict.get(officer.district);
+        if (posted != null) {
+            posted.remove(officer);
+            if (posted.isEmpty()) {
+                byDistrict.remove(officer.district);
+            }
+        }
+        all.remove(officer);
+    }
+
+    private long score(int[] open) {
+        long score = 0;
+        for (int i = 0; i < open.length; i++) {
+            score += (long) open[i] * weights[i];
+        }
+        return score;
+    }
+
+    private static String posting(String district) {
+        return district == null || district.isBlank() ? UNPOSTED : district;
+    }
+
+    // Unknown or missing priorities count as medium, the default when a case is filed
+    private static int level(String priority) {
+        if ("high".equals(priority)) {
+            return 0;
+        }
+        return "low".equals(priority) ? 2 : 1;
+    }
+}
@@ -1,23 +1,38 @@
 
 package com.safecity.config;
 
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.event.UserChangedEvent;
 import com.safecity.model.User;
 import com.safecity.model.Case;
 import com.safecity.model.Report;
 import com.safecity.repository.UserRepository;
 import com.safecity.repository.CaseRepository;
 import com.safecity.repository.ReportRepository;
+import com.safecity.security.PermissionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 @Component
-public class DataSeeder implements CommandLineRunner {
+public class DataSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
 
     @Autowired
     private UserRepository userRepository;
@@ -31,45 +46,71 @@ public class DataSeeder implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Override
-    public void run(String... args) {
-        // Only seed if collections are empty
-        if (userRepository.count() == 0) {
-            seedUsers();
-        }
-        if (caseRepository.count() == 0) {
-            seedCases();
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${seed.enabled}")
+    private boolean enabled;
+
+    // Seeds on its own thread once the server is up, so startup does not wait on Mongo round trips
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedInBackground() {
+        if (!enabled) {
+            return;
         }
-        if (reportRepository.count() == 0) {
-            seedReports();
+        Thread thread = new Thread(this::run, "data-seeder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void run() {
+        try {
+            // Only seed if collections are empty; exists() stops at the first document where count() scans
+            if (!mongoTemplate.exists(new Query(), User.class)) {
+                seedUsers();
+            }
+            if (!mongoTemplate.exists(new Query(), Case.class)) {
+                seedCases();
+            }
+            if (!mongoTemplate.exists(new Query(), Report.class)) {
+                seedReports();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Seeding sample data failed: {}", e.getMessage());
         }
     }
 
     private void seedUsers() {
         // Create 10 users with different roles
         List<User> users = Arrays.asList(
-            createUser("Admin User", "admin@safecity.com", "admin123", "admin", "AD001"),
-            createUser("Officer One", "officer1@safecity.com", "officer123", "officer", "OF001"),
-            createUser("Officer Two", "officer2@safecity.com", "officer123", "officer", "OF002"),
-            createUser("User One", "user1@safecity.com", "user123", "user", null),
-            createUser("User Two", "user2@safecity.com", "user123", "user", null),
-            createUser("Officer Three", "officer3@safecity.com", "officer123", "officer", "OF003"),
-            createUser("Officer Four", "officer4@safecity.com", "officer123", "officer", "OF004"),
-            createUser("User Three", "user3@safecity.com", "user123", "user", null),
-            createUser("User Four", "user4@safecity.com", "user123", "user", null),
-            createUser("Supervisor", "supervisor@safecity.com", "super123", "admin", "AD002")
+            createUser("Admin User", "admin@safecity.com", "admin123", "admin", "AD001", null),
+            createUser("Officer One", "officer1@safecity.com", "officer123", "officer", "OF001", "North"),
+            createUser("Officer Two", "officer2@safecity.com", "officer123", "officer", "OF002", "South"),
+            createUser("User One", "user1@safecity.com", "user123", "user", null, null),
+            createUser("User Two", "user2@safecity.com", "user123", "user", null, null),
+            createUser("Officer Three", "officer3@safecity.com", "officer123", "officer", "OF003", "East"),
+            createUser("Officer Four", "officer4@safecity.com", "officer123", "officer", "OF004", "West"),
+            createUser("User Three", "user3@safecity.com", "user123", "user", null, null),
+            createUser("User Four", "user4@safecity.com", "user123", "user", null, null),
+            createUser("Supervisor", "supervisor@safecity.com", "super123", "admin", "AD002", null)
         );
         
-        userRepository.saveAll(users);
+        // Published like the services do, since in-memory views may already have loaded
+        userRepository.saveAll(users).forEach(user -> eventPublisher.publishEvent(new UserChangedEvent(ChangeType.CREATED, null, user)));
     }
 
-    private User createUser(String name, String email, String password, String role, String badgeNumber) {
+    private User createUser(String name, String email, String password, String role, String badgeNumber, String district) {
         User user = new User();
         user.setName(name);
         user.setEmail(email);
         user.setPassword(passwordEncoder.encode(password));
         user.setRole(role);
+        user.setPermissions(new HashSet<>(PermissionRegistry.defaultPermissions(role)));
         user.setBadgeNumber(badgeNumber);
+        user.setDistrict(district);
         user.setActive(true);
         return user;
     }
@@ -91,23 +132,23 @@ public class DataSeeder implements CommandLineRunner {
             caseObj.setCreatedAt(LocalDateTime.now().minusDays(i));
             caseObj.setLocation("Location " + (i + 1));
             
-            caseRepository.save(caseObj);
+            eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.CREATED, null, caseRepository.save(caseObj)));
         }
     }
 
     private void seedReports() {
         // Create 2 reports
         List<Report> reports = Arrays.asList(
-            createReport("Suspicious Activity Report", "REPORT-2024-001", "new"),
-            createReport("Traffic Incident Report", "REPORT-2024-002", "in-progress")
+            createReport("suspicious-activity", "REPORT-2024-001", "new"),
+            createReport("traffic-incident", "REPORT-2024-002", "in-progress")
         );
         
-        reportRepository.saveAll(reports);
+        reportRepository.saveAll(reports).forEach(report -> eventPublisher.publishEvent(new ReportChangedEvent(ChangeType.CREATED, null, report)));
     }
 
-    private Report createReport(String title, String reportNumber, String status) {
+    private Report createReport(String reportType, String reportNumber, String status) {
         Report report = new Report();
-        report.setTitle(title);
+        report.setReportType(reportType);
         report.setReportNumber(reportNumber);
         report.setStatus(status);
         report.setDescription("This is a sample report description");
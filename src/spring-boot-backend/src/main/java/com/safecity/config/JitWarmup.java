@@ -0,0 +1,143 @@
+package com.safecity.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safecity.model.Case;
+import com.safecity.model.CaseNote;
+import com.safecity.model.User;
+import com.safecity.security.JwtUtils;
+import com.safecity.security.UserDetailsImpl;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Runs the hot request paths on synthetic data before the instance reports ready: JWT
+ * signing and parsing, Jackson and Mongo mapping of a case, and BCrypt. Boot only moves
+ * readiness to accepting traffic once every ready listener has returned, so running last
+ * and on the main thread keeps the probe failing until the JIT has seen these paths.
+ * Nothing is written to Mongo.
+ */
+@Component
+public class JitWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(JitWarmup.class);
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${warmup.enabled}")
+    private boolean enabled;
+
+    @Value("${warmup.max-duration-ms}")
+    private long maxDurationMs;
+
+    @Value("${warmup.iterations}")
+    private int iterations;
+
+    @Value("${warmup.bcrypt-iterations}")
+    private int bcryptIterations;
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long deadline = start + maxDurationMs;
+        try {
+            Authentication authentication = authentication();
+            Case sample = sampleCase();
+            MongoConverter converter = mongoTemplate.getConverter();
+            int done = 0;
+            while (done < iterations && System.currentTimeMillis() < deadline) {
+                String token = jwtUtils.generateJwtToken(authentication);
+                if (jwtUtils.validateJwtToken(token)) {
+                    jwtUtils.getUserNameFromJwtToken(token);
+                }
+
+                byte[] json = objectMapper.writeValueAsBytes(sample);
+                objectMapper.readValue(json, Case.class);
+
+                Document document = new Document();
+                converter.write(sample, document);
+                converter.read(Case.class, document);
+                done++;
+            }
+
+            // Each check costs tens of milliseconds by design, so it gets its own, much smaller budget
+            String encoded = passwordEncoder.encode("warmup-password");
+            int checks = 0;
+            while (checks < bcryptIterations && System.currentTimeMillis() < deadline) {
+                passwordEncoder.matches("warmup-password", encoded);
+                checks++;
+            }
+            logger.info("JIT warmup ran {} request iterations and {} password checks in {} ms",
+                    done, checks, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            // A failed warmup only costs latency, so it must not keep the instance out of rotation
+            logger.warn("JIT warmup stopped early: {}", e.getMessage());
+        }
+    }
+
+    private Authentication authentication() {
+        User user = new User();
+        user.setId("warmup");
+        user.setEmail("warmup@safecity.local");
+        user.setPassword("");
+        user.setRole("user");
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private static Case sampleCase() {
+        Case sample = new Case();
+        sample.setId("000000000000000000000000");
+        sample.setCaseNumber("CASE-WARMUP");
+        sample.setTitle("Warmup case");
+        sample.setDescription("Synthetic case used to exercise serialization paths at startup");
+        sample.setStatus("in-progress");
+        sample.setPriority("medium");
+        sample.setType("theft");
+        sample.setDistrict("Central");
+        sample.setLatitude(28.6139);
+        sample.setLongitude(77.2090);
+        sample.setAssignedTo("warmup");
+        sample.setCreatedAt(LocalDateTime.now());
+        sample.setUpdatedAt(LocalDateTime.now());
+        sample.setReportedAt(LocalDateTime.now());
+        sample.getAttachments().add("000000000000000000000001");
+        for (int i = 0; i < 5; i++) {
+            CaseNote note = new CaseNote();
+            note.setContent("Synthetic note " + i);
+            note.setCreatedBy("warmup");
+            note.setCreatedAt(LocalDateTime.now());
+            sample.getNotes().add(note);
+        }
+        return sample;
+    }
+}
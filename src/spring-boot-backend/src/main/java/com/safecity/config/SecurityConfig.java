@@ -3,12 +3,20 @@ package com.safecity.config;
 
 import com.safecity.security.AuthEntryPointJwt;
 import com.safecity.security.AuthTokenFilter;
+import com.safecity.security.PermissionAuthorizationManager;
+import com.safecity.security.RateLimitFilter;
 import com.safecity.security.UserDetailsServiceImpl;
+import org.springframework.aop.Advisor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -27,7 +35,8 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity
+// @PreAuthorize is wired up below with the mask-based manager instead of the default one
+@EnableMethodSecurity(prePostEnabled = false)
 public class SecurityConfig {
     
     @Autowired
@@ -36,11 +45,28 @@ public class SecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
     
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor preAuthorizeAuthorizationMethodInterceptor(ApplicationContext context) {
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(new PermissionAuthorizationManager(context));
+    }
+    
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
     
+    // Runs inside the security chain only; without this Boot would also register it with the container
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+    
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
@@ -83,12 +109,15 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/auth/**", "/auth/signin", "/auth/signup", "/public/**").permitAll()
+                .requestMatchers("/actuator/health/**").permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/officer/**").hasAnyRole("ADMIN", "OFFICER")
                 .anyRequest().authenticated()
             );
         
         http.authenticationProvider(authenticationProvider());
+        // Filters at the same position keep the order they are added in, so the limiter runs before token checks
+        http.addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
@@ -0,0 +1,55 @@
+package com.safecity.controller;
+
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.RateLimitFilter;
+import com.safecity.service.DashboardStatsService;
+import com.safecity.service.ReverseGeocodingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private ReverseGeocodingService reverseGeocodingService;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @PostMapping("/geocode/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startGeocodeBackfill() {
+        try {
+            return ResponseEntity.accepted().body(reverseGeocodingService.startBackfill());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/geocode/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getGeocodeBackfillStatus() {
+        return ResponseEntity.ok(reverseGeocodingService.getBackfillStatus());
+    }
+
+    @GetMapping("/rate-limits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitFilter.getStats());
+    }
+
+    @GetMapping("/dashboard-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getDashboardCacheStats() {
+        return ResponseEntity.ok(dashboardStatsService.getCacheStats());
+    }
+}
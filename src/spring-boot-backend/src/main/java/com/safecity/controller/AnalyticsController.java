@@ -0,0 +1,100 @@
+package com.safecity.controller;
+
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.service.AnomalyDetectionService;
+import com.safecity.service.DashboardStatsService;
+import com.safecity.service.FactStoreService;
+import com.safecity.service.HotspotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private HotspotService hotspotService;
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private FactStoreService factStoreService;
+
+    @GetMapping("/hotspots")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getHotspots(
+            @RequestParam double west,
+            @RequestParam double south,
+            @RequestParam double east,
+            @RequestParam double north,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String district,
+            @RequestParam(defaultValue = "128") int width,
+            @RequestParam(defaultValue = "128") int height,
+            @RequestParam(defaultValue = "500") double bandwidth) {
+        try {
+            return ResponseEntity.ok(hotspotService.findHotspots(days, type, district,
+                    west, south, east, north, width, height, bandwidth));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/anomalies")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAnomalies(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String district) {
+        return ResponseEntity.ok(anomalyDetectionService.findRecentAlerts(Math.min(Math.max(limit, 1), 500), district));
+    }
+
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getDashboardStats(
+            @RequestParam(required = false) String district,
+            @RequestParam(required = false) String assignedTo) {
+        return ResponseEntity.ok(dashboardStatsService.getStats(district, assignedTo));
+    }
+
+    // Every query parameter other than source, groupBy and limit filters on the dimension it names
+    @GetMapping("/facts")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> queryFacts(
+            @RequestParam(defaultValue = "cases") String source,
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam MultiValueMap<String, String> params) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        params.forEach((name, values) -> {
+            if (!Set.of("source", "groupBy", "limit").contains(name)) {
+                List<String> split = new ArrayList<>();
+                values.forEach(value -> split.addAll(Arrays.asList(value.split(","))));
+                filters.put(name, split);
+            }
+        });
+        try {
+            return ResponseEntity.ok(factStoreService.query(source, groupBy != null ? groupBy : List.of(),
+                    filters, Math.min(Math.max(limit, 1), 10000)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+}
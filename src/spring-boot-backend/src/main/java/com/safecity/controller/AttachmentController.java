@@ -0,0 +1,119 @@
+package com.safecity.controller;
+
+import com.safecity.model.Attachment;
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.AttachmentService;
+import com.safecity.storage.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/attachments")
+public class AttachmentController {
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Value("${attachments.sendfile-threshold}")
+    private long sendfileThreshold;
+
+    // The file is the raw request body, so it is streamed to storage instead of being parsed as multipart
+    @PostMapping
+    public ResponseEntity<?> upload(
+            @RequestParam String referenceType,
+            @RequestParam String referenceId,
+            @RequestParam(required = false) String fileName,
+            HttpServletRequest request,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        try {
+            return ResponseEntity.ok(attachmentService.upload(referenceType, referenceId, fileName,
+                    request.getContentType(), request.getContentLengthLong(), request.getInputStream(),
+                    userDetails.getId(), isPrivileged(userDetails)));
+        } catch (RuntimeException | IOException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAttachments(@RequestParam String referenceType, @RequestParam String referenceId) {
+        try {
+            return ResponseEntity.ok(attachmentService.findByReference(referenceType, referenceId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getAttachment(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(attachmentService.findById(id, userDetails.getId(), isPrivileged(userDetails)));
+    }
+
+    @GetMapping("/{id}/content")
+    public ResponseEntity<?> download(@PathVariable String id, Authentication authentication,
+                                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Attachment attachment = attachmentService.findById(id, userDetails.getId(), isPrivileged(userDetails));
+
+        // Content never changes for a given hash, so the hash is a strong validator
+        String etag = "\"" + attachment.getSha256() + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return null;
+        }
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(attachment.getFileName() != null ? attachment.getFileName() : attachment.getId(), StandardCharsets.UTF_8)
+                .build();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        FileSender.send(request, response, attachmentService.contentPath(attachment), attachment.getSize(),
+                attachment.getContentType(), etag, sendfileThreshold);
+        return null;
+    }
+
+    // Small JPEG derivatives of image attachments, for list and review screens
+    @GetMapping("/{id}/renditions/{name}")
+    public ResponseEntity<?> downloadRendition(@PathVariable String id, @PathVariable String name, Authentication authentication,
+                                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Attachment attachment = attachmentService.findById(id, userDetails.getId(), isPrivileged(userDetails));
+        if (!attachment.getRenditions().contains(name)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = "\"" + attachment.getSha256() + "-" + name + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return null;
+        }
+        Path file = attachmentService.renditionPath(attachment, name);
+        FileSender.send(request, response, file, Files.size(file), "image/jpeg", etag, sendfileThreshold);
+        return null;
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteAttachment(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.hasRole("ADMIN");
+        attachmentService.delete(id, userDetails.getId(), admin);
+        return ResponseEntity.ok(new MessageResponse("Attachment deleted successfully"));
+    }
+
+    private static boolean isPrivileged(UserDetailsImpl userDetails) {
+        return userDetails.hasRole("OFFICER") || userDetails.hasRole("ADMIN");
+    }
+}
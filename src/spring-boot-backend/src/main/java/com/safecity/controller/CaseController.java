@@ -7,18 +7,24 @@ import com.safecity.payload.request.CaseNoteRequest;
 import com.safecity.payload.request.CaseRequest;
 import com.safecity.payload.response.MessageResponse;
 import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.AttachmentService;
+import com.safecity.service.CaseJournalService;
 import com.safecity.service.CaseService;
+import com.safecity.service.ResourceVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -30,6 +36,15 @@ public class CaseController {
     @Autowired
     private CaseService caseService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private CaseJournalService caseJournalService;
+
     @GetMapping
     @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
     public ResponseEntity<?> getAllCases(
@@ -40,7 +55,13 @@ public class CaseController {
             @RequestParam(required = false) String district,
             @RequestParam(required = false) String assignedTo,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest request) {
+
+        String tag = resourceVersionService.listTag("cases", page, size, status, priority, district, assignedTo, sortBy, direction);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
@@ -65,20 +86,52 @@ public class CaseController {
         response.put("totalItems", casesPage.getTotalElements());
         response.put("totalPages", casesPage.getTotalPages());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(tag).body(response);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getCaseById(@PathVariable String id) {
-        return ResponseEntity.ok(caseService.findById(id));
+    public ResponseEntity<?> getCaseById(@PathVariable String id, WebRequest request) {
+        String tag = resourceVersionService.documentTag("cases", id);
+        if (tag != null && request.checkNotModified(tag)) {
+            return null;
+        }
+        Case caseObj = caseService.findById(id);
+        return ResponseEntity.ok().eTag(resourceVersionService.tagOf(caseObj.getId(), caseObj.getUpdatedAt())).body(caseObj);
+    }
+
+    // Attachment metadata with the names of ready renditions, so views can fetch thumbnails first
+    @GetMapping("/{id}/attachments")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCaseAttachments(@PathVariable String id) {
+        return ResponseEntity.ok(attachmentService.findByReference("case", id));
+    }
+
+    // Newest first; pass the last seq seen as before to page further back
+    @GetMapping("/{id}/timeline")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCaseTimeline(
+            @PathVariable String id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(caseJournalService.getTimeline(id, before, Math.min(Math.max(limit, 1), 500)));
+    }
+
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCaseStateAt(
+            @PathVariable String id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return ResponseEntity.ok(caseJournalService.getStateAt(id, at));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
     }
 
     @PostMapping
     @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
-    public ResponseEntity<?> createCase(@Valid @RequestBody CaseRequest caseRequest, Authentication authentication) {
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
+    public ResponseEntity<?> createCase(@Valid @RequestBody CaseRequest caseRequest) {
         Case newCase = new Case();
         newCase.setCaseNumber("FIR-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
         newCase.setTitle(caseRequest.getTitle());
@@ -93,7 +146,8 @@ public class CaseController {
         newCase.setLongitude(caseRequest.getLongitude());
         newCase.setComplainant(caseRequest.getComplainant());
         newCase.setComplainantContact(caseRequest.getComplainantContact());
-        newCase.setAssignedTo(caseRequest.getAssignedTo() != null ? caseRequest.getAssignedTo() : userDetails.getId());
+        // Left empty, the case goes to the least loaded officer in its district
+        newCase.setAssignedTo(caseRequest.getAssignedTo());
         
         Case savedCase = caseService.save(newCase);
         return ResponseEntity.ok(savedCase);
@@ -0,0 +1,43 @@
+package com.safecity.controller;
+
+import com.safecity.payload.request.GeofenceRequest;
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.GeofenceService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/geofences")
+public class GeofenceController {
+
+    @Autowired
+    private GeofenceService geofenceService;
+
+    @GetMapping
+    public ResponseEntity<?> getMyGeofences(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(geofenceService.findByUserId(userDetails.getId()));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> subscribe(@Valid @RequestBody GeofenceRequest geofenceRequest, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        try {
+            return ResponseEntity.ok(geofenceService.subscribe(userDetails.getId(), geofenceRequest));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> unsubscribe(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.hasRole("ADMIN");
+        geofenceService.unsubscribe(id, userDetails.getId(), admin);
+        return ResponseEntity.ok(new MessageResponse("Geofence removed successfully"));
+    }
+}
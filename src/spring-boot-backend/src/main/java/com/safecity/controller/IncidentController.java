@@ -0,0 +1,141 @@
+package com.safecity.controller;
+
+import com.safecity.model.Incident;
+import com.safecity.model.IncidentUpdate;
+import com.safecity.payload.request.IncidentUpdateRequest;
+import com.safecity.payload.request.ResponderRequest;
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.IncidentService;
+import com.safecity.service.ResourceVersionService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/incidents")
+public class IncidentController {
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Value("${incidents.commands.timeout-ms}")
+    private long commandTimeoutMs;
+
+    @GetMapping
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAllIncidents(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) String district,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest request) {
+
+        String tag = resourceVersionService.listTag("incidents", page, size, status, severity, district, sortBy, direction);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+
+        Page<Incident> incidentsPage;
+
+        if (status != null && district != null) {
+            incidentsPage = incidentService.findByDistrictAndStatus(district, status, pageable);
+        } else if (status != null && severity != null) {
+            incidentsPage = incidentService.findBySeverityAndStatus(severity, status, pageable);
+        } else if (status != null) {
+            incidentsPage = incidentService.findByStatus(status, pageable);
+        } else {
+            incidentsPage = incidentService.findAll(pageable);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("incidents", incidentsPage.getContent());
+        response.put("currentPage", incidentsPage.getNumber());
+        response.put("totalItems", incidentsPage.getTotalElements());
+        response.put("totalPages", incidentsPage.getTotalPages());
+
+        return ResponseEntity.ok().eTag(tag).body(response);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getIncidentById(@PathVariable String id, WebRequest request) {
+        String tag = resourceVersionService.documentTag("incidents", id);
+        if (tag != null && request.checkNotModified(tag)) {
+            return null;
+        }
+        Incident incident = incidentService.findById(id);
+        return ResponseEntity.ok().eTag(resourceVersionService.tagOf(incident.getId(), incident.getUpdatedAt())).body(incident);
+    }
+
+    @PostMapping("/{id}/updates")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> addIncidentUpdate(@PathVariable String id, @Valid @RequestBody IncidentUpdateRequest updateRequest,
+                                               Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        IncidentUpdate update = new IncidentUpdate();
+        update.setContent(updateRequest.getContent());
+        update.setStatus(updateRequest.getStatus());
+        update.setUpdatedBy(userDetails.getId());
+        return await(() -> incidentService.addUpdate(id, update));
+    }
+
+    @PostMapping("/{id}/responders")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> addResponder(@PathVariable String id, @Valid @RequestBody ResponderRequest responderRequest) {
+        return await(() -> incidentService.addResponder(id, responderRequest.getUserId()));
+    }
+
+    @DeleteMapping("/{id}/responders/{userId}")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> removeResponder(@PathVariable String id, @PathVariable String userId) {
+        return await(() -> incidentService.removeResponder(id, userId));
+    }
+
+    // Commands are written in short batches, so the request waits for its batch and answers with the result
+    private ResponseEntity<?> await(Supplier<CompletableFuture<Incident>> command) {
+        try {
+            return ResponseEntity.ok(command.get().get(commandTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getCause().getMessage()));
+        } catch (TimeoutException e) {
+            // The command stays queued and may still be applied
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new MessageResponse("Error: Timed out waiting for the incident write"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new MessageResponse("Error: Interrupted waiting for the incident write"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+
+package com.safecity.controller;
+
+import com.safecity.service.MapClusterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/map")
+public class MapController {
+
+    @Autowired
+    private MapClusterService mapClusterService;
+
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(
+            @RequestParam double west,
+            @RequestParam double south,
+            @RequestParam double east,
+            @RequestParam double north,
+            @RequestParam int zoom,
+            @RequestParam(required = false) Set<String> kinds) {
+        return ResponseEntity.ok(mapClusterService.findClusters(west, south, east, north, zoom, kinds));
+    }
+}
@@ -0,0 +1,47 @@
+package com.safecity.controller;
+
+import com.safecity.model.Notification;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @GetMapping
+    public ResponseEntity<?> getMyNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Page<Notification> notificationsPage = notificationService.findByUserId(userDetails.getId(),
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("notifications", notificationsPage.getContent());
+        response.put("currentPage", notificationsPage.getNumber());
+        response.put("totalItems", notificationsPage.getTotalElements());
+        response.put("totalPages", notificationsPage.getTotalPages());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/{id}/read")
+    public ResponseEntity<?> markRead(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(notificationService.markRead(id, userDetails.getId()));
+    }
+}
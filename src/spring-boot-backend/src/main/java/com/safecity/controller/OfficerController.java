@@ -0,0 +1,62 @@
+
+package com.safecity.controller;
+
+import com.safecity.payload.request.LocationUpdateRequest;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.CaseAssignmentService;
+import com.safecity.service.OfficerLocationService;
+import com.safecity.service.OfficerMetricsService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/officer")
+public class OfficerController {
+
+    @Autowired
+    private OfficerLocationService officerLocationService;
+
+    @Autowired
+    private OfficerMetricsService officerMetricsService;
+
+    @Autowired
+    private CaseAssignmentService caseAssignmentService;
+
+    @PostMapping("/location")
+    public ResponseEntity<?> updateLocation(@Valid @RequestBody LocationUpdateRequest locationRequest, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        // Held in memory only; positions are snapshotted to Mongo on a schedule
+        officerLocationService.updateLocation(userDetails.getId(), locationRequest);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/nearest")
+    public ResponseEntity<?> findNearestOfficers(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") int k) {
+        return ResponseEntity.ok(officerLocationService.findNearestAvailable(lat, lng, Math.min(Math.max(k, 1), 50)));
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<?> getMetrics(@RequestParam(required = false) String officerId, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.hasRole("ADMIN");
+
+        // Officers only see their own numbers; admins see everyone, or one officer when asked
+        return ResponseEntity.ok(officerMetricsService.getMetrics(admin ? officerId : userDetails.getId()));
+    }
+
+    @GetMapping("/workload")
+    public ResponseEntity<?> getWorkload(@RequestParam(required = false) String officerId, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.hasRole("ADMIN");
+
+        // Weighted open-case load as the assignment engine sees it, lightest first
+        return ResponseEntity.ok(caseAssignmentService.getWorkloads(admin ? officerId : userDetails.getId()));
+    }
+}
@@ -0,0 +1,148 @@
+
+package com.safecity.controller;
+
+import com.safecity.model.Report;
+import com.safecity.payload.request.ReportRequest;
+import com.safecity.payload.request.TriageBatchRequest;
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.ReportService;
+import com.safecity.service.ReportTriageService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportTriageService reportTriageService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAllReports(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String reportedBy,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction) {
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        
+        Page<Report> reportsPage;
+        
+        if (status != null) {
+            reportsPage = reportService.findByStatus(status, pageable);
+        } else if (reportedBy != null) {
+            reportsPage = reportService.findByReportedBy(reportedBy, pageable);
+        } else {
+            reportsPage = reportService.findAll(pageable);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("reports", reportsPage.getContent());
+        response.put("currentPage", reportsPage.getNumber());
+        response.put("totalItems", reportsPage.getTotalElements());
+        response.put("totalPages", reportsPage.getTotalPages());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getReportById(@PathVariable String id) {
+        return ResponseEntity.ok(reportService.findById(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createReport(@Valid @RequestBody ReportRequest reportRequest,
+                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                          Authentication authentication) {
+        if (idempotencyKey != null && idempotencyKey.length() > 100) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Idempotency-Key must be at most 100 characters"));
+        }
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        Report report = new Report();
+        report.setReportType(reportRequest.getReportType());
+        report.setDescription(reportRequest.getDescription());
+        report.setPriority(reportRequest.getPriority() != null ? reportRequest.getPriority() : "medium");
+        report.setLocation(reportRequest.getLocation());
+        report.setDistrict(reportRequest.getDistrict());
+        report.setState(reportRequest.getState());
+        report.setLatitude(reportRequest.getLatitude());
+        report.setLongitude(reportRequest.getLongitude());
+        report.setAnonymous(reportRequest.isAnonymous());
+        report.setReportedBy(reportRequest.isAnonymous() ? "anonymous" : userDetails.getId());
+        if (!reportRequest.isAnonymous()) {
+            report.setReporterName(reportRequest.getReporterName() != null ? reportRequest.getReporterName() : userDetails.getName());
+            report.setReporterContact(reportRequest.getReporterContact());
+        }
+        
+        // Acknowledged once queued; the report is written to Mongo asynchronously
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportService.submit(report, userDetails.getId(), idempotencyKey));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/triage/queue")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getTriageQueue(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String district) {
+        return ResponseEntity.ok(reportTriageService.nextPending(Math.min(Math.max(limit, 1), 200), district));
+    }
+
+    @PostMapping("/triage/batch")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> applyTriageBatch(@Valid @RequestBody TriageBatchRequest batchRequest, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        // Safe to resend with the same batch ID; completed actions are not applied twice
+        try {
+            return ResponseEntity.ok(reportTriageService.applyBatch(batchRequest, userDetails.getId()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}/approve")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> approveReport(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(reportTriageService.applySingle(id, "approve", userDetails.getId()));
+    }
+
+    @PutMapping("/{id}/reject")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> rejectReport(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(reportTriageService.applySingle(id, "reject", userDetails.getId()));
+    }
+
+    @PutMapping("/{id}/convert")
+    @PreAuthorize("hasRole('OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<?> convertReport(@PathVariable String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(reportTriageService.applySingle(id, "convert", userDetails.getId()));
+    }
+}
@@ -0,0 +1,33 @@
+
+package com.safecity.controller;
+
+import com.safecity.payload.request.SosRequest;
+import com.safecity.payload.response.SosResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.SosService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sos")
+public class SosController {
+
+    @Autowired
+    private SosService sosService;
+
+    @PostMapping("/trigger")
+    public ResponseEntity<?> triggerSos(@Valid @RequestBody SosRequest sosRequest, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        // Acknowledged once journaled; the incident is written to Mongo asynchronously
+        SosResponse response = sosService.trigger(sosRequest, userDetails.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+}
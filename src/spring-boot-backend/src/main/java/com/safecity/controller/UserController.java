@@ -0,0 +1,69 @@
+package com.safecity.controller;
+
+import com.safecity.model.User;
+import com.safecity.payload.response.MessageResponse;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.ResourceVersionService;
+import com.safecity.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/users")
+public class UserController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+
+        String tag = resourceVersionService.listTag("users", page, size);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        Page<User> usersPage = userService.findAll(PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "name")));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", usersPage.getContent());
+        response.put("currentPage", usersPage.getNumber());
+        response.put("totalItems", usersPage.getTotalElements());
+        response.put("totalPages", usersPage.getTotalPages());
+
+        return ResponseEntity.ok().eTag(tag).body(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getUserById(@PathVariable String id, Authentication authentication, WebRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.hasRole("ADMIN");
+        if (!admin && !userDetails.getId().equals(id)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Error: Access denied"));
+        }
+
+        String tag = resourceVersionService.documentTag("users", id);
+        if (tag != null && request.checkNotModified(tag)) {
+            return null;
+        }
+        User user = userService.findById(id);
+        return ResponseEntity.ok().eTag(resourceVersionService.tagOf(user.getId(), user.getUpdatedAt())).body(user);
+    }
+}
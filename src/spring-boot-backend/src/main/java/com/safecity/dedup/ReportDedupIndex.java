@@ -0,0 +1,218 @@
+
+package com.safecity.dedup;
+
+import com.safecity.geo.GeoUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window index of recent reports bucketed by report type and lat/lng grid cell.
+ * A new report is a likely duplicate of an indexed one when it is nearby, recent and
+ * its description has a high MinHash-estimated Jaccard similarity over character shingles.
+ */
+public class ReportDedupIndex {
+
+    private static final int SHINGLE_LENGTH = 3;
+
+    public record Entry(String id, double latitude, double longitude, long createdAt, int[] signature) {
+    }
+
+    private record CellKey(String type, long cell) {
+    }
+
+    private final double cellSizeDegrees;
+
+    private final long windowMs;
+
+    private final double radiusMeters;
+
+    private final double similarityThreshold;
+
+    private final long[] seeds;
+
+    private final ConcurrentHashMap<CellKey, ArrayDeque<Entry>> buckets = new ConcurrentHashMap<>();
+
+    public ReportDedupIndex(double cellSizeDegrees, long windowMs, double radiusMeters, double similarityThreshold, int hashes) {
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.windowMs = windowMs;
+        this.radiusMeters = radiusMeters;
+        this.similarityThreshold = similarityThreshold;
+        this.seeds = new long[hashes];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < hashes; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed;
+        }
+    }
+
+    /**
+     * Returns the id of the most similar recent report, or null when none qualifies.
+     * Reports without a usable description or coordinates are never matched.
+     */
+    public String findDuplicate(String type, double latitude, double longitude, long createdAt, int[] signature) {
+        if (type == null || signature == null || !GeoUtils.hasCoordinates(latitude, longitude)) {
+            return null;
+        }
+        int row = row(latitude);
+        int col = col(longitude);
+        int rows = (int) Math.ceil(radiusMeters / (cellSizeDegrees * GeoUtils.METERS_PER_DEGREE));
+        int cols = (int) Math.ceil(radiusMeters / cellWidthMeters(latitude));
+        long oldest = createdAt - windowMs;
+
+        String bestId = null;
+        double bestSimilarity = similarityThreshold;
+        for (int r = row - rows; r <= row + rows; r++) {
+            for (int c = col - cols; c <= col + cols; c++) {
+                ArrayDeque<Entry> bucket = buckets.get(new CellKey(type, cellKey(r, c)));
+                if (bucket == null) {
+                    continue;
+                }
+                synchronized (bucket) {
+                    for (Entry entry : bucket) {
+                        if (entry.createdAt() < oldest) {
+                            continue;
+                        }
+                        if (GeoUtils.distanceMeters(latitude, longitude, entry.latitude(), entry.longitude()) > radiusMeters) {
+                            continue;
+                        }
+                        double similarity = similarity(signature, entry.signature());
+                        if (similarity >= bestSimilarity) {
+                            bestSimilarity = similarity;
+                            bestId = entry.id();
+                        }
+                    }
+                }
+            }
+        }
+        return bestId;
+    }
+
+    public void add(String type, Entry entry) {
+        if (type == null || entry.signature() == null || !GeoUtils.hasCoordinates(entry.latitude(), entry.longitude())) {
+            return;
+        }
+        CellKey key = new CellKey(type, cellKey(row(entry.latitude()), col(entry.longitude())));
+        while (true) {
+            ArrayDeque<Entry> bucket = buckets.computeIfAbsent(key, k -> new ArrayDeque<>());
+            synchronized (bucket) {
+                // The sweeper may have dropped this bucket while it was empty
+                if (buckets.get(key) != bucket) {
+                    continue;
+                }
+                bucket.addLast(entry);
+                trim(bucket, entry.createdAt() - windowMs);
+                return;
+            }
+        }
+    }
+
+    public void evictExpired(long now) {
+        long oldest = now - windowMs;
+        for (Map.Entry<CellKey, ArrayDeque<Entry>> cell : buckets.entrySet()) {
+            ArrayDeque<Entry> bucket = cell.getValue();
+            synchronized (bucket) {
+                trim(bucket, oldest);
+                if (bucket.isEmpty()) {
+                    buckets.remove(cell.getKey(), bucket);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ArrayDeque<Entry> bucket : buckets.values()) {
+            synchronized (bucket) {
+                size += bucket.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * MinHash signature of the normalised description, or null when it is too short to compare.
+     */
+    public int[] signature(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalised = normalise(text);
+        if (normalised.length() < SHINGLE_LENGTH) {
+            return null;
+        }
+
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int start = 0; start + SHINGLE_LENGTH <= normalised.length(); start++) {
+            long shingle = 0;
+            for (int i = start; i < start + SHINGLE_LENGTH; i++) {
+                shingle = shingle * 31 + normalised.charAt(i);
+            }
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(shingle ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static String normalise(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                builder.append(Character.toLowerCase(ch));
+                space = false;
+            } else if (!space) {
+                builder.append(' ');
+                space = true;
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    private static void trim(ArrayDeque<Entry> bucket, long oldest) {
+        while (!bucket.isEmpty() && bucket.peekFirst().createdAt() < oldest) {
+            bucket.pollFirst();
+        }
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private double cellWidthMeters(double latitude) {
+        return cellSizeDegrees * GeoUtils.METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellSizeDegrees);
+    }
+
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
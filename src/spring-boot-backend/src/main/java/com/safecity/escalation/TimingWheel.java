@@ -0,0 +1,173 @@
+package com.safecity.escalation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed hierarchical timing wheel keyed by an id, one timer per key. Level 0 has one slot
+ * per tick, and each level above covers a whole turn of the level below in each slot; a
+ * timer sits in the lowest level whose span reaches its deadline and moves down a level
+ * each time its slot comes round, so every timer is touched at most once per level.
+ * Scheduling and cancelling are O(1): slots are intrusive doubly-linked lists and a map
+ * finds a key's timer. Deadlines past the top level's span are parked in the top level and
+ * re-placed each time they come round.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int MASK = SLOTS - 1;
+
+    public record Expired<T>(String key, long deadline, T payload) {
+    }
+
+    private static final class Timer<T> {
+        final String key;
+        final long deadline;
+        final long expiryTick;
+        final T payload;
+        Timer<T> prev;
+        Timer<T> next;
+        int level;
+        int slot;
+
+        Timer(String key, long deadline, long expiryTick, T payload) {
+            this.key = key;
+            this.deadline = deadline;
+            this.expiryTick = expiryTick;
+            this.payload = payload;
+        }
+    }
+
+    private final long tickMillis;
+
+    private final int levels;
+
+    private final Timer<T>[][] slots;
+
+    private final Map<String, Timer<T>> byKey = new HashMap<>();
+
+    // Every tick up to and including this one has been processed
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = (Timer<T>[][]) new Timer<?>[levels][SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Sets the key's timer, replacing any it already had. A deadline already passed fires
+     * on the next {@link #advance}.
+     */
+    public synchronized void schedule(String key, long deadline, T payload) {
+        cancel(key);
+        long expiryTick = Math.max(Math.floorDiv(deadline + tickMillis - 1, tickMillis), currentTick + 1);
+        Timer<T> timer = new Timer<>(key, deadline, expiryTick, payload);
+        byKey.put(key, timer);
+        place(timer, currentTick + 1);
+    }
+
+    public synchronized boolean cancel(String key) {
+        Timer<T> timer = byKey.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public synchronized boolean contains(String key) {
+        return byKey.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Moves the wheel up to the given time and returns the timers that came due, oldest
+     * tick first. A long gap since the last call is walked tick by tick, but empty slots
+     * cost only a read.
+     */
+    public synchronized List<Expired<T>> advance(long nowMillis) {
+        List<Expired<T>> expired = new ArrayList<>();
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            if (byKey.isEmpty()) {
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            // Higher levels first, so timers moving down land in slots that are drained next
+            int top = 0;
+            while (top + 1 < levels && (currentTick & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            for (int level = top; level >= 1; level--) {
+                Timer<T> timer = detachSlot(level, (int) ((currentTick >>> (SLOT_BITS * level)) & MASK));
+                while (timer != null) {
+                    Timer<T> next = timer.next;
+                    place(timer, currentTick);
+                    timer = next;
+                }
+            }
+            Timer<T> timer = detachSlot(0, (int) (currentTick & MASK));
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                if (timer.expiryTick <= currentTick) {
+                    byKey.remove(timer.key);
+                    expired.add(new Expired<>(timer.key, timer.deadline, timer.payload));
+                } else {
+                    place(timer, currentTick + 1);
+                }
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    // Cascades pass the current tick, whose level-0 slot is drained right after them; everything else passes the next
+    private void place(Timer<T> timer, long earliestTick) {
+        long delta = timer.expiryTick - currentTick;
+        int level = 0;
+        while (level + 1 < levels && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        long tick = Math.max(timer.expiryTick, earliestTick);
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private Timer<T> detachSlot(int level, int slot) {
+        Timer<T> head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+}
@@ -0,0 +1,8 @@
+package com.safecity.event;
+
+import java.time.Instant;
+
+// Raised when a district's arrival rate for a source (case, incident, report) and type spikes above its baseline
+public record AnomalyAlertEvent(String source, String district, String type, Instant bucketStart,
+                                long observed, double expected, double score) {
+}
@@ -0,0 +1,8 @@
+
+package com.safecity.event;
+
+import com.safecity.model.Case;
+
+// before is null for creations, after is null for deletions
+public record CaseChangedEvent(ChangeType type, Case before, Case after) {
+}
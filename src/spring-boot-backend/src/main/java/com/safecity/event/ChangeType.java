@@ -0,0 +1,8 @@
+
+package com.safecity.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,8 @@
+
+package com.safecity.event;
+
+import com.safecity.model.Incident;
+
+// before is null for creations, after is null for deletions
+public record IncidentChangedEvent(ChangeType type, Incident before, Incident after) {
+}
@@ -0,0 +1,8 @@
+
+package com.safecity.event;
+
+import com.safecity.model.Report;
+
+// before is null for creations, after is null for deletions
+public record ReportChangedEvent(ChangeType type, Report before, Report after) {
+}
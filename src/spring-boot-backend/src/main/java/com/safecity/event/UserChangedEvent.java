@@ -0,0 +1,7 @@
+package com.safecity.event;
+
+import com.safecity.model.User;
+
+// before is null for creations, after is null for deletions
+public record UserChangedEvent(ChangeType type, User before, User after) {
+}
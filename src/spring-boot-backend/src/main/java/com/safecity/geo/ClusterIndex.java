@@ -0,0 +1,325 @@
+
+package com.safecity.geo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical grid clustering of map points in Web Mercator space. Every zoom level
+ * keeps per-cell counts and coordinate sums that are adjusted in place as points are
+ * added or removed, so a viewport query only touches the cells of the tiles it covers.
+ * Built features are cached per tile and dropped when a point inside the tile changes.
+ */
+public class ClusterIndex {
+
+    public static final int KIND_COUNT = 3;
+
+    private static final int MAX_TILES = 64;
+
+    public record Point(String id, int kind, double latitude, double longitude) {
+    }
+
+    public record Feature(String id, int kind, double latitude, double longitude, int count, int[] countsByKind) {
+
+        public boolean isCluster() {
+            return id == null;
+        }
+    }
+
+    private static final class Cell {
+        final int[] counts = new int[KIND_COUNT];
+        final double[] sumX = new double[KIND_COUNT];
+        final double[] sumY = new double[KIND_COUNT];
+        int total;
+    }
+
+    private record TileKey(int zoom, int x, int y, int kindMask) {
+    }
+
+    private final int maxZoom;
+
+    private final int cellsPerTileShift;
+
+    private final int maxPoints;
+
+    private final List<Map<Long, Cell>> levels;
+
+    // Points by finest-level cell, used to resolve single-point cells and for zooms past maxZoom
+    private final Map<Long, Map<String, Point>> leaves = new ConcurrentHashMap<>();
+
+    private final Map<String, Point> points = new ConcurrentHashMap<>();
+
+    private final Map<TileKey, List<Feature>> tileCache;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ClusterIndex(int maxZoom, int cellsPerTile, int tileCacheSize, int maxPoints) {
+        this.maxZoom = maxZoom;
+        this.cellsPerTileShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(cellsPerTile, 1)));
+        this.maxPoints = maxPoints;
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+        this.tileCache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, List<Feature>> eldest) {
+                return size() > tileCacheSize;
+            }
+        });
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public void upsert(Point point) {
+        lock.writeLock().lock();
+        try {
+            Point previous = points.put(point.id(), point);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(point, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Point previous = points.remove(id);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Features for the tiles covering the bounding box. Above maxZoom individual points are
+     * returned, capped at maxPoints.
+     */
+    public List<Feature> query(double west, double south, double east, double north, int zoom, int kindMask) {
+        int z = Math.max(0, zoom);
+        if (z > maxZoom) {
+            return points(west, south, east, north, kindMask);
+        }
+
+        int minX;
+        int maxX;
+        int minY;
+        int maxY;
+        // A box far wider than a viewport at this zoom is answered from a coarser level to keep the response bounded
+        while (true) {
+            int tiles = 1 << z;
+            minX = clamp((int) Math.floor(x(west) * tiles), tiles);
+            maxX = clamp((int) Math.floor(x(east) * tiles), tiles);
+            minY = clamp((int) Math.floor(y(north) * tiles), tiles);
+            maxY = clamp((int) Math.floor(y(south) * tiles), tiles);
+            if (z == 0 || (long) (maxX - minX + 1) * (maxY - minY + 1) <= MAX_TILES) {
+                break;
+            }
+            z--;
+        }
+
+        List<Feature> features = new ArrayList<>();
+        for (int tx = minX; tx <= maxX; tx++) {
+            for (int ty = minY; ty <= maxY; ty++) {
+                TileKey key = new TileKey(z, tx, ty, kindMask);
+                List<Feature> tile = tileCache.get(key);
+                if (tile == null) {
+                    lock.readLock().lock();
+                    try {
+                        tile = buildTile(z, tx, ty, kindMask);
+                        tileCache.put(key, tile);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+                features.addAll(tile);
+            }
+        }
+        return features;
+    }
+
+    private List<Feature> buildTile(int zoom, int tileX, int tileY, int kindMask) {
+        List<Feature> features = new ArrayList<>();
+        int cellsPerTile = 1 << cellsPerTileShift;
+        Map<Long, Cell> level = levels.get(zoom);
+        for (int cx = tileX * cellsPerTile; cx < (tileX + 1) * cellsPerTile; cx++) {
+            for (int cy = tileY * cellsPerTile; cy < (tileY + 1) * cellsPerTile; cy++) {
+                Cell cell = level.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                int count = 0;
+                double sumX = 0;
+                double sumY = 0;
+                int[] counts = new int[KIND_COUNT];
+                for (int kind = 0; kind < KIND_COUNT; kind++) {
+                    if ((kindMask & (1 << kind)) != 0) {
+                        counts[kind] = cell.counts[kind];
+                        count += cell.counts[kind];
+                        sumX += cell.sumX[kind];
+                        sumY += cell.sumY[kind];
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+                double centreX = sumX / count;
+                double centreY = sumY / count;
+                Point single = count == 1 ? findPoint(centreX, centreY, kindMask) : null;
+                if (single != null) {
+                    features.add(new Feature(single.id(), single.kind(), single.latitude(), single.longitude(), 1, counts));
+                } else {
+                    features.add(new Feature(null, -1, latitude(centreY), longitude(centreX), count, counts));
+                }
+            }
+        }
+        return features;
+    }
+
+    // A single-point cell's centroid is the point itself, so its leaf cell can be found directly
+    private Point findPoint(double x, double y, int kindMask) {
+        Map<String, Point> leaf = leaves.get(leafKey(x, y));
+        if (leaf == null) {
+            return null;
+        }
+        for (Point point : leaf.values()) {
+            if ((kindMask & (1 << point.kind())) != 0
+                    && Math.abs(x(point.longitude()) - x) < 1e-9 && Math.abs(y(point.latitude()) - y) < 1e-9) {
+                return point;
+            }
+        }
+        return null;
+    }
+
+    private List<Feature> points(double west, double south, double east, double north, int kindMask) {
+        List<Feature> features = new ArrayList<>();
+        int cells = 1 << (maxZoom + cellsPerTileShift);
+        int minX = clamp((int) Math.floor(x(west) * cells), cells);
+        int maxX = clamp((int) Math.floor(x(east) * cells), cells);
+        int minY = clamp((int) Math.floor(y(north) * cells), cells);
+        int maxY = clamp((int) Math.floor(y(south) * cells), cells);
+
+        lock.readLock().lock();
+        try {
+            long range = (long) (maxX - minX + 1) * (maxY - minY + 1);
+            if (range <= leaves.size()) {
+                for (int cx = minX; cx <= maxX && features.size() < maxPoints; cx++) {
+                    for (int cy = minY; cy <= maxY && features.size() < maxPoints; cy++) {
+                        addPoints(leaves.get(key(cx, cy)), kindMask, features);
+                    }
+                }
+            } else {
+                // Sparse data under a wide box: scanning occupied leaves is cheaper than walking the range
+                for (Map.Entry<Long, Map<String, Point>> leaf : leaves.entrySet()) {
+                    int cx = (int) (leaf.getKey() >> 32);
+                    int cy = (int) (long) leaf.getKey();
+                    if (cx >= minX && cx <= maxX && cy >= minY && cy <= maxY) {
+                        addPoints(leaf.getValue(), kindMask, features);
+                    }
+                    if (features.size() >= maxPoints) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return features;
+    }
+
+    private void addPoints(Map<String, Point> leaf, int kindMask, List<Feature> features) {
+        if (leaf == null) {
+            return;
+        }
+        for (Point point : leaf.values()) {
+            if ((kindMask & (1 << point.kind())) == 0 || features.size() >= maxPoints) {
+                continue;
+            }
+            int[] counts = new int[KIND_COUNT];
+            counts[point.kind()] = 1;
+            features.add(new Feature(point.id(), point.kind(), point.latitude(), point.longitude(), 1, counts));
+        }
+    }
+
+    private void apply(Point point, int delta) {
+        double px = x(point.longitude());
+        double py = y(point.latitude());
+        boolean invalidate = !tileCache.isEmpty();
+        for (int z = 0; z <= maxZoom; z++) {
+            int cells = 1 << (z + cellsPerTileShift);
+            int cx = clamp((int) Math.floor(px * cells), cells);
+            int cy = clamp((int) Math.floor(py * cells), cells);
+            long key = key(cx, cy);
+            Cell cell = levels.get(z).computeIfAbsent(key, k -> new Cell());
+            cell.counts[point.kind()] += delta;
+            cell.sumX[point.kind()] += delta * px;
+            cell.sumY[point.kind()] += delta * py;
+            cell.total += delta;
+            if (cell.total <= 0) {
+                levels.get(z).remove(key);
+            }
+            if (invalidate) {
+                // Drop cached tiles for this zoom that contain the point, for every kind mask
+                int tx = cx >> cellsPerTileShift;
+                int ty = cy >> cellsPerTileShift;
+                for (int mask = 1; mask < (1 << KIND_COUNT); mask++) {
+                    tileCache.remove(new TileKey(z, tx, ty, mask));
+                }
+            }
+        }
+
+        long leafKey = leafKey(px, py);
+        if (delta > 0) {
+            leaves.computeIfAbsent(leafKey, k -> new ConcurrentHashMap<>()).put(point.id(), point);
+        } else {
+            leaves.computeIfPresent(leafKey, (k, leaf) -> {
+                leaf.remove(point.id());
+                return leaf.isEmpty() ? null : leaf;
+            });
+        }
+    }
+
+    private long leafKey(double x, double y) {
+        int cells = 1 << (maxZoom + cellsPerTileShift);
+        return key(clamp((int) Math.floor(x * cells), cells), clamp((int) Math.floor(y * cells), cells));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.min(Math.max(value, 0), size - 1);
+    }
+
+    private static double x(double longitude) {
+        return (longitude + 180.0) / 360.0;
+    }
+
+    private static double y(double latitude) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double longitude(double x) {
+        return x * 360.0 - 180.0;
+    }
+
+    private static double latitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
@@ -0,0 +1,226 @@
+
+package com.safecity.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Geofences matched against points through a packed R-tree. The tree is immutable, so
+ * subscriptions added since the last build sit in a small delta map and removals are
+ * tombstones; both are folded in by {@link #rebuild()}. Queries never take a lock;
+ * updates lock briefly and the tree itself is built outside the lock.
+ */
+public class GeofenceIndex {
+
+    public static final class Fence {
+        private final String id;
+        private final String userId;
+        private final String name;
+        private final int kindMask;
+        private final double latitude;
+        private final double longitude;
+        private final double radiusMeters;
+        // Polygon vertices as lng0, lat0, lng1, lat1, ...; null for circles
+        private final double[] polygon;
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+
+        private Fence(String id, String userId, String name, int kindMask, double latitude, double longitude,
+                      double radiusMeters, double[] polygon, double minX, double minY, double maxX, double maxY) {
+            this.id = id;
+            this.userId = userId;
+            this.name = name;
+            this.kindMask = kindMask;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.polygon = polygon;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        public static Fence circle(String id, String userId, String name, int kindMask,
+                                   double latitude, double longitude, double radiusMeters) {
+            double dLat = radiusMeters / GeoUtils.METERS_PER_DEGREE;
+            double dLng = dLat / Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+            return new Fence(id, userId, name, kindMask, latitude, longitude, radiusMeters, null,
+                    longitude - dLng, latitude - dLat, longitude + dLng, latitude + dLat);
+        }
+
+        public static Fence polygon(String id, String userId, String name, int kindMask, double[] polygon) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < polygon.length; i += 2) {
+                minX = Math.min(minX, polygon[i]);
+                maxX = Math.max(maxX, polygon[i]);
+                minY = Math.min(minY, polygon[i + 1]);
+                maxY = Math.max(maxY, polygon[i + 1]);
+            }
+            return new Fence(id, userId, name, kindMask, 0, 0, 0, polygon, minX, minY, maxX, maxY);
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String userId() {
+            return userId;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        boolean matches(double lat, double lng, int kind) {
+            if ((kindMask & kind) == 0 || lng < minX || lng > maxX || lat < minY || lat > maxY) {
+                return false;
+            }
+            if (polygon == null) {
+                return GeoUtils.distanceMeters(latitude, longitude, lat, lng) <= radiusMeters;
+            }
+            boolean inside = false;
+            for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2) {
+                double yi = polygon[i + 1];
+                double yj = polygon[j + 1];
+                if ((yi > lat) != (yj > lat)
+                        && lng < (polygon[j] - polygon[i]) * (lat - yi) / (yj - yi) + polygon[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+
+    private record Base(Fence[] fences, PackedRTree tree) {
+
+        static Base of(List<Fence> fences) {
+            int n = fences.size();
+            double[] minX = new double[n];
+            double[] minY = new double[n];
+            double[] maxX = new double[n];
+            double[] maxY = new double[n];
+            for (int i = 0; i < n; i++) {
+                Fence fence = fences.get(i);
+                minX[i] = fence.minX;
+                minY[i] = fence.minY;
+                maxX[i] = fence.maxX;
+                maxY[i] = fence.maxY;
+            }
+            return new Base(fences.toArray(new Fence[0]), new PackedRTree(minX, minY, maxX, maxY));
+        }
+    }
+
+    private volatile Base base = Base.of(List.of());
+
+    // Replaced rather than cleared on rebuild, since a concurrent map never shrinks its table
+    private volatile Map<String, Fence> delta = new ConcurrentHashMap<>();
+
+    private volatile Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    private final Object rebuildLock = new Object();
+
+    public synchronized void add(Fence fence) {
+        delta.put(fence.id, fence);
+    }
+
+    public synchronized void remove(String id) {
+        delta.remove(id);
+        // Also tombstoned in case the fence is in the tree or a rebuild is about to put it there
+        removed.add(id);
+    }
+
+    public int size() {
+        return base.fences().length + delta.size() - removed.size();
+    }
+
+    /**
+     * Changes not yet folded into the tree.
+     */
+    public int pendingChanges() {
+        return delta.size() + removed.size();
+    }
+
+    /**
+     * Visits every fence of the given kind bit containing the point. A fence can be visited
+     * twice while a rebuild is swapping in a new tree.
+     */
+    public void match(double latitude, double longitude, int kind, Consumer<Fence> visitor) {
+        // Read in the reverse of the order rebuild publishes them, so a newer map always comes with a newer tree
+        Set<String> removed = this.removed;
+        Map<String, Fence> delta = this.delta;
+        Base current = base;
+        current.tree().search(longitude, latitude, item -> {
+            Fence fence = current.fences()[item];
+            if (fence.matches(latitude, longitude, kind) && (removed.isEmpty() || !removed.contains(fence.id))) {
+                visitor.accept(fence);
+            }
+        });
+        for (Fence fence : delta.values()) {
+            if (fence.matches(latitude, longitude, kind) && !removed.contains(fence.id)) {
+                visitor.accept(fence);
+            }
+        }
+    }
+
+    /**
+     * Builds a new tree from the current one plus the delta, minus tombstones. Queries and
+     * updates carry on while the tree is built; only one rebuild runs at a time.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            Base current;
+            Set<String> tombstones;
+            Map<String, Fence> added;
+            synchronized (this) {
+                current = base;
+                tombstones = new HashSet<>(removed);
+                added = new HashMap<>(delta);
+            }
+
+            List<Fence> live = new ArrayList<>(current.fences().length + added.size());
+            for (Fence fence : current.fences()) {
+                if (!tombstones.contains(fence.id)) {
+                    live.add(fence);
+                }
+            }
+            for (Fence fence : added.values()) {
+                if (!tombstones.contains(fence.id)) {
+                    live.add(fence);
+                }
+            }
+            Base rebuilt = Base.of(live);
+
+            synchronized (this) {
+                // Keep whatever changed while the tree was being built
+                Map<String, Fence> remaining = new ConcurrentHashMap<>();
+                for (Fence fence : delta.values()) {
+                    if (added.get(fence.id) != fence) {
+                        remaining.put(fence.id, fence);
+                    }
+                }
+                Set<String> remainingRemoved = ConcurrentHashMap.newKeySet();
+                for (String id : removed) {
+                    if (!tombstones.contains(id)) {
+                        remainingRemoved.add(id);
+                    }
+                }
+
+                base = rebuilt;
+                delta = remaining;
+                removed = remainingRemoved;
+            }
+        }
+    }
+}
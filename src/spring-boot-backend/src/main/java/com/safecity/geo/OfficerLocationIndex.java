@@ -0,0 +1,152 @@
+
+package com.safecity.geo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest-wins index of officer positions bucketed into a uniform lat/lng grid.
+ * Nearest-neighbour queries walk rings of cells outward from the query point
+ * and stop once no unvisited cell can hold a closer officer.
+ */
+public class OfficerLocationIndex {
+
+    public static final String AVAILABLE = "available";
+
+    public static final String BUSY = "busy";
+
+    public record Position(String officerId, double latitude, double longitude, String status, long updatedAt) {
+    }
+
+    public record Neighbour(Position position, double distanceMeters) {
+    }
+
+    private final double cellSizeDegrees;
+
+    private final ConcurrentHashMap<String, Position> positions = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    public OfficerLocationIndex(double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    public void update(Position position) {
+        // compute() serialises updates per officer so the cell move is never interleaved
+        positions.compute(position.officerId(), (id, previous) -> {
+            if (previous != null && previous.updatedAt() > position.updatedAt()) {
+                return previous;
+            }
+            long newCell = cellKey(position.latitude(), position.longitude());
+            if (previous != null) {
+                long oldCell = cellKey(previous.latitude(), previous.longitude());
+                if (oldCell == newCell) {
+                    return position;
+                }
+                removeFromCell(oldCell, id);
+            }
+            cells.compute(newCell, (key, ids) -> {
+                Set<String> members = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                members.add(id);
+                return members;
+            });
+            return position;
+        });
+    }
+
+    public void remove(String officerId) {
+        positions.computeIfPresent(officerId, (id, previous) -> {
+            removeFromCell(cellKey(previous.latitude(), previous.longitude()), id);
+            return null;
+        });
+    }
+
+    public Position get(String officerId) {
+        return positions.get(officerId);
+    }
+
+    public Collection<Position> all() {
+        return positions.values();
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Returns up to {@code k} available officers updated after {@code freshAfter}, nearest first.
+     */
+    public List<Neighbour> nearestAvailable(double latitude, double longitude, int k, double maxDistanceMeters, long freshAfter) {
+        PriorityQueue<Neighbour> best = new PriorityQueue<>(k, Comparator.comparingDouble(Neighbour::distanceMeters).reversed());
+        int centreRow = (int) Math.floor(latitude / cellSizeDegrees);
+        int centreCol = (int) Math.floor(longitude / cellSizeDegrees);
+        double cellWidthMeters = cellSizeDegrees * GeoUtils.METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+        int maxRing = (int) Math.ceil(maxDistanceMeters / cellWidthMeters);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+                boolean edgeRow = row == centreRow - ring || row == centreRow + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int col = centreCol - ring; col <= centreCol + ring; col += Math.max(step, 1)) {
+                    collect(cellKey(row, col), latitude, longitude, k, maxDistanceMeters, freshAfter, best);
+                }
+            }
+            // Any officer in ring + 1 is at least ring cell widths away
+            if (best.size() == k && best.peek().distanceMeters() <= ring * cellWidthMeters) {
+                break;
+            }
+        }
+
+        List<Neighbour> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbour::distanceMeters));
+        return result;
+    }
+
+    private void collect(long cell, double latitude, double longitude, int k, double maxDistanceMeters,
+                         long freshAfter, PriorityQueue<Neighbour> best) {
+        Set<String> ids = cells.get(cell);
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            Position position = positions.get(id);
+            if (position == null || !AVAILABLE.equals(position.status()) || position.updatedAt() < freshAfter) {
+                continue;
+            }
+            // Skip entries whose officer has just moved to a different cell
+            if (cellKey(position.latitude(), position.longitude()) != cell) {
+                continue;
+            }
+            double distance = GeoUtils.distanceMeters(latitude, longitude, position.latitude(), position.longitude());
+            if (distance > maxDistanceMeters) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new Neighbour(position, distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new Neighbour(position, distance));
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, String officerId) {
+        cells.computeIfPresent(cell, (key, ids) -> {
+            ids.remove(officerId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey((int) Math.floor(latitude / cellSizeDegrees), (int) Math.floor(longitude / cellSizeDegrees));
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,204 @@
+
+package com.safecity.geo;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Static R-tree over item bounding boxes, bulk loaded with Sort-Tile-Recursive packing.
+ * Nodes live in flat primitive arrays, leaves first and the root last, so a query is a
+ * plain array walk. Items are reported by their index in the arrays passed to the
+ * constructor; the tree cannot be modified after it is built.
+ */
+public class PackedRTree {
+
+    private static final int NODE_SIZE = 16;
+
+    private final int itemCount;
+
+    // Node boxes; entries [0, itemCount) are the items themselves
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+
+    // For every entry: the item index (leaf level) or the first child entry
+    private final int[] ref;
+
+    // Start offset of each level; level 0 holds the items
+    private final int[] levelStart;
+
+    public PackedRTree(double[] itemMinX, double[] itemMinY, double[] itemMaxX, double[] itemMaxY) {
+        this.itemCount = itemMinX.length;
+
+        int total = itemCount;
+        int levels = 1;
+        for (int n = itemCount; n > 1; n = (n + NODE_SIZE - 1) / NODE_SIZE) {
+            total += (n + NODE_SIZE - 1) / NODE_SIZE;
+            levels++;
+        }
+        minX = new double[total];
+        minY = new double[total];
+        maxX = new double[total];
+        maxY = new double[total];
+        ref = new int[total];
+        levelStart = new int[levels + 1];
+
+        int[] order = strOrder(itemMinX, itemMinY, itemMaxX, itemMaxY);
+        for (int i = 0; i < itemCount; i++) {
+            int item = order[i];
+            minX[i] = itemMinX[item];
+            minY[i] = itemMinY[item];
+            maxX[i] = itemMaxX[item];
+            maxY[i] = itemMaxY[item];
+            ref[i] = item;
+        }
+
+        int level = 0;
+        int start = 0;
+        int count = itemCount;
+        int next = itemCount;
+        levelStart[0] = 0;
+        while (count > 1) {
+            levelStart[++level] = next;
+            for (int child = start; child < start + count; child += NODE_SIZE) {
+                int end = Math.min(child + NODE_SIZE, start + count);
+                double nodeMinX = Double.POSITIVE_INFINITY;
+                double nodeMinY = Double.POSITIVE_INFINITY;
+                double nodeMaxX = Double.NEGATIVE_INFINITY;
+                double nodeMaxY = Double.NEGATIVE_INFINITY;
+                for (int i = child; i < end; i++) {
+                    nodeMinX = Math.min(nodeMinX, minX[i]);
+                    nodeMinY = Math.min(nodeMinY, minY[i]);
+                    nodeMaxX = Math.max(nodeMaxX, maxX[i]);
+                    nodeMaxY = Math.max(nodeMaxY, maxY[i]);
+                }
+                minX[next] = nodeMinX;
+                minY[next] = nodeMinY;
+                maxX[next] = nodeMaxX;
+                maxY[next] = nodeMaxY;
+                ref[next] = child;
+                next++;
+            }
+            start += count;
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+        }
+        levelStart[levels] = total;
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Reports every item whose box intersects the query box, borders included.
+     */
+    public void search(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY, IntConsumer visitor) {
+        if (itemCount == 0) {
+            return;
+        }
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = minX.length - 1;
+        while (top > 0) {
+            int node = stack[--top];
+            if (minX[node] > queryMaxX || maxX[node] < queryMinX || minY[node] > queryMaxY || maxY[node] < queryMinY) {
+                continue;
+            }
+            if (node < itemCount) {
+                visitor.accept(ref[node]);
+                continue;
+            }
+            int first = ref[node];
+            int end = Math.min(first + NODE_SIZE, levelEnd(first));
+            for (int child = first; child < end; child++) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = child;
+            }
+        }
+    }
+
+    public void search(double x, double y, IntConsumer visitor) {
+        search(x, y, x, y, visitor);
+    }
+
+    private int levelEnd(int entry) {
+        for (int level = 1; level < levelStart.length; level++) {
+            if (entry < levelStart[level]) {
+                return levelStart[level];
+            }
+        }
+        return levelStart[levelStart.length - 1];
+    }
+
+    // Sort by box centre x, cut into vertical slices, then sort each slice by centre y
+    private static int[] strOrder(double[] itemMinX, double[] itemMinY, double[] itemMaxX, double[] itemMaxY) {
+        int n = itemMinX.length;
+        int[] order = new int[n];
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            keys[i] = itemMinX[i] + itemMaxX[i];
+        }
+        sort(keys, order, 0, n - 1);
+
+        int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_SIZE;
+        for (int i = 0; i < n; i++) {
+            keys[i] = itemMinY[order[i]] + itemMaxY[order[i]];
+        }
+        for (int start = 0; start < n; start += sliceSize) {
+            sort(keys, order, start, Math.min(start + sliceSize, n) - 1);
+        }
+        return order;
+    }
+
+    // Quicksort of keys that moves the item indices along with them
+    private static void sort(double[] keys, int[] order, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            double pivot = median(keys[low], keys[middle], keys[high]);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, order, i++, j--);
+                }
+            }
+            // Recurse into the smaller side to bound the stack depth
+            if (j - low < high - i) {
+                sort(keys, order, low, j);
+                low = i;
+            } else {
+                sort(keys, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && keys[j - 1] > keys[j]; j--) {
+                swap(keys, order, j, j - 1);
+            }
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(double[] keys, int[] order, int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int item = order[a];
+        order[a] = order[b];
+        order[b] = item;
+    }
+}
@@ -0,0 +1,204 @@
+
+package com.safecity.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline reverse geocoder over district boundary polygons. Polygon bounding boxes are
+ * held in a packed R-tree and candidates are confirmed with an even-odd point-in-polygon
+ * test, so holes and multi-part districts are handled. Each polygon buckets its edges
+ * into horizontal bands so the test only crosses the edges near the query latitude.
+ */
+public class ReverseGeocoder {
+
+    public record Region(String district, String state) {
+    }
+
+    private static final int EDGES_PER_BAND = 8;
+
+    private static final class Polygon {
+        final Region region;
+        final double minX;
+        final double minY;
+        final double maxX;
+        final double maxY;
+        // Edges of every ring as x1, y1, x2, y2 in lng/lat
+        final double[] edges;
+        final int bandCount;
+        final int[][] bands;
+        final double bandHeight;
+
+        Polygon(Region region, List<double[]> rings) {
+            this.region = region;
+            int edgeCount = 0;
+            double lowX = Double.POSITIVE_INFINITY;
+            double lowY = Double.POSITIVE_INFINITY;
+            double highX = Double.NEGATIVE_INFINITY;
+            double highY = Double.NEGATIVE_INFINITY;
+            for (double[] ring : rings) {
+                edgeCount += ring.length / 2;
+                for (int i = 0; i < ring.length; i += 2) {
+                    lowX = Math.min(lowX, ring[i]);
+                    highX = Math.max(highX, ring[i]);
+                    lowY = Math.min(lowY, ring[i + 1]);
+                    highY = Math.max(highY, ring[i + 1]);
+                }
+            }
+            this.minX = lowX;
+            this.minY = lowY;
+            this.maxX = highX;
+            this.maxY = highY;
+
+            // Each vertex is joined to its predecessor, and the first to the last, so open rings are closed too
+            this.edges = new double[edgeCount * 4];
+            int e = 0;
+            for (double[] ring : rings) {
+                for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                    edges[e++] = ring[j];
+                    edges[e++] = ring[j + 1];
+                    edges[e++] = ring[i];
+                    edges[e++] = ring[i + 1];
+                }
+            }
+
+            this.bandCount = Math.max(1, edgeCount / EDGES_PER_BAND);
+            this.bandHeight = Math.max((maxY - minY) / bandCount, Double.MIN_NORMAL);
+            int[] sizes = new int[bandCount];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                for (int band = band(edge, true); band <= band(edge, false); band++) {
+                    sizes[band]++;
+                }
+            }
+            this.bands = new int[bandCount][];
+            for (int band = 0; band < bandCount; band++) {
+                bands[band] = new int[sizes[band]];
+                sizes[band] = 0;
+            }
+            for (int edge = 0; edge < edgeCount; edge++) {
+                for (int band = band(edge, true); band <= band(edge, false); band++) {
+                    bands[band][sizes[band]++] = edge * 4;
+                }
+            }
+        }
+
+        private int band(int edge, boolean low) {
+            double y1 = edges[edge * 4 + 1];
+            double y2 = edges[edge * 4 + 3];
+            return bandOf(low ? Math.min(y1, y2) : Math.max(y1, y2));
+        }
+
+        int bandOf(double y) {
+            return Math.min(bandCount - 1, Math.max(0, (int) ((y - minY) / bandHeight)));
+        }
+
+        boolean contains(double x, double y) {
+            if (y < minY || y > maxY || x < minX || x > maxX) {
+                return false;
+            }
+            boolean inside = false;
+            for (int e : bands[bandOf(y)]) {
+                double y1 = edges[e + 1];
+                double y2 = edges[e + 3];
+                if ((y1 > y) != (y2 > y)) {
+                    double x1 = edges[e];
+                    double x2 = edges[e + 2];
+                    if (x < (x2 - x1) * (y - y1) / (y2 - y1) + x1) {
+                        inside = !inside;
+                    }
+                }
+            }
+            return inside;
+        }
+    }
+
+    private final List<Polygon> polygons;
+
+    private final PackedRTree tree;
+
+    private ReverseGeocoder(List<Polygon> polygons) {
+        this.polygons = polygons;
+        int n = polygons.size();
+        double[] minX = new double[n];
+        double[] minY = new double[n];
+        double[] maxX = new double[n];
+        double[] maxY = new double[n];
+        for (int i = 0; i < n; i++) {
+            Polygon polygon = polygons.get(i);
+            minX[i] = polygon.minX;
+            minY[i] = polygon.minY;
+            maxX[i] = polygon.maxX;
+            maxY[i] = polygon.maxY;
+        }
+        this.tree = new PackedRTree(minX, minY, maxX, maxY);
+    }
+
+    public int size() {
+        return polygons.size();
+    }
+
+    /**
+     * Region containing the point, or null when it falls outside every boundary.
+     */
+    public Region lookup(double latitude, double longitude) {
+        Region[] found = new Region[1];
+        tree.search(longitude, latitude, item -> {
+            if (found[0] == null) {
+                Polygon polygon = polygons.get(item);
+                if (polygon.contains(longitude, latitude)) {
+                    found[0] = polygon.region;
+                }
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Reads Polygon and MultiPolygon features from a GeoJSON FeatureCollection, taking the
+     * district and state names from the given feature properties.
+     */
+    public static ReverseGeocoder fromGeoJson(InputStream in, ObjectMapper objectMapper,
+                                              String districtProperty, String stateProperty) throws IOException {
+        JsonNode root = objectMapper.readTree(in);
+        List<Polygon> polygons = new ArrayList<>();
+        for (JsonNode feature : root.path("features")) {
+            JsonNode properties = feature.path("properties");
+            String district = properties.path(districtProperty).asText(null);
+            if (district == null || district.isBlank()) {
+                continue;
+            }
+            Region region = new Region(district, properties.path(stateProperty).asText(null));
+            JsonNode geometry = feature.path("geometry");
+            JsonNode coordinates = geometry.path("coordinates");
+            switch (geometry.path("type").asText()) {
+                case "Polygon" -> addPolygon(polygons, region, coordinates);
+                case "MultiPolygon" -> coordinates.forEach(part -> addPolygon(polygons, region, part));
+                default -> {
+                }
+            }
+        }
+        return new ReverseGeocoder(polygons);
+    }
+
+    private static void addPolygon(List<Polygon> polygons, Region region, JsonNode polygon) {
+        List<double[]> rings = new ArrayList<>();
+        for (JsonNode ring : polygon) {
+            double[] points = new double[ring.size() * 2];
+            for (int i = 0; i < ring.size(); i++) {
+                points[2 * i] = ring.get(i).get(0).asDouble();
+                points[2 * i + 1] = ring.get(i).get(1).asDouble();
+            }
+            if (points.length >= 6) {
+                rings.add(points);
+            }
+        }
+        if (!rings.isEmpty()) {
+            polygons.add(new Polygon(region, rings));
+        }
+    }
+}
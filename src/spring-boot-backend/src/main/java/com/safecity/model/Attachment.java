@@ -0,0 +1,44 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "attachments")
+@CompoundIndex(name = "reference_idx", def = "{'referenceType': 1, 'referenceId': 1}")
+public class Attachment {
+    
+    @Id
+    private String id;
+    
+    @Indexed
+    private String sha256; // content address; identical uploads share one stored file
+    
+    private long size;
+    
+    private String fileName;
+    
+    private String contentType;
+    
+    @Indexed
+    private String ownerId;
+    
+    private String referenceType; // case, report, incident
+    
+    private String referenceId;
+    
+    private String renditionStatus; // pending, ready, failed; null when the file is not an image
+    
+    private List<String> renditions = new ArrayList<>(); // thumb, preview
+    
+    private LocalDateTime createdAt;
+}
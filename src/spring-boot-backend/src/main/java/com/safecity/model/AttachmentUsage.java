@@ -0,0 +1,17 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "attachment_usage")
+public class AttachmentUsage {
+    
+    @Id
+    private String id; // User ID
+    
+    private long bytes; // Sum of the user's attachment sizes, reserved before an upload is stored
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -48,6 +49,8 @@ public class Case {
     
     private String assignedTo;
     
+    private boolean autoAssigned; // Picked by the assignment engine, so rebalancing may move it
+    
     private List<CaseNote> notes = new ArrayList<>();
     
     private List<String> attachments = new ArrayList<>();
@@ -55,10 +58,13 @@ public class Case {
     @CreatedDate
     private LocalDateTime createdAt;
     
+    @Indexed // Latest change per collection, for list ETags
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
     private LocalDateTime reportedAt;
     
     private LocalDateTime resolvedAt;
+    
+    private LocalDateTime escalatedAt; // Last time the SLA escalation raised the priority or re-notified
 }
@@ -0,0 +1,52 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "case_events")
+@CompoundIndex(name = "case_seq_idx", def = "{'caseId': 1, 'seq': -1}")
+public class CaseEvent {
+    
+    @Id
+    private String id;
+    
+    private String caseId;
+    
+    @Indexed
+    private long seq; // orders events of a case; taken from the case_events counter when written
+    
+    private String kind; // created, updated, assigned, status, note, deleted
+    
+    private String actor; // user ID, or system for background work
+    
+    private LocalDateTime at;
+    
+    private List<Change> changes = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    public static class Change {
+        
+        private String field;
+        
+        private Object from;
+        
+        private Object to;
+        
+        public Change(String field, Object from, Object to) {
+            this.field = field;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
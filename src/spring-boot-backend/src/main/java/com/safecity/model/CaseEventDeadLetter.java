@@ -0,0 +1,23 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "case_event_dead_letters")
+public class CaseEventDeadLetter {
+    
+    @Id
+    private String id; // ID the event was given
+    
+    private CaseEvent event;
+    
+    private String error; // Write error, kept so the event can be fixed and replayed
+    
+    private LocalDateTime failedAt;
+}
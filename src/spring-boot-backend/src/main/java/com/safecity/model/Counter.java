@@ -0,0 +1,17 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "counters")
+public class Counter {
+    
+    @Id
+    private String id; // name of the sequence
+    
+    private long seq; // last value handed out
+}
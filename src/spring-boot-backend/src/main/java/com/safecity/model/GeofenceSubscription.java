@@ -0,0 +1,41 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "geofence_subscriptions")
+public class GeofenceSubscription {
+    
+    @Id
+    private String id;
+    
+    @Indexed
+    private String userId;
+    
+    private String name;
+    
+    private String shape; // circle, polygon
+    
+    private double latitude; // Circle centre
+    
+    private double longitude;
+    
+    private double radiusMeters;
+    
+    private List<List<Double>> polygon = new ArrayList<>(); // [lng, lat] vertices
+    
+    private List<String> sources = new ArrayList<>(); // case, incident
+    
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyKey {
+    
+    @Id
+    private String id; // Caller's user ID and the client supplied key
+    
+    private String reportId;
+    
+    private String reportNumber;
+    
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime expiresAt; // Removed by a TTL index once passed
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -55,6 +56,7 @@ public class Incident {
     @CreatedDate
     private LocalDateTime createdAt;
     
+    @Indexed // Latest change per collection, for list ETags
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
@@ -0,0 +1,35 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "notifications")
+public class Notification {
+    
+    @Id
+    private String id;
+    
+    @Indexed
+    private String userId;
+    
+    private String type; // geofence
+    
+    private String title;
+    
+    private String message;
+    
+    private String referenceType; // case, incident
+    
+    private String referenceId;
+    
+    private boolean read;
+    
+    private LocalDateTime createdAt;
+}
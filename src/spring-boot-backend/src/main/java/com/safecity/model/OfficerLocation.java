@@ -0,0 +1,26 @@
+
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "officer_locations")
+public class OfficerLocation {
+    
+    @Id
+    private String id; // Officer user ID
+    
+    private double latitude;
+    
+    private double longitude;
+    
+    private String status; // available, busy, off-duty
+    
+    private LocalDateTime updatedAt;
+}
@@ -26,7 +26,7 @@ public class Report {
     
     private String description;
     
-    private String status; // new, approved, rejected, converted-to-case
+    private String status; // new, approved, rejected, converted-to-case, duplicate
     
     private String priority; // high, medium, low
     
@@ -52,6 +52,10 @@ public class Report {
     
     private String convertedCaseId;
     
+    private String duplicateOf; // ID of the primary report this one duplicates
+    
+    private int duplicateCount;
+    
     private List<String> attachments = new ArrayList<>();
     
     @CreatedDate
@@ -0,0 +1,25 @@
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "report_dead_letters")
+public class ReportDeadLetter {
+    
+    @Id
+    private String id; // ID the report was acknowledged with
+    
+    private Report report;
+    
+    private String idempotencyKey;
+    
+    private String error; // Last write error, kept so the report can be fixed and replayed
+    
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,24 @@
+package com.safecity.model;
+
+import com.safecity.sos.SosEvent;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "sos_dead_letters")
+public class SosDeadLetter {
+    
+    @Id
+    private String id; // SOS id, which is also the incident id it would have had
+    
+    private SosEvent event;
+    
+    private String error; // Last write error, kept so the alert can be followed up by hand
+    
+    private LocalDateTime failedAt;
+}
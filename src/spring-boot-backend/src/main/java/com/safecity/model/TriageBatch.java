@@ -0,0 +1,32 @@
+
+package com.safecity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "triage_batches")
+public class TriageBatch {
+    
+    @Id
+    private String id; // Client supplied batch ID, reused when a batch is retried
+    
+    private String createdBy;
+    
+    private Map<String, String> results = new HashMap<>(); // Report ID -> outcome
+    
+    private LocalDateTime claimedUntil; // Set while a request is applying the batch
+    
+    private LocalDateTime createdAt;
+    
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -1,6 +1,7 @@
 
 package com.safecity.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
@@ -26,6 +27,7 @@ public class User {
     @Indexed(unique = true)
     private String email;
     
+    @JsonIgnore
     private String password;
     
     private String role;
@@ -38,6 +40,8 @@ public class User {
     
     private String badgeNumber;
     
+    private String district; // Posting district for officers, preferred by automatic case assignment
+    
     private boolean active = true;
     
     private Set<String> permissions = new HashSet<>();
@@ -45,6 +49,7 @@ public class User {
     @CreatedDate
     private LocalDateTime createdAt;
     
+    @Indexed // Latest change per collection, for list ETags
     @LastModifiedDate
     private LocalDateTime updatedAt;
 }
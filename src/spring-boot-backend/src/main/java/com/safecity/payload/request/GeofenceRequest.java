@@ -0,0 +1,36 @@
+package com.safecity.payload.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GeofenceRequest {
+    
+    @NotBlank(message = "Name is required")
+    @Size(max = 100, message = "Name must be at most 100 characters")
+    private String name;
+    
+    @NotBlank(message = "Shape is required")
+    @Pattern(regexp = "circle|polygon", message = "Shape must be circle or polygon")
+    private String shape;
+    
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private double latitude;
+    
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private double longitude;
+    
+    private double radiusMeters;
+    
+    private List<List<Double>> polygon; // [lng, lat] vertices
+    
+    private List<String> sources; // case, incident; both when empty
+}
@@ -0,0 +1,16 @@
+package com.safecity.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class IncidentUpdateRequest {
+    
+    @NotBlank(message = "Update content is required")
+    private String content;
+    
+    // Optional; moves the incident to this status along with the update
+    @Pattern(regexp = "active|contained|resolved", message = "Status must be active, contained or resolved")
+    private String status;
+}
@@ -0,0 +1,22 @@
+
+package com.safecity.payload.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class LocationUpdateRequest {
+    
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private double latitude;
+    
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private double longitude;
+    
+    @Pattern(regexp = "available|busy|off-duty", message = "Status must be available, busy or off-duty")
+    private String status;
+}
@@ -0,0 +1,41 @@
+
+package com.safecity.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ReportRequest {
+    
+    @NotBlank(message = "Report type is required")
+    @Size(max = 50, message = "Report type must be at most 50 characters")
+    private String reportType;
+    
+    @Size(max = 5000, message = "Description must be at most 5000 characters")
+    private String description;
+    
+    @Size(max = 20, message = "Priority must be at most 20 characters")
+    private String priority;
+    
+    @Size(max = 200, message = "Location must be at most 200 characters")
+    private String location;
+    
+    @Size(max = 100, message = "District must be at most 100 characters")
+    private String district;
+    
+    @Size(max = 100, message = "State must be at most 100 characters")
+    private String state;
+    
+    private double latitude;
+    
+    private double longitude;
+    
+    @Size(max = 100, message = "Reporter name must be at most 100 characters")
+    private String reporterName;
+    
+    @Size(max = 100, message = "Reporter contact must be at most 100 characters")
+    private String reporterContact;
+    
+    private boolean anonymous;
+}
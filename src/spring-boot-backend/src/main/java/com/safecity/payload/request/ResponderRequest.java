@@ -0,0 +1,11 @@
+package com.safecity.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ResponderRequest {
+    
+    @NotBlank(message = "Responder user id is required")
+    private String userId;
+}
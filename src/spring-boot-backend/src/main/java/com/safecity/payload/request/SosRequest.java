@@ -0,0 +1,35 @@
+
+package com.safecity.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class SosRequest {
+    
+    @NotNull(message = "Location is required")
+    @Valid
+    private Location location;
+    
+    @Size(max = 200, message = "Address must be at most 200 characters")
+    private String address;
+    
+    @Size(max = 2000, message = "Details must be at most 2000 characters")
+    private String details;
+    
+    @Data
+    public static class Location {
+        
+        @DecimalMin("-90.0")
+        @DecimalMax("90.0")
+        private double lat;
+        
+        @DecimalMin("-180.0")
+        @DecimalMax("180.0")
+        private double lng;
+    }
+}
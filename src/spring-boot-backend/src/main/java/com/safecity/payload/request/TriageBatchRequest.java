@@ -0,0 +1,43 @@
+
+package com.safecity.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TriageBatchRequest {
+    
+    @NotBlank(message = "Batch ID is required")
+    private String batchId;
+    
+    @NotEmpty(message = "At least one action is required")
+    @Size(max = 500, message = "A batch may contain at most 500 actions")
+    @Valid
+    private List<Action> actions = new ArrayList<>();
+    
+    @Data
+    public static class Action {
+        
+        @NotBlank(message = "Report ID is required")
+        @Pattern(regexp = "[0-9a-f]{24}", message = "Report ID must be a 24-character hex ObjectId")
+        private String reportId;
+        
+        @NotBlank(message = "Action is required")
+        @Pattern(regexp = "approve|reject|convert", message = "Action must be approve, reject or convert")
+        private String action;
+        
+        // Optional overrides for the case created by a convert action
+        private String caseTitle;
+        
+        private String casePriority;
+        
+        private String assignedTo;
+    }
+}
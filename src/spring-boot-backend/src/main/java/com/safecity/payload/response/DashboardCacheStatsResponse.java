@@ -0,0 +1,17 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DashboardCacheStatsResponse {
+    
+    private long size;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long reconciliations;
+    private long corrections;
+}
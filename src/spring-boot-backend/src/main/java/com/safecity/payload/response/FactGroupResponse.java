@@ -0,0 +1,14 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class FactGroupResponse {
+    
+    private Map<String, String> key;
+    private long count;
+}
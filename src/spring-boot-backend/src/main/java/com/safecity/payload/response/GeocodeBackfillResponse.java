@@ -0,0 +1,18 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class GeocodeBackfillResponse {
+    
+    private boolean running;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long scanned;
+    private long updated;
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class HotspotResponse {
+    
+    private double west;
+    private double south;
+    private double east;
+    private double north;
+    private int width;
+    private int height;
+    private int pointCount;
+    private double maxDensity;
+    private double[] density; // Row-major, first row is the northern edge
+    private List<Peak> peaks;
+    private Instant computedAt;
+    
+    @Data
+    @AllArgsConstructor
+    public static class Peak {
+        
+        private double latitude;
+        private double longitude;
+        private double density;
+    }
+}
@@ -0,0 +1,20 @@
+
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MapFeatureResponse {
+    
+    private String type; // cluster or point
+    private String id; // Set for points only
+    private String kind; // case, incident or report; set for points only
+    private double latitude;
+    private double longitude;
+    private int count;
+    private int caseCount;
+    private int incidentCount;
+    private int reportCount;
+}
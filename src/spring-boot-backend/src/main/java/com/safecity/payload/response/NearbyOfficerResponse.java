@@ -0,0 +1,16 @@
+
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NearbyOfficerResponse {
+    
+    private String officerId;
+    private double latitude;
+    private double longitude;
+    private String status;
+    private double distanceMeters;
+}
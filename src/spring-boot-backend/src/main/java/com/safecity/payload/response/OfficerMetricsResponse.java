@@ -0,0 +1,20 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OfficerMetricsResponse {
+    
+    private String officerId;
+    private String name;
+    private long openCases;
+    private long resolvedCases;
+    private double meanResolutionHours;
+    private double medianResolutionHours;
+    private double p90ResolutionHours;
+    private double slaCompliance;
+    private double[] bucketUpperHours;
+    private long[] resolutionHistogram;
+}
@@ -0,0 +1,15 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RateLimitStatsResponse {
+    
+    private String policy;
+    private double requestsPerMinute;
+    private int burst;
+    private long allowed;
+    private long rejected;
+}
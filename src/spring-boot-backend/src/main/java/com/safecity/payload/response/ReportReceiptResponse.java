@@ -0,0 +1,17 @@
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class ReportReceiptResponse {
+    
+    private String id;
+    private String reportNumber;
+    private String status;
+    private Instant receivedAt;
+    private boolean replayed; // True when the idempotency key was already used and this is the original receipt
+}
@@ -0,0 +1,17 @@
+
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class SosResponse {
+    
+    private String id;
+    private String incidentNumber;
+    private String status;
+    private Instant receivedAt;
+}
@@ -0,0 +1,15 @@
+
+package com.safecity.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class TriageBatchResponse {
+    
+    private String batchId;
+    private Map<String, String> results; // Report ID -> applied, already-applied, not-found, invalid-state or failed
+}
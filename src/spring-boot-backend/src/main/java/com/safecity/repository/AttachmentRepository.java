@@ -0,0 +1,13 @@
+package com.safecity.repository;
+
+import com.safecity.model.Attachment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface AttachmentRepository extends MongoRepository<Attachment, String> {
+    
+    List<Attachment> findByReferenceTypeAndReferenceId(String referenceType, String referenceId);
+    
+    boolean existsBySha256(String sha256);
+}
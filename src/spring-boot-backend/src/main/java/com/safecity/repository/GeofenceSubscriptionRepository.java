@@ -0,0 +1,13 @@
+package com.safecity.repository;
+
+import com.safecity.model.GeofenceSubscription;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface GeofenceSubscriptionRepository extends MongoRepository<GeofenceSubscription, String> {
+    
+    List<GeofenceSubscription> findByUserId(String userId);
+    
+    long countByUserId(String userId);
+}
@@ -0,0 +1,7 @@
+package com.safecity.repository;
+
+import com.safecity.model.IdempotencyKey;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyKeyRepository extends MongoRepository<IdempotencyKey, String> {
+}
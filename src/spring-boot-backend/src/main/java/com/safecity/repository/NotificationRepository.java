@@ -0,0 +1,11 @@
+package com.safecity.repository;
+
+import com.safecity.model.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface NotificationRepository extends MongoRepository<Notification, String> {
+    
+    Page<Notification> findByUserId(String userId, Pageable pageable);
+}
@@ -0,0 +1,8 @@
+
+package com.safecity.repository;
+
+import com.safecity.model.OfficerLocation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface OfficerLocationRepository extends MongoRepository<OfficerLocation, String> {
+}
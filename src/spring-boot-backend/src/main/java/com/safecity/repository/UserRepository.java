@@ -4,6 +4,7 @@ package com.safecity.repository;
 import com.safecity.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
@@ -13,4 +14,6 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByEmail(String email);
     
     Optional<User> findByBadgeNumber(String badgeNumber);
+    
+    List<User> findByRoleAndActiveTrue(String role);
 }
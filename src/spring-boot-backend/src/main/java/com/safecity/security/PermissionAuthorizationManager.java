@@ -0,0 +1,96 @@
+package com.safecity.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides {@link PreAuthorize} checks that are only roles and authorities joined by "or" by
+ * ANDing the principal's permission mask with a mask worked out once per method, so the
+ * common case evaluates no SpEL and allocates nothing. Any other expression goes to the
+ * standard expression-based manager.
+ */
+public class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final Pattern TERM = Pattern.compile("(hasRole|hasAuthority|hasAnyRole|hasAnyAuthority)\\(([^()]*)\\)");
+
+    private static final Pattern ARGUMENT = Pattern.compile("\\s*'([\\w:.-]+)'\\s*");
+
+    // Methods whose expression needs the full evaluator
+    private static final long EVALUATE = 0;
+
+    private final PreAuthorizeAuthorizationManager fallback = new PreAuthorizeAuthorizationManager();
+
+    private final Map<MethodClassKey, Long> required = new ConcurrentHashMap<>();
+
+    public PermissionAuthorizationManager(ApplicationContext context) {
+        DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(context);
+        fallback.setExpressionHandler(expressionHandler);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        long mask = required.computeIfAbsent(new MethodClassKey(invocation.getMethod(), targetClass),
+                key -> requiredMask(invocation.getMethod(), targetClass));
+        if (mask == EVALUATE) {
+            return fallback.check(authentication, invocation);
+        }
+
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated()) {
+            return new AuthorizationDecision(false);
+        }
+        long granted = current.getPrincipal() instanceof UserDetailsImpl user
+                ? user.getPermissionMask()
+                : PermissionRegistry.maskOf(current.getAuthorities());
+        return new AuthorizationDecision((granted & mask) != 0);
+    }
+
+    private static long requiredMask(Method method, Class<?> targetClass) {
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(specific, PreAuthorize.class);
+        if (preAuthorize == null && targetClass != null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(targetClass, PreAuthorize.class);
+        }
+        if (preAuthorize == null) {
+            return EVALUATE;
+        }
+
+        List<String> authorities = new ArrayList<>();
+        for (String term : preAuthorize.value().trim().split("\\s+or\\s+")) {
+            Matcher matcher = TERM.matcher(term.trim());
+            if (!matcher.matches()) {
+                return EVALUATE;
+            }
+            boolean role = matcher.group(1).contains("Role");
+            for (String argument : matcher.group(2).split(",")) {
+                Matcher name = ARGUMENT.matcher(argument);
+                // An explicit ROLE_ prefix is rejected by hasRole, so leave that to the evaluator too
+                if (!name.matches() || (role && name.group(1).startsWith(PermissionRegistry.ROLE_PREFIX))) {
+                    return EVALUATE;
+                }
+                authorities.add(role ? PermissionRegistry.ROLE_PREFIX + name.group(1) : name.group(1));
+            }
+        }
+        return PermissionRegistry.mask(authorities);
+    }
+}
@@ -0,0 +1,118 @@
+package com.safecity.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one place roles map to permissions. Every authority name (ROLE_ADMIN, case:read, ...)
+ * is interned to a bit of a long, so a principal's authorities become a mask and a role or
+ * permission check is a single AND. Users holding exactly their role's default permissions,
+ * which is nearly all of them, share one immutable authority list per role.
+ */
+public final class PermissionRegistry {
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    private static final Map<String, List<String>> ROLE_PERMISSIONS = Map.of(
+            "admin", List.of("user:read", "user:write", "case:read", "case:write", "report:read", "report:write",
+                    "incident:read", "incident:write", "analytics:read"),
+            "officer", List.of("case:read", "case:write", "report:read", "report:write", "incident:read", "incident:write"),
+            "user", List.of("report:create", "report:read-own"));
+
+    private static final Map<String, Integer> BITS = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_BIT = new AtomicInteger();
+
+    private static final Map<String, Grants> BY_ROLE = new ConcurrentHashMap<>();
+
+    public record Grants(List<GrantedAuthority> authorities, long mask) {
+    }
+
+    static {
+        // Known names get the low bits up front; anything else stored on a user is interned on first sight
+        for (String role : List.of("admin", "officer", "user")) {
+            bit(roleAuthority(role));
+        }
+        ROLE_PERMISSIONS.values().forEach(permissions -> permissions.forEach(PermissionRegistry::bit));
+    }
+
+    private PermissionRegistry() {
+    }
+
+    public static Set<String> defaultPermissions(String role) {
+        return Set.copyOf(ROLE_PERMISSIONS.getOrDefault(role.toLowerCase(), List.of()));
+    }
+
+    public static String roleAuthority(String role) {
+        return ROLE_PREFIX + role.toUpperCase();
+    }
+
+    /**
+     * Authorities and mask for a user. Permission sets other than the role's default are
+     * built per call rather than cached, since they are rare and could be arbitrarily many.
+     */
+    public static Grants grants(String role, Collection<String> permissions) {
+        String key = role.toLowerCase();
+        List<String> defaults = ROLE_PERMISSIONS.getOrDefault(key, List.of());
+        if (permissions.size() == defaults.size() && permissions.containsAll(defaults)) {
+            return BY_ROLE.computeIfAbsent(key, r -> build(role, defaults));
+        }
+        return build(role, permissions);
+    }
+
+    /**
+     * Bit position for an authority name, or -1 once all 64 are taken.
+     */
+    public static int bit(String authority) {
+        Integer bit = BITS.get(authority);
+        if (bit != null) {
+            return bit;
+        }
+        synchronized (BITS) {
+            return BITS.computeIfAbsent(authority, a -> NEXT_BIT.get() < Long.SIZE ? NEXT_BIT.getAndIncrement() : -1);
+        }
+    }
+
+    /**
+     * Mask of the given names, or 0 when any of them has no bit and so cannot be checked by mask.
+     */
+    public static long mask(Collection<String> authorities) {
+        long mask = 0;
+        for (String authority : authorities) {
+            int bit = bit(authority);
+            if (bit < 0) {
+                return 0;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    public static long maskOf(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            int bit = bit(authority.getAuthority());
+            if (bit >= 0) {
+                mask |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+
+    private static Grants build(String role, Collection<String> permissions) {
+        List<GrantedAuthority> authorities = new ArrayList<>(permissions.size() + 1);
+        for (String permission : permissions) {
+            authorities.add(new SimpleGrantedAuthority(permission));
+        }
+        authorities.add(new SimpleGrantedAuthority(roleAuthority(role)));
+        return new Grants(List.copyOf(authorities), maskOf(authorities));
+    }
+}
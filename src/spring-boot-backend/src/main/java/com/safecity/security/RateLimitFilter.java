@@ -0,0 +1,182 @@
+package com.safecity.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safecity.payload.response.RateLimitStatsResponse;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client rate limiting, run ahead of token authentication so floods of signups (a BCrypt
+ * hash each), logins or public reports are refused before they cost anything. The first
+ * policy whose route matches applies. Anonymous routes are keyed by client address; the
+ * catch-all policy keys by the user a bearer token was signed for, so clients behind one NAT
+ * do not share a budget. Tokens that fail verification fall back to the client address, so
+ * minting a fresh fake token per request buys no extra budget.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final class Policy {
+        final String name;
+        final RequestMatcher matcher;
+        final boolean keyByToken;
+        final double requestsPerMinute;
+        final int burst;
+        final RateLimitSketch sketch;
+        final LongAdder allowed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+        Policy(String name, RequestMatcher matcher, boolean keyByToken, double requestsPerMinute, int burst, int rows, int width) {
+            this.name = name;
+            this.matcher = matcher;
+            this.keyByToken = keyByToken;
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+            this.sketch = new RateLimitSketch(rows, width, requestsPerMinute, burst);
+        }
+    }
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Value("${rate-limit.enabled}")
+    private boolean enabled;
+
+    @Value("${rate-limit.trust-forwarded-for}")
+    private boolean trustForwardedFor;
+
+    @Value("${rate-limit.sketch-rows}")
+    private int sketchRows;
+
+    @Value("${rate-limit.sketch-width}")
+    private int sketchWidth;
+
+    @Value("${rate-limit.signup.per-minute}")
+    private double signupPerMinute;
+
+    @Value("${rate-limit.signup.burst}")
+    private int signupBurst;
+
+    @Value("${rate-limit.signin.per-minute}")
+    private double signinPerMinute;
+
+    @Value("${rate-limit.signin.burst}")
+    private int signinBurst;
+
+    @Value("${rate-limit.public.per-minute}")
+    private double publicPerMinute;
+
+    @Value("${rate-limit.public.burst}")
+    private int publicBurst;
+
+    @Value("${rate-limit.default.per-minute}")
+    private double defaultPerMinute;
+
+    @Value("${rate-limit.default.burst}")
+    private int defaultBurst;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<Policy> policies;
+
+    @PostConstruct
+    public void init() {
+        policies = List.of(
+                new Policy("signup", new AntPathRequestMatcher("/auth/signup", "POST"), false,
+                        signupPerMinute, signupBurst, sketchRows, sketchWidth),
+                new Policy("signin", new AntPathRequestMatcher("/auth/signin", "POST"), false,
+                        signinPerMinute, signinBurst, sketchRows, sketchWidth),
+                new Policy("public", new AntPathRequestMatcher("/public/**"), false,
+                        publicPerMinute, publicBurst, sketchRows, sketchWidth),
+                new Policy("default", AntPathRequestMatcher.antMatcher("/**"), true,
+                        defaultPerMinute, defaultBurst, sketchRows, sketchWidth));
+    }
+
+    public List<RateLimitStatsResponse> getStats() {
+        List<RateLimitStatsResponse> stats = new ArrayList<>();
+        for (Policy policy : policies) {
+            stats.add(new RateLimitStatsResponse(policy.name, policy.requestsPerMinute, policy.burst,
+                    policy.allowed.sum(), policy.rejected.sum()));
+        }
+        return stats;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflights carry no credentials and are answered without reaching a controller;
+        // probes must never be throttled into marking the instance unhealthy
+        return !enabled || "OPTIONS".equals(request.getMethod()) || request.getServletPath().startsWith("/actuator/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Policy policy = null;
+        for (Policy candidate : policies) {
+            if (candidate.matcher.matches(request)) {
+                policy = candidate;
+                break;
+            }
+        }
+
+        long wait = policy.sketch.tryAcquire(clientKey(request, policy.keyByToken));
+        if (wait == 0) {
+            policy.allowed.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        policy.rejected.increment();
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (wait + 999_999_999) / 1_000_000_000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", 429);
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit exceeded, retry later");
+        body.put("path", request.getServletPath());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private String clientKey(HttpServletRequest request, boolean keyByToken) {
+        if (keyByToken) {
+            String jwt = jwtUtils.parseJwt(request);
+            if (jwt != null) {
+                // Only the signature and expiry are checked here; the user is loaded later by AuthTokenFilter
+                try {
+                    return "user:" + jwtUtils.getUserNameFromJwtToken(jwt);
+                } catch (JwtException | IllegalArgumentException e) {
+                    // Unverified, so keyed by address below
+                }
+            }
+        }
+        if (trustForwardedFor) {
+            // The last hop is the one our own proxy appended; earlier entries are client-supplied
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                return "ip:" + forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
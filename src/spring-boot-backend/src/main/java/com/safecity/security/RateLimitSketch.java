@@ -0,0 +1,86 @@
+package com.safecity.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generic cell rate algorithm (a token bucket kept as one timestamp per client) over a
+ * count-min sketch, so memory is fixed however many clients show up. Each client hashes to
+ * one slot per row and every row holds a theoretical arrival time. Colliding clients can
+ * only push a slot later, never earlier, so the earliest of a client's slots is the closest
+ * to its own; a client is limited only when it collides with busy clients in every row.
+ * Slots are updated with CAS, so there are no locks on the request path.
+ */
+public class RateLimitSketch {
+
+    private final int rows;
+
+    private final int widthMask;
+
+    private final AtomicLongArray slots;
+
+    // Nanoseconds between requests at the sustained rate
+    private final long interval;
+
+    // How far ahead of now a slot may run before requests are refused, i.e. the burst
+    private final long tolerance;
+
+    private final long origin = System.nanoTime();
+
+    public RateLimitSketch(int rows, int width, double requestsPerMinute, int burst) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Sketch width must be a power of two: " + width);
+        }
+        this.rows = rows;
+        this.widthMask = width - 1;
+        this.slots = new AtomicLongArray(rows * width);
+        this.interval = (long) (60_000_000_000L / requestsPerMinute);
+        this.tolerance = interval * Math.max(0, burst - 1);
+    }
+
+    /**
+     * Takes one request's worth of capacity for the key. Returns 0 when the request may
+     * proceed, otherwise the nanoseconds until it would be allowed; refused requests take
+     * nothing.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime() - origin;
+        long hash = hash(key);
+
+        long earliest = Long.MAX_VALUE;
+        for (int row = 0; row < rows; row++) {
+            earliest = Math.min(earliest, slots.get(index(hash, row)));
+        }
+        long arrival = Math.max(earliest, now);
+        if (arrival - now > tolerance) {
+            return arrival - now - tolerance;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            int i = index(hash, row);
+            long current;
+            do {
+                current = slots.get(i);
+            } while (!slots.compareAndSet(i, current, Math.max(current, now) + interval));
+        }
+        return 0;
+    }
+
+    private int index(long hash, int row) {
+        // Murmur3 finalizer over a per-row seed gives each row its own hash function
+        long h = hash ^ (0x9E3779B97F4A7C15L * (row + 1));
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return row * (widthMask + 1) + (int) (h & widthMask);
+    }
+
+    // 64-bit FNV-1a; String.hashCode collides too easily for keys a client can choose
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
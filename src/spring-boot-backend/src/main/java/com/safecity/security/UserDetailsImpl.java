@@ -6,13 +6,11 @@ import com.safecity.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @AllArgsConstructor
 @Getter
@@ -28,14 +26,14 @@ public class UserDetailsImpl implements UserDetails {
     private String password;
     
     private Collection<? extends GrantedAuthority> authorities;
+    
+    // Bits from PermissionRegistry for every authority above
+    @JsonIgnore
+    private long permissionMask;
 
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities = user.getPermissions().stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-        
-        // Add role as an authority
-        authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase()));
+        PermissionRegistry.Grants grants = PermissionRegistry.grants(user.getRole(),
+                user.getPermissions() != null ? user.getPermissions() : Set.of());
 
         return new UserDetailsImpl(
                 user.getId(),
@@ -43,7 +41,20 @@ public class UserDetailsImpl implements UserDetails {
                 user.getEmail(),
                 user.getBadgeNumber(),
                 user.getPassword(),
-                authorities);
+                grants.authorities(),
+                grants.mask());
+    }
+
+    public boolean hasRole(String role) {
+        return hasAuthority(PermissionRegistry.roleAuthority(role));
+    }
+
+    public boolean hasAuthority(String authority) {
+        int bit = PermissionRegistry.bit(authority);
+        if (bit < 0) {
+            return authorities.stream().anyMatch(a -> a.getAuthority().equals(authority));
+        }
+        return (permissionMask & (1L << bit)) != 0;
     }
 
     @Override
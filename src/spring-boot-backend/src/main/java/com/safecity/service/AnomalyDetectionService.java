@@ -0,0 +1,10 @@
+package com.safecity.service;
+
+import com.safecity.event.AnomalyAlertEvent;
+
+import java.util.List;
+
+public interface AnomalyDetectionService {
+    
+    List<AnomalyAlertEvent> findRecentAlerts(int limit, String district);
+}
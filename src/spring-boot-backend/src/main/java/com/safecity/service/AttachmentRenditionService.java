@@ -0,0 +1,10 @@
+package com.safecity.service;
+
+import com.safecity.model.Attachment;
+
+public interface AttachmentRenditionService {
+    
+    void request(Attachment attachment);
+    
+    int queuedCount();
+}
@@ -0,0 +1,23 @@
+package com.safecity.service;
+
+import com.safecity.model.Attachment;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface AttachmentService {
+    
+    Attachment upload(String referenceType, String referenceId, String fileName, String contentType,
+                      long contentLength, InputStream content, String userId, boolean privileged);
+    
+    Attachment findById(String id, String userId, boolean privileged);
+    
+    List<Attachment> findByReference(String referenceType, String referenceId);
+    
+    Path contentPath(Attachment attachment);
+    
+    Path renditionPath(Attachment attachment, String name);
+    
+    void delete(String id, String userId, boolean admin);
+}
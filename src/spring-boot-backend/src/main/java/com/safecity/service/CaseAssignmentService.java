@@ -0,0 +1,17 @@
+package com.safecity.service;
+
+import com.safecity.assignment.WorkloadIndex;
+
+import java.util.List;
+
+public interface CaseAssignmentService {
+    
+    /**
+     * The officer a new case in the district should go to, or null when there are no officers.
+     */
+    String pickAssignee(String district);
+    
+    List<WorkloadIndex.Load> getWorkloads(String officerId);
+    
+    void rebalance();
+}
@@ -0,0 +1,11 @@
+package com.safecity.service;
+
+public interface CaseEscalationService {
+    
+    /**
+     * Fires every escalation deadline that has passed.
+     */
+    void tick();
+    
+    int scheduledCount();
+}
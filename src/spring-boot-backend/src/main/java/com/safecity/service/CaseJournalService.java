@@ -0,0 +1,14 @@
+package com.safecity.service;
+
+import com.safecity.model.CaseEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface CaseJournalService {
+    
+    List<CaseEvent> getTimeline(String caseId, Long beforeSeq, int limit);
+    
+    Map<String, Object> getStateAt(String caseId, LocalDateTime at);
+}
@@ -28,6 +28,9 @@ public interface CaseService {
     
     List<Case> findByCaseCreatedBetween(LocalDateTime start, LocalDateTime end);
     
+    /**
+     * Creates a case; an ID that is already taken fails instead of overwriting the stored case.
+     */
     Case save(Case caseObj);
     
     Case update(String id, CaseRequest caseRequest);
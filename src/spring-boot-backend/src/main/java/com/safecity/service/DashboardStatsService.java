@@ -0,0 +1,12 @@
+package com.safecity.service;
+
+import com.safecity.payload.response.DashboardCacheStatsResponse;
+
+import java.util.Map;
+
+public interface DashboardStatsService {
+    
+    Map<String, Map<String, Map<String, Long>>> getStats(String district, String assignedTo);
+    
+    DashboardCacheStatsResponse getCacheStats();
+}
@@ -0,0 +1,11 @@
+package com.safecity.service;
+
+import com.safecity.payload.response.FactGroupResponse;
+
+import java.util.List;
+import java.util.Map;
+
+public interface FactStoreService {
+    
+    List<FactGroupResponse> query(String source, List<String> groupBy, Map<String, List<String>> filters, int limit);
+}
@@ -0,0 +1,15 @@
+package com.safecity.service;
+
+import com.safecity.model.GeofenceSubscription;
+import com.safecity.payload.request.GeofenceRequest;
+
+import java.util.List;
+
+public interface GeofenceService {
+    
+    GeofenceSubscription subscribe(String userId, GeofenceRequest geofenceRequest);
+    
+    List<GeofenceSubscription> findByUserId(String userId);
+    
+    void unsubscribe(String id, String userId, boolean admin);
+}
@@ -0,0 +1,10 @@
+package com.safecity.service;
+
+import com.safecity.payload.response.HotspotResponse;
+
+public interface HotspotService {
+    
+    HotspotResponse findHotspots(int days, String type, String district,
+                                 double west, double south, double east, double north,
+                                 int width, int height, double bandwidthMeters);
+}
@@ -0,0 +1,27 @@
+package com.safecity.service;
+
+import com.safecity.model.Incident;
+import com.safecity.model.IncidentUpdate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface IncidentService {
+    
+    Page<Incident> findAll(Pageable pageable);
+    
+    Incident findById(String id);
+    
+    Page<Incident> findByStatus(String status, Pageable pageable);
+    
+    Page<Incident> findByDistrictAndStatus(String district, String status, Pageable pageable);
+    
+    Page<Incident> findBySeverityAndStatus(String severity, String status, Pageable pageable);
+    
+    CompletableFuture<Incident> addUpdate(String id, IncidentUpdate update);
+    
+    CompletableFuture<Incident> addResponder(String id, String userId);
+    
+    CompletableFuture<Incident> removeResponder(String id, String userId);
+}
@@ -0,0 +1,12 @@
+
+package com.safecity.service;
+
+import com.safecity.payload.response.MapFeatureResponse;
+
+import java.util.List;
+import java.util.Set;
+
+public interface MapClusterService {
+    
+    List<MapFeatureResponse> findClusters(double west, double south, double east, double north, int zoom, Set<String> kinds);
+}
@@ -0,0 +1,16 @@
+package com.safecity.service;
+
+import com.safecity.model.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface NotificationService {
+    
+    void sendAll(List<Notification> notifications);
+    
+    Page<Notification> findByUserId(String userId, Pageable pageable);
+    
+    Notification markRead(String id, String userId);
+}
@@ -0,0 +1,18 @@
+
+package com.safecity.service;
+
+import com.safecity.payload.request.LocationUpdateRequest;
+import com.safecity.payload.response.NearbyOfficerResponse;
+
+import java.util.List;
+
+public interface OfficerLocationService {
+    
+    void updateLocation(String officerId, LocationUpdateRequest locationRequest);
+    
+    void updateStatus(String officerId, String status);
+    
+    List<NearbyOfficerResponse> findNearestAvailable(double latitude, double longitude, int k);
+    
+    void snapshot();
+}
@@ -0,0 +1,10 @@
+package com.safecity.service;
+
+import com.safecity.payload.response.OfficerMetricsResponse;
+
+import java.util.List;
+
+public interface OfficerMetricsService {
+    
+    List<OfficerMetricsResponse> getMetrics(String officerId);
+}
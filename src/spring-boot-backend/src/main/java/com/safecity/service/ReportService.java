@@ -0,0 +1,24 @@
+
+package com.safecity.service;
+
+import com.safecity.model.Report;
+import com.safecity.payload.response.ReportReceiptResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ReportService {
+    
+    Page<Report> findAll(Pageable pageable);
+    
+    Report findById(String id);
+    
+    Page<Report> findByStatus(String status, Pageable pageable);
+    
+    Page<Report> findByReportedBy(String reportedBy, Pageable pageable);
+    
+    /**
+     * Accepts a report for asynchronous persistence and returns its receipt. A repeated
+     * idempotency key from the same user returns the original receipt instead.
+     */
+    ReportReceiptResponse submit(Report report, String userId, String idempotencyKey);
+}
@@ -0,0 +1,17 @@
+
+package com.safecity.service;
+
+import com.safecity.model.Report;
+import com.safecity.payload.request.TriageBatchRequest;
+import com.safecity.payload.response.TriageBatchResponse;
+
+import java.util.List;
+
+public interface ReportTriageService {
+    
+    List<Report> nextPending(int limit, String district);
+    
+    TriageBatchResponse applyBatch(TriageBatchRequest batchRequest, String reviewerId);
+    
+    TriageBatchResponse applySingle(String reportId, String action, String reviewerId);
+}
@@ -0,0 +1,12 @@
+package com.safecity.service;
+
+import java.time.LocalDateTime;
+
+public interface ResourceVersionService {
+    
+    String documentTag(String collection, String id);
+    
+    String tagOf(String id, LocalDateTime updatedAt);
+    
+    String listTag(String collection, Object... parameters);
+}
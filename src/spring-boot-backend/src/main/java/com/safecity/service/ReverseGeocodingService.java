@@ -0,0 +1,13 @@
+package com.safecity.service;
+
+import com.safecity.geo.ReverseGeocoder;
+import com.safecity.payload.response.GeocodeBackfillResponse;
+
+public interface ReverseGeocodingService {
+    
+    ReverseGeocoder.Region lookup(double latitude, double longitude);
+    
+    GeocodeBackfillResponse startBackfill();
+    
+    GeocodeBackfillResponse getBackfillStatus();
+}
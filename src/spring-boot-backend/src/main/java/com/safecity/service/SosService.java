@@ -0,0 +1,12 @@
+
+package com.safecity.service;
+
+import com.safecity.payload.request.SosRequest;
+import com.safecity.payload.response.SosResponse;
+
+public interface SosService {
+    
+    SosResponse trigger(SosRequest sosRequest, String userId);
+    
+    int pendingCount();
+}
@@ -0,0 +1,170 @@
+
+package com.safecity.service.impl;
+
+import com.safecity.analytics.RateAnomalyDetector;
+import com.safecity.event.AnomalyAlertEvent;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.Incident;
+import com.safecity.model.Report;
+import com.safecity.service.AnomalyDetectionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class AnomalyDetectionServiceImpl implements AnomalyDetectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectionServiceImpl.class);
+
+    private static final String ALL_TYPES = "*";
+    private static final String UNKNOWN = "unknown";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${analytics.anomaly.history-days}")
+    private int historyDays;
+
+    @Value("${analytics.anomaly.recent-alerts}")
+    private int recentAlertLimit;
+
+    private final RateAnomalyDetector detector;
+
+    private final Deque<AnomalyAlertEvent> recentAlerts = new ArrayDeque<>();
+
+    public AnomalyDetectionServiceImpl(
+            @Value("${analytics.anomaly.bucket-minutes}") long bucketMinutes,
+            @Value("${analytics.anomaly.alpha}") double alpha,
+            @Value("${analytics.anomaly.seasonal-gamma}") double gamma,
+            @Value("${analytics.anomaly.threshold}") double threshold,
+            @Value("${analytics.anomaly.min-count}") long minCount,
+            @Value("${analytics.anomaly.warmup-buckets}") long warmupBuckets) {
+        this.detector = new RateAnomalyDetector(TimeUnit.MINUTES.toMillis(bucketMinutes), alpha, gamma,
+                threshold, minCount, warmupBuckets, ZoneId.systemDefault());
+    }
+
+    // Baselines are primed from recent history so detection does not start cold after a restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayHistory() {
+        LocalDateTime since = LocalDateTime.now().minusDays(historyDays);
+        try (Stream<Case> cases = mongoTemplate.stream(history(since, "type"), Case.class)) {
+            cases.forEach(c -> record("case", c.getDistrict(), c.getType(), c.getCreatedAt(), false));
+        }
+        try (Stream<Incident> incidents = mongoTemplate.stream(history(since, "incidentType"), Incident.class)) {
+            incidents.forEach(i -> record("incident", i.getDistrict(), i.getIncidentType(), i.getCreatedAt(), false));
+        }
+        try (Stream<Report> reports = mongoTemplate.stream(history(since, "reportType")
+                .addCriteria(Criteria.where("status").ne("duplicate")), Report.class)) {
+            reports.forEach(r -> record("report", r.getDistrict(), r.getReportType(), r.getCreatedAt(), false));
+        }
+        logger.info("Primed {} arrival-rate baselines from the last {} days", detector.size(), historyDays);
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        if (event.type() == ChangeType.CREATED) {
+            Case created = event.after();
+            record("case", created.getDistrict(), created.getType(), created.getCreatedAt(), true);
+        }
+    }
+
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        if (event.type() == ChangeType.CREATED) {
+            Incident created = event.after();
+            record("incident", created.getDistrict(), created.getIncidentType(), created.getCreatedAt(), true);
+        }
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        // Duplicates restate an already counted report
+        if (event.type() == ChangeType.CREATED && !"duplicate".equals(event.after().getStatus())) {
+            Report created = event.after();
+            record("report", created.getDistrict(), created.getReportType(), created.getCreatedAt(), true);
+        }
+    }
+
+    @Override
+    public List<AnomalyAlertEvent> findRecentAlerts(int limit, String district) {
+        List<AnomalyAlertEvent> alerts = new ArrayList<>();
+        synchronized (recentAlerts) {
+            for (AnomalyAlertEvent alert : recentAlerts) {
+                if (alerts.size() >= limit) {
+                    break;
+                }
+                if (district == null || district.equals(alert.district())) {
+                    alerts.add(alert);
+                }
+            }
+        }
+        return alerts;
+    }
+
+    private void record(String source, String district, String type, LocalDateTime createdAt, boolean alerts) {
+        String districtKey = district != null && !district.isBlank() ? district : UNKNOWN;
+        String typeKey = type != null && !type.isBlank() ? type : UNKNOWN;
+        long timestamp = createdAt != null
+                ? createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+
+        // Each arrival feeds its own type and the district-wide total for the source
+        emit(source, districtKey, typeKey, detector.record(key(source, districtKey, typeKey), timestamp, alerts));
+        emit(source, districtKey, ALL_TYPES, detector.record(key(source, districtKey, ALL_TYPES), timestamp, alerts));
+    }
+
+    private void emit(String source, String district, String type, RateAnomalyDetector.Alert alert) {
+        if (alert == null) {
+            return;
+        }
+        AnomalyAlertEvent event = new AnomalyAlertEvent(source, district, type, Instant.ofEpochMilli(alert.bucketStart()),
+                alert.observed(), alert.expected(), alert.score());
+        logger.warn("Arrival spike for {} in {} ({}): {} against {} expected, score {}",
+                source, district, type, alert.observed(), String.format("%.1f", alert.expected()), String.format("%.1f", alert.score()));
+        synchronized (recentAlerts) {
+            recentAlerts.addFirst(event);
+            while (recentAlerts.size() > recentAlertLimit) {
+                recentAlerts.removeLast();
+            }
+        }
+        eventPublisher.publishEvent(event);
+    }
+
+    private static String key(String source, String district, String type) {
+        return source + '|' + district + '|' + type;
+    }
+
+    private static Query history(LocalDateTime since, String typeField) {
+        Query query = new Query(Criteria.where("createdAt").gte(since))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .allowDiskUse(true);
+        query.fields().include("district", typeField, "createdAt", "status");
+        return query;
+    }
+}
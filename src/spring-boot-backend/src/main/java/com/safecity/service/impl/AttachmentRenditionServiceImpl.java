@@ -0,0 +1,181 @@
+package com.safecity.service.impl;
+
+import com.safecity.model.Attachment;
+import com.safecity.service.AttachmentRenditionService;
+import com.safecity.storage.ContentStore;
+import com.safecity.storage.ImageRenditions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates thumbnail and preview renditions of image attachments on a small bounded pool,
+ * off the upload request. When the queue is full the job is not queued at all: the
+ * attachment stays pending in Mongo and the periodic sweep submits it once there is room,
+ * which also picks up work lost to a restart. Renditions are keyed by content hash, so
+ * attachments sharing a file share them too.
+ */
+@Service
+public class AttachmentRenditionServiceImpl implements AttachmentRenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentRenditionServiceImpl.class);
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${attachments.renditions.thumb-size}")
+    private int thumbSize;
+
+    @Value("${attachments.renditions.preview-size}")
+    private int previewSize;
+
+    @Value("${attachments.renditions.quality}")
+    private float quality;
+
+    @Value("${attachments.renditions.max-pixels}")
+    private long maxPixels;
+
+    @Value("${attachments.renditions.workers}")
+    private int workers;
+
+    @Value("${attachments.renditions.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${attachments.renditions.sweep-interval-ms}")
+    private long sweepIntervalMs;
+
+    private ThreadPoolExecutor executor;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "attachment-renditions-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Rendering must not compete with request threads
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void request(Attachment attachment) {
+        if ("pending".equals(attachment.getRenditionStatus())) {
+            submit(attachment.getSha256());
+        }
+    }
+
+    @Override
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    @Scheduled(fixedDelayString = "${attachments.renditions.sweep-interval-ms}")
+    public void sweepPending() {
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        // Skip fresh uploads, whose jobs were just submitted by the upload itself
+        Query query = Query.query(Criteria.where("renditionStatus").is("pending")
+                .and("createdAt").lt(LocalDateTime.now().minusNanos(sweepIntervalMs * 1_000_000)));
+        query.fields().include("sha256");
+        query.limit(room);
+        for (Attachment attachment : mongoTemplate.find(query, Attachment.class)) {
+            submit(attachment.getSha256());
+        }
+    }
+
+    private void submit(String sha256) {
+        if (!inFlight.add(sha256)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    render(sha256);
+                } finally {
+                    inFlight.remove(sha256);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sha256);
+            logger.debug("Rendition queue full, leaving {} for the sweep", sha256);
+        }
+    }
+
+    private void render(String sha256) {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("thumb", thumbSize);
+        sizes.put("preview", previewSize);
+
+        // Another attachment with the same content may already have them
+        if (sizes.keySet().stream().allMatch(name -> Files.exists(contentStore.renditionPath(sha256, name)))) {
+            markAll(sha256, "ready", new ArrayList<>(sizes.keySet()));
+            return;
+        }
+
+        Map<String, byte[]> renditions;
+        try {
+            renditions = ImageRenditions.render(contentStore.path(sha256), sizes, maxPixels, quality);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not render {}: {}", sha256, e.getMessage());
+            markAll(sha256, "failed", List.of());
+            return;
+        }
+        if (renditions.isEmpty()) {
+            markAll(sha256, "failed", List.of());
+            return;
+        }
+
+        synchronized (contentStore.lock(sha256)) {
+            for (Map.Entry<String, byte[]> rendition : renditions.entrySet()) {
+                if (!contentStore.writeRendition(sha256, rendition.getKey(), rendition.getValue())) {
+                    // Every attachment of this content was deleted while rendering
+                    return;
+                }
+            }
+        }
+        markAll(sha256, "ready", new ArrayList<>(renditions.keySet()));
+    }
+
+    private void markAll(String sha256, String status, List<String> names) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("sha256").is(sha256)),
+                new Update().set("renditionStatus", status).set("renditions", names), Attachment.class);
+    }
+}
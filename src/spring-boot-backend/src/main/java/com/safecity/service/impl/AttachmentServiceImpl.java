@@ -0,0 +1,208 @@
+package com.safecity.service.impl;
+
+import com.safecity.model.Attachment;
+import com.safecity.model.AttachmentUsage;
+import com.safecity.repository.AttachmentRepository;
+import com.safecity.service.AttachmentRenditionService;
+import com.safecity.service.AttachmentService;
+import com.safecity.storage.ContentStore;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class AttachmentServiceImpl implements AttachmentService {
+
+    private static final Map<String, String> COLLECTIONS = Map.of(
+            "case", "cases",
+            "report", "reports",
+            "incident", "incidents");
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AttachmentRenditionService attachmentRenditionService;
+
+    @Value("${attachments.max-file-size}")
+    private long maxFileSize;
+
+    @Value("${attachments.quota-bytes}")
+    private long quotaBytes;
+
+    @Override
+    public Attachment upload(String referenceType, String referenceId, String fileName, String contentType,
+                             long contentLength, InputStream content, String userId, boolean privileged) {
+        String collection = collection(referenceType);
+        Query reference = Query.query(Criteria.where("_id").is(referenceId));
+        if (!privileged) {
+            // Citizens can only add evidence to their own reports
+            if (!"report".equals(referenceType)) {
+                throw new RuntimeException("Only officers can attach files to a " + referenceType);
+            }
+            reference.addCriteria(Criteria.where("reportedBy").is(userId));
+        }
+        if (!mongoTemplate.exists(reference, collection)) {
+            throw new RuntimeException("No " + referenceType + " found with id: " + referenceId);
+        }
+
+        // Known lengths are rejected before reading; chunked uploads are cut off once they pass the limit
+        long allowed = Math.min(maxFileSize, quotaBytes - usage(userId));
+        if (allowed <= 0 || contentLength > allowed) {
+            throw new RuntimeException(contentLength > maxFileSize
+                    ? "File exceeds the limit of " + maxFileSize + " bytes"
+                    : "Attachment quota of " + quotaBytes + " bytes exceeded");
+        }
+
+        ContentStore.Staged staged;
+        try {
+            staged = contentStore.write(content, allowed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // The check above only rejects early; concurrent uploads are held to the quota by the conditional reservation
+        if (!reserve(userId, staged.size())) {
+            contentStore.discard(staged);
+            throw new RuntimeException("Attachment quota of " + quotaBytes + " bytes exceeded");
+        }
+
+        Attachment attachment = new Attachment();
+        attachment.setSha256(staged.sha256());
+        attachment.setSize(staged.size());
+        attachment.setFileName(fileName);
+        attachment.setContentType(contentType != null ? contentType : "application/octet-stream");
+        attachment.setOwnerId(userId);
+        attachment.setReferenceType(referenceType);
+        attachment.setReferenceId(referenceId);
+        attachment.setRenditionStatus(attachment.getContentType().startsWith("image/") ? "pending" : null);
+        attachment.setCreatedAt(LocalDateTime.now());
+        try {
+            synchronized (contentStore.lock(staged.sha256())) {
+                contentStore.commit(staged);
+                try {
+                    attachment = attachmentRepository.save(attachment);
+                } catch (RuntimeException e) {
+                    // Drop the file just committed unless an earlier upload of the same content still uses it
+                    if (!attachmentRepository.existsBySha256(staged.sha256())) {
+                        contentStore.delete(staged.sha256());
+                    }
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            reserve(userId, -staged.size());
+            throw e;
+        } finally {
+            contentStore.discard(staged);
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(referenceId)),
+                new Update().push("attachments", attachment.getId()).set("updatedAt", LocalDateTime.now()), collection);
+        attachmentRenditionService.request(attachment);
+        return attachment;
+    }
+
+    @Override
+    public Attachment findById(String id, String userId, boolean privileged) {
+        return attachmentRepository.findById(id)
+                .filter(a -> privileged || a.getOwnerId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Attachment not found with id: " + id));
+    }
+
+    @Override
+    public List<Attachment> findByReference(String referenceType, String referenceId) {
+        collection(referenceType);
+        return attachmentRepository.findByReferenceTypeAndReferenceId(referenceType, referenceId);
+    }
+
+    @Override
+    public Path contentPath(Attachment attachment) {
+        return contentStore.path(attachment.getSha256());
+    }
+
+    @Override
+    public Path renditionPath(Attachment attachment, String name) {
+        if (!attachment.getRenditions().contains(name)) {
+            throw new RuntimeException("No " + name + " rendition for attachment: " + attachment.getId());
+        }
+        return contentStore.renditionPath(attachment.getSha256(), name);
+    }
+
+    @Override
+    public void delete(String id, String userId, boolean admin) {
+        Attachment attachment = findById(id, userId, admin);
+        synchronized (contentStore.lock(attachment.getSha256())) {
+            attachmentRepository.delete(attachment);
+            if (!attachmentRepository.existsBySha256(attachment.getSha256())) {
+                contentStore.delete(attachment.getSha256());
+            }
+        }
+        reserve(attachment.getOwnerId(), -attachment.getSize());
+
+        String collection = collection(attachment.getReferenceType());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(attachment.getReferenceId())),
+                new Update().pull("attachments", attachment.getId()).set("updatedAt", LocalDateTime.now()), collection);
+    }
+
+    private long usage(String userId) {
+        AttachmentUsage usage = mongoTemplate.findById(userId, AttachmentUsage.class);
+        if (usage != null) {
+            return usage.getBytes();
+        }
+        // First upload since usage has been tracked: seed the counter from the stored attachments
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("ownerId").is(userId)),
+                Aggregation.group().sum("size").as("total"));
+        Document result = mongoTemplate.aggregate(aggregation, Attachment.class, Document.class).getUniqueMappedResult();
+        usage = new AttachmentUsage();
+        usage.setId(userId);
+        usage.setBytes(result != null && result.get("total") instanceof Number total ? total.longValue() : 0);
+        try {
+            mongoTemplate.insert(usage);
+        } catch (DuplicateKeyException e) {
+            // Seeded by a concurrent upload
+            return mongoTemplate.findById(userId, AttachmentUsage.class).getBytes();
+        }
+        return usage.getBytes();
+    }
+
+    // Adds to the user's usage unless that would pass the quota; negative amounts always apply
+    private boolean reserve(String userId, long bytes) {
+        Criteria criteria = Criteria.where("_id").is(userId);
+        if (bytes > 0) {
+            criteria.and("bytes").lte(quotaBytes - bytes);
+        }
+        return mongoTemplate.updateFirst(Query.query(criteria), new Update().inc("bytes", bytes), AttachmentUsage.class)
+                .getMatchedCount() > 0;
+    }
+
+    private static String collection(String referenceType) {
+        String collection = COLLECTIONS.get(referenceType);
+        if (collection == null) {
+            throw new RuntimeException("Unknown attachment reference type: " + referenceType);
+        }
+        return collection;
+    }
+}
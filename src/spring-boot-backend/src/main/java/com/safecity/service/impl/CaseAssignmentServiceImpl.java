@@ -0,0 +1,246 @@
+package com.safecity.service.impl;
+
+import com.safecity.assignment.WorkloadIndex;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.UserChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.User;
+import com.safecity.repository.UserRepository;
+import com.safecity.service.CaseAssignmentService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Assigns new cases to the least loaded officer posted to the case's district, by weighted
+ * open workload, keeping the index current from case and user change events. A periodic job
+ * rebuilds the index from Mongo, hands out cases that were filed while no officer was known,
+ * and moves not-yet-started automatic assignments from the heaviest to the lightest officer
+ * of a district while the gap between them is above the threshold.
+ */
+@Service
+public class CaseAssignmentServiceImpl implements CaseAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaseAssignmentServiceImpl.class);
+
+    private static final List<String> PRIORITIES = List.of("high", "medium", "low");
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${assignment.rebalance.threshold}")
+    private long rebalanceThreshold;
+
+    @Value("${assignment.rebalance.max-moves}")
+    private int maxMoves;
+
+    private final WorkloadIndex index;
+
+    // Events applied to the index so far; guarded by the index's monitor
+    private long changes;
+
+    public CaseAssignmentServiceImpl(
+            @Value("${assignment.weight.high}") int highWeight,
+            @Value("${assignment.weight.medium}") int mediumWeight,
+            @Value("${assignment.weight.low}") int lowWeight) {
+        this.index = new WorkloadIndex(highWeight, mediumWeight, lowWeight);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild(true);
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        Case before = event.before();
+        Case after = event.after();
+        synchronized (index) {
+            changes++;
+            if (isOpen(before)) {
+                index.adjust(before.getAssignedTo(), before.getPriority(), -1);
+            }
+            if (isOpen(after)) {
+                index.adjust(after.getAssignedTo(), after.getPriority(), 1);
+            }
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        User after = event.after();
+        synchronized (index) {
+            changes++;
+            if (after != null && isAssignable(after)) {
+                index.putOfficer(after.getId(), after.getDistrict());
+            } else if (after != null) {
+                index.removeOfficer(after.getId());
+            } else if (event.before() != null) {
+                index.removeOfficer(event.before().getId());
+            }
+        }
+    }
+
+    @Override
+    public String pickAssignee(String district) {
+        return index.pick(district);
+    }
+
+    @Override
+    public List<WorkloadIndex.Load> getWorkloads(String officerId) {
+        List<WorkloadIndex.Load> loads = index.loads();
+        return officerId == null ? loads : loads.stream().filter(load -> load.officerId().equals(officerId)).toList();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${assignment.rebalance.interval-ms}",
+            initialDelayString = "${assignment.rebalance.interval-ms}")
+    public void rebalance() {
+        rebuild(false);
+        int moved = assignUnassigned();
+        for (String district : index.districts()) {
+            while (moved < maxMoves) {
+                WorkloadIndex.Load heaviest = index.heaviest(district);
+                WorkloadIndex.Load lightest = index.lightest(district);
+                if (heaviest == null || lightest == null) {
+                    break;
+                }
+                long gap = heaviest.score() - lightest.score();
+                if (gap <= rebalanceThreshold) {
+                    break;
+                }
+                // Moving a case of weight w only narrows the gap when w is less than the gap
+                List<String> movable = new ArrayList<>();
+                for (String priority : PRIORITIES) {
+                    if (index.weight(priority) < gap) {
+                        movable.add(priority);
+                    }
+                }
+                if (movable.contains("medium")) {
+                    movable.add(null);
+                }
+                Query candidate = Query.query(Criteria.where("assignedTo").is(heaviest.officerId())
+                                .and("status").is("new")
+                                .and("autoAssigned").is(true)
+                                .and("priority").in(movable))
+                        .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+                candidate.fields().include("_id");
+                Case found = mongoTemplate.findOne(candidate, Case.class);
+                if (found == null || !reassign(found.getId(), heaviest.officerId(), lightest.officerId())) {
+                    break;
+                }
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            logger.info("Case rebalancing moved or assigned {} cases", moved);
+        }
+    }
+
+    /**
+     * Reads officers and open cases and swaps them in, unless an event was applied meanwhile:
+     * the read may or may not include that event's change, so swapping could lose it or count
+     * it twice. The live index is kept instead and the read retried; at startup the last
+     * attempt swaps regardless, as the index has nothing to keep yet.
+     */
+    private void rebuild(boolean required) {
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            long seen;
+            synchronized (index) {
+                seen = changes;
+            }
+            Map<String, String> postings = new HashMap<>();
+            for (User officer : userRepository.findByRoleAndActiveTrue("officer")) {
+                postings.put(officer.getId(), officer.getDistrict());
+            }
+            Query open = Query.query(Criteria.where("assignedTo").ne(null).and("status").nin("resolved", "closed"));
+            open.fields().include("assignedTo", "priority");
+            List<String[]> openCases = new ArrayList<>();
+            try (Stream<Document> documents = mongoTemplate.stream(open, Document.class, "cases")) {
+                documents.forEach(document -> openCases.add(
+                        new String[]{document.getString("assignedTo"), document.getString("priority")}));
+            }
+            synchronized (index) {
+                if (changes == seen || (required && attempt == REBUILD_ATTEMPTS)) {
+                    index.replaceAll(postings, openCases);
+                    logger.debug("Rebuilt workload index with {} officers and {} open cases", postings.size(), openCases.size());
+                    return;
+                }
+            }
+        }
+        logger.debug("Kept the live workload index; changes arrived during each of {} rebuilds", REBUILD_ATTEMPTS);
+    }
+
+    private int assignUnassigned() {
+        int assigned = 0;
+        Query unassigned = Query.query(Criteria.where("assignedTo").is(null).and("status").is("new"));
+        unassigned.fields().include("_id", "district");
+        unassigned.limit(maxMoves);
+        for (Case found : mongoTemplate.find(unassigned, Case.class)) {
+            String assignee = index.pick(found.getDistrict());
+            if (assignee == null) {
+                break;
+            }
+            if (reassign(found.getId(), null, assignee)) {
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+
+    // Conditional on the case still being new and with the same assignee, so work already started stays put
+    private boolean reassign(String caseId, String from, String to) {
+        Query query = Query.query(Criteria.where("_id").is(caseId).and("assignedTo").is(from).and("status").is("new"));
+        Update update = new Update().set("assignedTo", to).set("autoAssigned", true).set("updatedAt", LocalDateTime.now());
+        Case after = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Case.class);
+        if (after == null) {
+            return false;
+        }
+        Case before = new Case();
+        BeanUtils.copyProperties(after, before);
+        before.setNotes(new ArrayList<>(after.getNotes()));
+        before.setAttachments(new ArrayList<>(after.getAttachments()));
+        before.setAssignedTo(from);
+        eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.UPDATED, before, after));
+        return true;
+    }
+
+    private static boolean isOpen(Case caseObj) {
+        return caseObj != null && caseObj.getAssignedTo() != null
+                && !"resolved".equals(caseObj.getStatus()) && !"closed".equals(caseObj.getStatus());
+    }
+
+    private static boolean isAssignable(User user) {
+        return "officer".equals(user.getRole()) && user.isActive();
+    }
+}
@@ -0,0 +1,272 @@
+package com.safecity.service.impl;
+
+import com.safecity.escalation.TimingWheel;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.model.Case;
+import com.safecity.model.Notification;
+import com.safecity.model.User;
+import com.safecity.repository.UserRepository;
+import com.safecity.service.CaseEscalationService;
+import com.safecity.service.NotificationService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Escalates open cases that outlive their priority's deadline: low goes to medium, medium to
+ * high, and high stays high, and each escalation notifies the admins and the assignee. Every
+ * open case has one timer in a hierarchical timing wheel, set from the latest of its report,
+ * creation and last escalation; case events re-arm or cancel it, so a case that changes
+ * status or priority never needs a scan. The wheel is filled from Mongo once the application
+ * is ready, and due timers are handled in batches of conditional bulk updates.
+ *
+ * A high-priority case that stays open is announced again every high-priority period, since
+ * each escalation restarts its deadline. Every instance keeps its own wheel and fires the
+ * same deadlines. A fired case is escalated only if the copy read then is still past its
+ * deadline, and the update is conditional on the priority and escalatedAt in that copy; so
+ * of instances firing together one escalates and notifies, and any instance that fires
+ * later reads the new stamp and re-arms instead.
+ */
+@Service
+public class CaseEscalationServiceImpl implements CaseEscalationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaseEscalationServiceImpl.class);
+
+    // A 64-slot level each; with one-second ticks four levels span about 194 days
+    private static final int LEVELS = 4;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${escalation.enabled}")
+    private boolean enabled;
+
+    @Value("${escalation.batch-size}")
+    private int batchSize;
+
+    @Value("${escalation.after-hours.high}")
+    private long afterHoursHigh;
+
+    @Value("${escalation.after-hours.medium}")
+    private long afterHoursMedium;
+
+    @Value("${escalation.after-hours.low}")
+    private long afterHoursLow;
+
+    private final TimingWheel<String> wheel;
+
+    public CaseEscalationServiceImpl(@Value("${escalation.tick-ms}") long tickMillis) {
+        this.wheel = new TimingWheel<>(tickMillis, LEVELS, System.currentTimeMillis());
+    }
+
+    // Cases changed while this runs may be re-armed from the older copy; firing re-reads the case, so that is harmless
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Query open = Query.query(Criteria.where("status").nin("resolved", "closed"));
+        open.fields().include("_id", "priority", "createdAt", "reportedAt", "escalatedAt");
+        int loaded = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(open, Document.class, "cases")) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                String priority = document.getString("priority");
+                Date since = latest(document.getDate("escalatedAt"), document.getDate("reportedAt"), document.getDate("createdAt"));
+                long base = since != null ? since.getTime() : System.currentTimeMillis();
+                wheel.schedule(document.getObjectId("_id").toHexString(), base + afterMillis(priority), priority);
+                loaded++;
+            }
+        }
+        logger.info("Scheduled SLA escalation for {} open cases", loaded);
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Case after = event.after();
+        if (after == null || isDone(after.getStatus())) {
+            wheel.cancel(after != null ? after.getId() : event.before().getId());
+            return;
+        }
+        wheel.schedule(after.getId(), deadline(after), after.getPriority());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${escalation.tick-ms}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<TimingWheel.Expired<String>> expired = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<String> ids = new ArrayList<>();
+            for (TimingWheel.Expired<String> timer : expired.subList(from, Math.min(from + batchSize, expired.size()))) {
+                ids.add(timer.key());
+            }
+            try {
+                escalate(ids);
+            } catch (RuntimeException e) {
+                // Re-arm so the batch is retried later; cases already escalated were re-armed by their event
+                logger.warn("Case escalation failed for {} cases, retrying in a minute", ids.size(), e);
+                long retryAt = System.currentTimeMillis() + Duration.ofMinutes(1).toMillis();
+                for (String id : ids) {
+                    if (!wheel.contains(id)) {
+                        wheel.schedule(id, retryAt, null);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    private void escalate(List<String> ids) {
+        Query due = Query.query(Criteria.where("_id").in(ids).and("status").nin("resolved", "closed"));
+        List<Case> cases = mongoTemplate.find(due, Case.class);
+        if (cases.isEmpty()) {
+            return;
+        }
+
+        // Mongo keeps milliseconds, so the stamp is truncated to find the updated cases by it afterwards
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, Case> befores = new HashMap<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Case.class);
+        long nowMillis = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (Case caseObj : cases) {
+            // A timer armed from an older copy, or a retry, can fire after another instance already escalated the case
+            long deadline = deadline(caseObj);
+            if (deadline > nowMillis) {
+                wheel.schedule(caseObj.getId(), deadline, caseObj.getPriority());
+                continue;
+            }
+            // Conditional on what was read above, so a concurrent edit or another instance's escalation wins
+            Query query = Query.query(Criteria.where("_id").is(caseObj.getId())
+                    .and("priority").is(caseObj.getPriority())
+                    .and("escalatedAt").is(caseObj.getEscalatedAt())
+                    .and("status").nin("resolved", "closed"));
+            bulk.updateOne(query, new Update()
+                    .set("priority", raise(caseObj.getPriority()))
+                    .set("escalatedAt", now)
+                    .set("updatedAt", now));
+            befores.put(caseObj.getId(), caseObj);
+        }
+        if (befores.isEmpty()) {
+            return;
+        }
+        bulk.execute();
+
+        List<Case> escalated = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(befores.keySet()).and("escalatedAt").is(now)), Case.class);
+        // Cases changed elsewhere only publish their event on that instance, so re-arm them here from the stored copy
+        List<String> lost = new ArrayList<>(befores.keySet());
+        lost.removeAll(escalated.stream().map(Case::getId).toList());
+        if (!lost.isEmpty()) {
+            for (Case current : mongoTemplate.find(Query.query(Criteria.where("_id").in(lost)), Case.class)) {
+                if (!isDone(current.getStatus())) {
+                    wheel.schedule(current.getId(), deadline(current), current.getPriority());
+                }
+            }
+        }
+        List<String> supervisors = userRepository.findByRoleAndActiveTrue("admin").stream().map(User::getId).toList();
+        List<Notification> notifications = new ArrayList<>();
+        for (Case after : escalated) {
+            Case before = befores.get(after.getId());
+            eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.UPDATED, before, after));
+            String title = "Case " + after.getCaseNumber() + (after.getPriority().equals(before.getPriority())
+                    ? " is overdue at " + after.getPriority() + " priority"
+                    : " escalated to " + after.getPriority() + " priority");
+            for (String supervisor : supervisors) {
+                notifications.add(notification(supervisor, title, after));
+            }
+            if (after.getAssignedTo() != null && !supervisors.contains(after.getAssignedTo())) {
+                notifications.add(notification(after.getAssignedTo(), title, after));
+            }
+        }
+        notificationService.sendAll(notifications);
+        if (!escalated.isEmpty()) {
+            logger.info("Escalated {} overdue cases", escalated.size());
+        }
+    }
+
+    private long deadline(Case caseObj) {
+        LocalDateTime since = latest(caseObj.getEscalatedAt(), caseObj.getReportedAt(), caseObj.getCreatedAt());
+        long base = since != null ? since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+        return base + afterMillis(caseObj.getPriority());
+    }
+
+    private long afterMillis(String priority) {
+        if ("high".equals(priority)) {
+            return Duration.ofHours(afterHoursHigh).toMillis();
+        }
+        return Duration.ofHours("low".equals(priority) ? afterHoursLow : afterHoursMedium).toMillis();
+    }
+
+    private static Notification notification(String userId, String title, Case caseObj) {
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setType("escalation");
+        notification.setTitle(title);
+        notification.setMessage(caseObj.getTitle());
+        notification.setReferenceType("case");
+        notification.setReferenceId(caseObj.getId());
+        return notification;
+    }
+
+    // Unknown or missing priorities are treated as medium, as everywhere else
+    private static String raise(String priority) {
+        return "low".equals(priority) ? "medium" : "high";
+    }
+
+    @SafeVarargs
+    private static <T extends Comparable<? super T>> T latest(T... values) {
+        T latest = null;
+        for (T value : values) {
+            if (value != null && (latest == null || value.compareTo(latest) > 0)) {
+                latest = value;
+            }
+        }
+        return latest;
+    }
+
+    private static boolean isDone(String status) {
+        return "resolved".equals(status) || "closed".equals(status);
+    }
+}
@@ -0,0 +1,325 @@
+package com.safecity.service.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.model.Case;
+import com.safecity.model.CaseEvent;
+import com.safecity.model.CaseEventDeadLetter;
+import com.safecity.model.CaseNote;
+import com.safecity.model.Counter;
+import com.safecity.repository.CaseRepository;
+import com.safecity.security.UserDetailsImpl;
+import com.safecity.service.CaseJournalService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Append-only history of every case: one event per create, update, note and delete, holding
+ * only the fields that changed with their old and new values. Events are queued by the
+ * change listener and written in bulk by a single background thread, so journaling adds no
+ * Mongo round trip to the write path. Keeping old values lets any past state be rebuilt by
+ * walking back from the current document.
+ *
+ * Sequence numbers come from a shared counter, one increment per batch, so every instance
+ * draws from the same series. A batch that fails is kept and retried until it is written.
+ */
+@Service
+public class CaseJournalServiceImpl implements CaseJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaseJournalServiceImpl.class);
+
+    private static final String COUNTER = "case_events";
+
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    private static final Map<String, Function<Case, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("title", Case::getTitle);
+        FIELDS.put("description", Case::getDescription);
+        FIELDS.put("status", Case::getStatus);
+        FIELDS.put("priority", Case::getPriority);
+        FIELDS.put("type", Case::getType);
+        FIELDS.put("location", Case::getLocation);
+        FIELDS.put("district", Case::getDistrict);
+        FIELDS.put("state", Case::getState);
+        FIELDS.put("latitude", Case::getLatitude);
+        FIELDS.put("longitude", Case::getLongitude);
+        FIELDS.put("complainant", Case::getComplainant);
+        FIELDS.put("complainantContact", Case::getComplainantContact);
+        FIELDS.put("assignedTo", Case::getAssignedTo);
+        FIELDS.put("resolvedAt", Case::getResolvedAt);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CaseRepository caseRepository;
+
+    @Value("${case-journal.batch-size}")
+    private int batchSize;
+
+    @Value("${case-journal.queue-capacity}")
+    private int queueCapacity;
+
+    private BlockingQueue<CaseEvent> queue;
+
+    // Events the writer had taken but not written when it stopped
+    private final List<CaseEvent> unwritten = new ArrayList<>();
+
+    private Thread writer;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        // Journals written before the counter existed numbered their events themselves; continue after them
+        Query last = new Query().with(Sort.by(Sort.Direction.DESC, "seq")).limit(1);
+        last.fields().include("seq");
+        CaseEvent lastEvent = mongoTemplate.findOne(last, CaseEvent.class);
+        if (lastEvent != null) {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(COUNTER)), new Update().max("seq", lastEvent.getSeq()), Counter.class);
+        }
+
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drain, "case-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        List<CaseEvent> remaining = new ArrayList<>(unwritten);
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try {
+            write(remaining);
+        } catch (RuntimeException e) {
+            logger.error("Lost {} case journal events at shutdown: {}", remaining.size(), e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        String actor = currentActor();
+        LocalDateTime now = LocalDateTime.now();
+        Case before = event.before();
+        Case after = event.after();
+
+        if (event.type() == ChangeType.CREATED) {
+            enqueue(after.getId(), "created", actor, now, diff(null, after));
+            return;
+        }
+        if (event.type() == ChangeType.DELETED) {
+            enqueue(before.getId(), "deleted", actor, now, diff(before, null));
+            return;
+        }
+
+        List<CaseEvent.Change> changes = diff(before, after);
+        if (!changes.isEmpty()) {
+            String kind = "updated";
+            if (changes.size() == 1 && changes.get(0).getField().equals("assignedTo")) {
+                kind = "assigned";
+            } else if (changes.size() == 1 && changes.get(0).getField().equals("status")) {
+                kind = "status";
+            }
+            enqueue(after.getId(), kind, actor, now, changes);
+        }
+
+        Set<String> existingNotes = new HashSet<>();
+        for (CaseNote note : before.getNotes()) {
+            existingNotes.add(note.getId());
+        }
+        for (CaseNote note : after.getNotes()) {
+            if (!existingNotes.contains(note.getId())) {
+                enqueue(after.getId(), "note", note.getCreatedBy() != null ? note.getCreatedBy() : actor, now,
+                        List.of(new CaseEvent.Change("note", null, note.getContent())));
+            }
+        }
+    }
+
+    @Override
+    public List<CaseEvent> getTimeline(String caseId, Long beforeSeq, int limit) {
+        Criteria criteria = Criteria.where("caseId").is(caseId);
+        if (beforeSeq != null) {
+            criteria = criteria.and("seq").lt(beforeSeq);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "seq")).limit(limit);
+        return mongoTemplate.find(query, CaseEvent.class);
+    }
+
+    @Override
+    public Map<String, Object> getStateAt(String caseId, LocalDateTime at) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        Case current = caseRepository.findById(caseId).orElse(null);
+        if (current != null) {
+            FIELDS.forEach((field, getter) -> state.put(field, getter.apply(current)));
+        }
+
+        // Undo, newest first, everything that happened after the requested time
+        Query later = Query.query(Criteria.where("caseId").is(caseId).and("at").gt(at))
+                .with(Sort.by(Sort.Direction.DESC, "seq"));
+        boolean journaled = false;
+        for (CaseEvent event : mongoTemplate.find(later, CaseEvent.class)) {
+            journaled = true;
+            if (event.getKind().equals("created")) {
+                throw new RuntimeException("Case " + caseId + " did not exist at " + at);
+            }
+            for (CaseEvent.Change change : event.getChanges()) {
+                if (FIELDS.containsKey(change.getField())) {
+                    state.put(change.getField(), change.getFrom());
+                }
+            }
+        }
+        if (current == null && !journaled) {
+            throw new RuntimeException("Case not found with id: " + caseId);
+        }
+        return state;
+    }
+
+    private void enqueue(String caseId, String kind, String actor, LocalDateTime at, List<CaseEvent.Change> changes) {
+        CaseEvent event = new CaseEvent();
+        event.setCaseId(caseId);
+        event.setKind(kind);
+        event.setActor(actor);
+        event.setAt(at);
+        event.setChanges(changes);
+        if (!queue.offer(event)) {
+            // Only when the writer has fallen far behind; waiting keeps the event, and its place in the case's order
+            logger.warn("Case journal queue is full, waiting to queue event for {}", caseId);
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while queueing case journal event for {}", caseId);
+            }
+        }
+    }
+
+    private void drain() {
+        List<CaseEvent> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    CaseEvent first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                write(batch);
+                batch.clear();
+                failures = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                failures++;
+                logger.warn("Failed to write {} case journal events (attempt {}), retrying: {}", batch.size(), failures, e.getMessage());
+                try {
+                    Thread.sleep(Math.min(MAX_BACKOFF_MS, 200L * failures));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        unwritten.addAll(batch);
+    }
+
+    /**
+     * Numbers the events not yet numbered and inserts them. Each event keeps its ID and sequence
+     * number across retries, so events a failed attempt did store come back as duplicates and
+     * are skipped. An event Mongo rejects for any other reason is moved to case_event_dead_letters.
+     */
+    private void write(List<CaseEvent> events) {
+        List<CaseEvent> unnumbered = events.stream().filter(event -> event.getSeq() == 0).toList();
+        if (!unnumbered.isEmpty()) {
+            Counter counter = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(COUNTER)),
+                    new Update().inc("seq", unnumbered.size()), FindAndModifyOptions.options().returnNew(true).upsert(true), Counter.class);
+            long seq = counter.getSeq() - unnumbered.size();
+            for (CaseEvent event : unnumbered) {
+                event.setSeq(++seq);
+                event.setId(new ObjectId().toHexString());
+            }
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CaseEvent.class).insert(events).execute();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().isEmpty()) {
+                throw e;
+            }
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != 11000) {
+                    CaseEvent event = events.get(error.getIndex());
+                    CaseEventDeadLetter deadLetter = new CaseEventDeadLetter();
+                    deadLetter.setId(event.getId());
+                    deadLetter.setEvent(event);
+                    deadLetter.setError(error.getMessage());
+                    deadLetter.setFailedAt(LocalDateTime.now());
+                    mongoTemplate.save(deadLetter);
+                    logger.error("Moved case journal event {} for {} to dead letters: {}", event.getSeq(), event.getCaseId(), error.getMessage());
+                }
+            }
+        }
+    }
+
+    private static List<CaseEvent.Change> diff(Case before, Case after) {
+        List<CaseEvent.Change> changes = new ArrayList<>();
+        for (Map.Entry<String, Function<Case, Object>> field : FIELDS.entrySet()) {
+            Object from = before != null ? field.getValue().apply(before) : null;
+            Object to = after != null ? field.getValue().apply(after) : null;
+            if (!Objects.equals(from, to)) {
+                changes.add(new CaseEvent.Change(field.getKey(), from, to));
+            }
+        }
+        return changes;
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails.getId();
+        }
+        return "system";
+    }
+}
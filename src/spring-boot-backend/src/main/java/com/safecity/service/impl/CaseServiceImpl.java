@@ -1,17 +1,25 @@
 
 package com.safecity.service.impl;
 
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.geo.ReverseGeocoder;
 import com.safecity.model.Case;
 import com.safecity.model.CaseNote;
 import com.safecity.payload.request.CaseRequest;
 import com.safecity.repository.CaseRepository;
+import com.safecity.service.CaseAssignmentService;
 import com.safecity.service.CaseService;
+import com.safecity.service.ReverseGeocodingService;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -20,6 +28,15 @@ public class CaseServiceImpl implements CaseService {
     @Autowired
     private CaseRepository caseRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ReverseGeocodingService reverseGeocodingService;
+    
+    @Autowired
+    private CaseAssignmentService caseAssignmentService;
+    
     @Override
     public Page<Case> findAll(Pageable pageable) {
         return caseRepository.findAll(pageable);
@@ -64,12 +81,22 @@ public class CaseServiceImpl implements CaseService {
     
     @Override
     public Case save(Case caseObj) {
-        return caseRepository.save(caseObj);
+        assignRegion(caseObj);
+        // New cases without an assignee go to the least loaded officer, picked once the district is known
+        if (caseObj.getAssignedTo() == null) {
+            caseObj.setAssignedTo(caseAssignmentService.pickAssignee(caseObj.getDistrict()));
+            caseObj.setAutoAssigned(caseObj.getAssignedTo() != null);
+        }
+        // Always a new case (edits go through update), so there is no stored copy to look up
+        Case savedCase = caseRepository.insert(caseObj);
+        eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.CREATED, null, savedCase));
+        return savedCase;
     }
     
     @Override
     public Case update(String id, CaseRequest caseRequest) {
         Case existingCase = findById(id);
+        Case before = snapshot(existingCase);
         
         if (caseRequest.getTitle() != null) {
             existingCase.setTitle(caseRequest.getTitle());
@@ -78,11 +105,14 @@ public class CaseServiceImpl implements CaseService {
             existingCase.setDescription(caseRequest.getDescription());
         }
         if (caseRequest.getStatus() != null) {
+            boolean wasDone = isDone(existingCase.getStatus());
             existingCase.setStatus(caseRequest.getStatus());
             
-            // Update resolved time if case is being marked as resolved
-            if ("resolved".equals(caseRequest.getStatus())) {
+            // Stamp the resolution once when the case is closed out, and drop it if the case is reopened
+            if (isDone(caseRequest.getStatus()) && !wasDone) {
                 existingCase.setResolvedAt(LocalDateTime.now());
+            } else if (!isDone(caseRequest.getStatus())) {
+                existingCase.setResolvedAt(null);
             }
         }
         if (caseRequest.getPriority() != null) {
@@ -112,23 +142,56 @@ public class CaseServiceImpl implements CaseService {
         if (caseRequest.getComplainantContact() != null) {
             existingCase.setComplainantContact(caseRequest.getComplainantContact());
         }
-        if (caseRequest.getAssignedTo() != null) {
+        if (caseRequest.getAssignedTo() != null && !caseRequest.getAssignedTo().equals(existingCase.getAssignedTo())) {
             existingCase.setAssignedTo(caseRequest.getAssignedTo());
+            // A manual assignment is never moved by rebalancing
+            existingCase.setAutoAssigned(false);
         }
+        assignRegion(existingCase);
         
-        return caseRepository.save(existingCase);
+        Case savedCase = caseRepository.save(existingCase);
+        eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.UPDATED, before, savedCase));
+        return savedCase;
     }
     
     @Override
     public Case addNote(String id, CaseNote note) {
         Case existingCase = findById(id);
+        Case before = snapshot(existingCase);
         note.setCreatedAt(LocalDateTime.now());
         existingCase.getNotes().add(note);
-        return caseRepository.save(existingCase);
+        Case savedCase = caseRepository.save(existingCase);
+        eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.UPDATED, before, savedCase));
+        return savedCase;
     }
     
     @Override
     public void deleteById(String id) {
-        caseRepository.deleteById(id);
+        caseRepository.findById(id).ifPresent(existingCase -> {
+            caseRepository.deleteById(id);
+            eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.DELETED, existingCase, null));
+        });
+    }
+    
+    // District and state follow the coordinates when they fall inside a known boundary
+    private void assignRegion(Case caseObj) {
+        ReverseGeocoder.Region region = reverseGeocodingService.lookup(caseObj.getLatitude(), caseObj.getLongitude());
+        if (region != null) {
+            caseObj.setDistrict(region.district());
+            caseObj.setState(region.state());
+        }
+    }
+    
+    // Copy taken before in-place edits so listeners can compare old and new values
+    private static Case snapshot(Case caseObj) {
+        Case copy = new Case();
+        BeanUtils.copyProperties(caseObj, copy);
+        copy.setNotes(new ArrayList<>(caseObj.getNotes()));
+        copy.setAttachments(new ArrayList<>(caseObj.getAttachments()));
+        return copy;
+    }
+
+    private static boolean isDone(String status) {
+        return "resolved".equals(status) || "closed".equals(status);
     }
 }
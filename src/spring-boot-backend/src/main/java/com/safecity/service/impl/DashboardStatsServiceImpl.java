@@ -0,0 +1,212 @@
+package com.safecity.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.Incident;
+import com.safecity.model.Report;
+import com.safecity.payload.response.DashboardCacheStatsResponse;
+import com.safecity.service.DashboardStatsService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Counts behind the dashboard stat cards: for cases, reports and incidents, the number of
+ * documents per value of a field, overall or within one district (or, for cases, one
+ * assignee). Each breakdown is one Mongo group-by on first use and is then kept current by
+ * applying change events to it in place. A load racing a write can miss or double count
+ * it, so a periodic job recomputes every cached breakdown and corrects any drift.
+ */
+@Service
+public class DashboardStatsServiceImpl implements DashboardStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsServiceImpl.class);
+
+    private static final String NONE = "none";
+
+    // scopeField and scopeValue are null for the unscoped breakdown
+    private record StatKey(String collection, String field, String scopeField, String scopeValue) {
+    }
+
+    private record Field<T>(String name, Function<T, String> getter) {
+    }
+
+    // Fields that get a breakdown, and fields a breakdown can be scoped to
+    private record Dimensions<T>(String collection, List<Field<T>> fields, List<Field<T>> scopes) {
+    }
+
+    private static final Dimensions<Case> CASES = new Dimensions<>("cases",
+            List.of(new Field<>("status", Case::getStatus), new Field<>("priority", Case::getPriority),
+                    new Field<>("type", Case::getType), new Field<>("district", Case::getDistrict)),
+            List.of(new Field<>("district", Case::getDistrict), new Field<>("assignedTo", Case::getAssignedTo)));
+
+    private static final Dimensions<Report> REPORTS = new Dimensions<>("reports",
+            List.of(new Field<>("status", Report::getStatus), new Field<>("priority", Report::getPriority),
+                    new Field<>("reportType", Report::getReportType), new Field<>("district", Report::getDistrict)),
+            List.of(new Field<>("district", Report::getDistrict)));
+
+    private static final Dimensions<Incident> INCIDENTS = new Dimensions<>("incidents",
+            List.of(new Field<>("status", Incident::getStatus), new Field<>("severity", Incident::getSeverity),
+                    new Field<>("incidentType", Incident::getIncidentType), new Field<>("district", Incident::getDistrict)),
+            List.of(new Field<>("district", Incident::getDistrict)));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Cache<StatKey, Map<String, AtomicLong>> cache;
+
+    private final AtomicLong reconciliations = new AtomicLong();
+
+    private final AtomicLong corrections = new AtomicLong();
+
+    public DashboardStatsServiceImpl(@Value("${analytics.dashboard.cache-size}") long cacheSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Map<String, Map<String, Map<String, Long>>> getStats(String district, String assignedTo) {
+        Map<String, Map<String, Map<String, Long>>> stats = new LinkedHashMap<>();
+        if (assignedTo != null) {
+            // Assignee scope only exists for cases
+            stats.put(CASES.collection(), breakdowns(CASES, "assignedTo", assignedTo));
+            return stats;
+        }
+        String scopeField = district != null ? "district" : null;
+        stats.put(CASES.collection(), breakdowns(CASES, scopeField, district));
+        stats.put(REPORTS.collection(), breakdowns(REPORTS, scopeField, district));
+        stats.put(INCIDENTS.collection(), breakdowns(INCIDENTS, scopeField, district));
+        return stats;
+    }
+
+    @Override
+    public DashboardCacheStatsResponse getCacheStats() {
+        CacheStats stats = cache.stats();
+        return new DashboardCacheStatsResponse(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), reconciliations.get(), corrections.get());
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        apply(CASES, event.before(), event.after());
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        apply(REPORTS, event.before(), event.after());
+    }
+
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        apply(INCIDENTS, event.before(), event.after());
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.dashboard.reconcile-interval-ms}")
+    public void reconcile() {
+        for (Map.Entry<StatKey, Map<String, AtomicLong>> entry : cache.asMap().entrySet()) {
+            Map<String, AtomicLong> fresh = load(entry.getKey());
+            Map<String, AtomicLong> counts = entry.getValue();
+            for (Map.Entry<String, AtomicLong> count : counts.entrySet()) {
+                AtomicLong actual = fresh.get(count.getKey());
+                long expected = actual != null ? actual.get() : 0;
+                if (count.getValue().getAndSet(expected) != expected) {
+                    corrections.incrementAndGet();
+                    logger.debug("Corrected {} {}={}", entry.getKey(), count.getKey(), expected);
+                }
+            }
+            for (Map.Entry<String, AtomicLong> actual : fresh.entrySet()) {
+                if (counts.putIfAbsent(actual.getKey(), actual.getValue()) == null) {
+                    corrections.incrementAndGet();
+                }
+            }
+        }
+        reconciliations.incrementAndGet();
+    }
+
+    private <T> Map<String, Map<String, Long>> breakdowns(Dimensions<T> dimensions, String scopeField, String scopeValue) {
+        Map<String, Map<String, Long>> breakdowns = new LinkedHashMap<>();
+        for (Field<T> field : dimensions.fields()) {
+            if (field.name().equals(scopeField)) {
+                continue;
+            }
+            Map<String, AtomicLong> counts = cache.get(new StatKey(dimensions.collection(), field.name(), scopeField, scopeValue), this::load);
+            Map<String, Long> snapshot = new TreeMap<>();
+            counts.forEach((value, count) -> {
+                if (count.get() > 0) {
+                    snapshot.put(value, count.get());
+                }
+            });
+            breakdowns.put(field.name(), snapshot);
+        }
+        return breakdowns;
+    }
+
+    private <T> void apply(Dimensions<T> dimensions, T before, T after) {
+        for (Field<T> field : dimensions.fields()) {
+            adjust(dimensions, field, before, -1);
+            adjust(dimensions, field, after, 1);
+        }
+    }
+
+    private <T> void adjust(Dimensions<T> dimensions, Field<T> field, T document, long delta) {
+        if (document == null) {
+            return;
+        }
+        String value = Objects.requireNonNullElse(field.getter().apply(document), NONE);
+        increment(new StatKey(dimensions.collection(), field.name(), null, null), value, delta);
+        for (Field<T> scope : dimensions.scopes()) {
+            String scopeValue = scope.getter().apply(document);
+            if (scopeValue != null) {
+                increment(new StatKey(dimensions.collection(), field.name(), scope.name(), scopeValue), value, delta);
+            }
+        }
+    }
+
+    private void increment(StatKey key, String value, long delta) {
+        // Read through the map view so event traffic does not count towards the hit ratio
+        Map<String, AtomicLong> counts = cache.asMap().get(key);
+        if (counts != null) {
+            counts.computeIfAbsent(value, v -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private Map<String, AtomicLong> load(StatKey key) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (key.scopeField() != null) {
+            operations.add(Aggregation.match(Criteria.where(key.scopeField()).is(key.scopeValue())));
+        }
+        operations.add(Aggregation.group(key.field()).count().as("count"));
+        Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+        for (Document group : mongoTemplate.aggregate(Aggregation.newAggregation(operations), key.collection(), Document.class)) {
+            Object value = group.get("_id");
+            counts.put(value != null ? value.toString() : NONE, new AtomicLong(((Number) group.get("count")).longValue()));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,197 @@
+package com.safecity.service.impl;
+
+import com.safecity.analytics.FactTable;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.Incident;
+import com.safecity.model.Report;
+import com.safecity.payload.response.FactGroupResponse;
+import com.safecity.service.FactStoreService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Slice-and-dice counts over cases, incidents and reports from in-memory fact tables. The
+ * tables are loaded from Mongo in parallel once the application is ready and follow change
+ * events from then on. While a table loads, documents already written by an event are
+ * skipped by the loader, since the event carried a newer copy than the cursor may have read.
+ */
+@Service
+public class FactStoreServiceImpl implements FactStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FactStoreServiceImpl.class);
+
+    private static final List<String> DIMENSIONS = List.of("district", "type", "priority", "status", "hour", "weekday");
+
+    // Mongo field names behind the type and priority dimensions differ per collection
+    private static final class Source {
+        final String collection;
+        final String typeField;
+        final String priorityField;
+        final FactTable table = new FactTable(DIMENSIONS);
+        // Ids written by events while the table is loading; null once loaded. Guarded by the source
+        Set<String> touched;
+
+        Source(String collection, String typeField, String priorityField) {
+            this.collection = collection;
+            this.typeField = typeField;
+            this.priorityField = priorityField;
+        }
+    }
+
+    private final Source cases = new Source("cases", "type", "priority");
+
+    private final Source incidents = new Source("incidents", "incidentType", "severity");
+
+    private final Source reports = new Source("reports", "reportType", "priority");
+
+    private final Map<String, Source> sources = Map.of("cases", cases, "incidents", incidents, "reports", reports);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.facts.load-batch-size}")
+    private int loadBatchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws InterruptedException {
+        ExecutorService loaders = Executors.newFixedThreadPool(sources.size(), r -> {
+            Thread thread = new Thread(r, "fact-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> loads = sources.values().stream().<Future<?>>map(source -> loaders.submit(() -> load(source))).toList();
+            for (Future<?> load : loads) {
+                try {
+                    load.get();
+                } catch (ExecutionException e) {
+                    logger.error("Failed to load fact table: {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            loaders.shutdown();
+        }
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        Case after = event.after();
+        apply(cases, after != null ? after.getId() : event.before().getId(), after == null ? null
+                : values(after.getDistrict(), after.getType(), after.getPriority(), after.getStatus(),
+                after.getReportedAt() != null ? after.getReportedAt() : after.getCreatedAt()));
+    }
+
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        Incident after = event.after();
+        apply(incidents, after != null ? after.getId() : event.before().getId(), after == null ? null
+                : values(after.getDistrict(), after.getIncidentType(), after.getSeverity(), after.getStatus(),
+                after.getReportedAt() != null ? after.getReportedAt() : after.getCreatedAt()));
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        Report after = event.after();
+        apply(reports, after != null ? after.getId() : event.before().getId(), after == null ? null
+                : values(after.getDistrict(), after.getReportType(), after.getPriority(), after.getStatus(), after.getCreatedAt()));
+    }
+
+    @Override
+    public List<FactGroupResponse> query(String source, List<String> groupBy, Map<String, List<String>> filters, int limit) {
+        Source selected = sources.get(source);
+        if (selected == null) {
+            throw new RuntimeException("Unknown source: " + source + " (expected cases, incidents or reports)");
+        }
+        return selected.table.groupBy(filters, groupBy, limit).stream()
+                .map(group -> {
+                    Map<String, String> key = new LinkedHashMap<>();
+                    for (int i = 0; i < groupBy.size(); i++) {
+                        key.put(groupBy.get(i), group.values().get(i));
+                    }
+                    return new FactGroupResponse(key, group.count());
+                })
+                .toList();
+    }
+
+    private void load(Source source) {
+        long start = System.currentTimeMillis();
+        synchronized (source) {
+            source.touched = new HashSet<>();
+        }
+        Query query = new Query();
+        query.fields().include("district", source.typeField, source.priorityField, "status", "reportedAt", "createdAt");
+        Map<String, String[]> batch = new HashMap<>();
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, source.collection)) {
+            documents.forEach(document -> {
+                Object at = document.get("reportedAt") != null ? document.get("reportedAt") : document.get("createdAt");
+                batch.put(document.get("_id").toString(), values(document.getString("district"),
+                        document.getString(source.typeField), document.getString(source.priorityField),
+                        document.getString("status"), at instanceof Date date ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null));
+                if (batch.size() == loadBatchSize) {
+                    flush(source, batch);
+                }
+            });
+        } finally {
+            flush(source, batch);
+            synchronized (source) {
+                source.touched = null;
+            }
+        }
+        logger.info("Loaded {} {} facts in {} ms", source.table.size(), source.collection, System.currentTimeMillis() - start);
+    }
+
+    private void flush(Source source, Map<String, String[]> batch) {
+        synchronized (source) {
+            batch.keySet().removeAll(source.touched);
+            source.table.upsertAll(batch);
+        }
+        batch.clear();
+    }
+
+    // Null values mean the document was deleted
+    private void apply(Source source, String id, String[] values) {
+        synchronized (source) {
+            if (source.touched != null) {
+                source.touched.add(id);
+            }
+            if (values != null) {
+                source.table.upsert(id, values);
+            } else {
+                source.table.remove(id);
+            }
+        }
+    }
+
+    private static String[] values(String district, String type, String priority, String status, LocalDateTime at) {
+        return new String[]{district, type, priority, status,
+                at != null ? Integer.toString(at.getHour()) : null,
+                at != null ? at.getDayOfWeek().name().toLowerCase(Locale.ROOT) : null};
+    }
+}
@@ -0,0 +1,229 @@
+
+package com.safecity.service.impl;
+
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.geo.GeoUtils;
+import com.safecity.geo.GeofenceIndex;
+import com.safecity.model.Case;
+import com.safecity.model.GeofenceSubscription;
+import com.safecity.model.Incident;
+import com.safecity.model.Notification;
+import com.safecity.model.User;
+import com.safecity.payload.request.GeofenceRequest;
+import com.safecity.repository.GeofenceSubscriptionRepository;
+import com.safecity.service.GeofenceService;
+import com.safecity.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+public class GeofenceServiceImpl implements GeofenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceServiceImpl.class);
+
+    private static final int CASE = 1;
+    private static final int INCIDENT = 1 << 1;
+
+    @Autowired
+    private GeofenceSubscriptionRepository geofenceSubscriptionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${geofence.max-radius-meters}")
+    private double maxRadiusMeters;
+
+    @Value("${geofence.max-vertices}")
+    private int maxVertices;
+
+    @Value("${geofence.max-per-user}")
+    private int maxPerUser;
+
+    @Value("${geofence.rebuild-threshold}")
+    private int rebuildThreshold;
+
+    @Value("${geofence.rebuild-max-age-ms}")
+    private long rebuildMaxAgeMs;
+
+    private final GeofenceIndex index = new GeofenceIndex();
+
+    private volatile long lastRebuild = System.currentTimeMillis();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSubscriptions() {
+        try (Stream<GeofenceSubscription> subscriptions = mongoTemplate.stream(new Query(), GeofenceSubscription.class)) {
+            subscriptions.forEach(subscription -> index.add(toFence(subscription)));
+        }
+        rebuild();
+        logger.info("Loaded {} geofence subscriptions", index.size());
+    }
+
+    // Folds subscription changes into the tree once enough accumulate, or when they have waited too long
+    @Scheduled(fixedDelayString = "${geofence.rebuild-check-interval-ms}")
+    public void rebuildIfNeeded() {
+        int pending = index.pendingChanges();
+        if (pending >= rebuildThreshold || (pending > 0 && System.currentTimeMillis() - lastRebuild >= rebuildMaxAgeMs)) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        if (event.type() == ChangeType.CREATED) {
+            Case created = event.after();
+            fanOut(CASE, "case", created.getId(), created.getTitle(), created.getLatitude(), created.getLongitude());
+        }
+    }
+
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        if (event.type() == ChangeType.CREATED) {
+            Incident created = event.after();
+            fanOut(INCIDENT, "incident", created.getId(), created.getTitle(), created.getLatitude(), created.getLongitude());
+        }
+    }
+
+    @Override
+    public GeofenceSubscription subscribe(String userId, GeofenceRequest geofenceRequest) {
+        if (geofenceSubscriptionRepository.countByUserId(userId) >= maxPerUser) {
+            throw new RuntimeException("Geofence limit reached: at most " + maxPerUser + " per user");
+        }
+
+        GeofenceSubscription subscription = new GeofenceSubscription();
+        subscription.setUserId(userId);
+        subscription.setName(geofenceRequest.getName());
+        subscription.setShape(geofenceRequest.getShape());
+        if ("circle".equals(geofenceRequest.getShape())) {
+            if (!GeoUtils.hasCoordinates(geofenceRequest.getLatitude(), geofenceRequest.getLongitude())) {
+                throw new RuntimeException("Circle geofences need a centre");
+            }
+            if (geofenceRequest.getRadiusMeters() <= 0 || geofenceRequest.getRadiusMeters() > maxRadiusMeters) {
+                throw new RuntimeException("Radius must be between 0 and " + maxRadiusMeters + " meters");
+            }
+            subscription.setLatitude(geofenceRequest.getLatitude());
+            subscription.setLongitude(geofenceRequest.getLongitude());
+            subscription.setRadiusMeters(geofenceRequest.getRadiusMeters());
+        } else {
+            List<List<Double>> polygon = geofenceRequest.getPolygon();
+            if (polygon == null || polygon.size() < 3 || polygon.size() > maxVertices) {
+                throw new RuntimeException("Polygon geofences need between 3 and " + maxVertices + " vertices");
+            }
+            for (List<Double> vertex : polygon) {
+                if (vertex == null || vertex.size() != 2 || vertex.contains(null)
+                        || Math.abs(vertex.get(0)) > 180 || Math.abs(vertex.get(1)) > 90) {
+                    throw new RuntimeException("Polygon vertices must be [lng, lat] pairs");
+                }
+            }
+            subscription.setPolygon(polygon);
+        }
+        if (geofenceRequest.getSources() != null) {
+            for (String source : geofenceRequest.getSources()) {
+                if (!"case".equals(source) && !"incident".equals(source)) {
+                    throw new RuntimeException("Unknown geofence source: " + source);
+                }
+            }
+            subscription.setSources(new ArrayList<>(geofenceRequest.getSources()));
+        }
+
+        GeofenceSubscription saved = geofenceSubscriptionRepository.save(subscription);
+        index.add(toFence(saved));
+        return saved;
+    }
+
+    @Override
+    public List<GeofenceSubscription> findByUserId(String userId) {
+        return geofenceSubscriptionRepository.findByUserId(userId);
+    }
+
+    @Override
+    public void unsubscribe(String id, String userId, boolean admin) {
+        GeofenceSubscription subscription = geofenceSubscriptionRepository.findById(id)
+                .filter(s -> admin || s.getUserId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Geofence not found with id: " + id));
+        geofenceSubscriptionRepository.deleteById(subscription.getId());
+        index.remove(subscription.getId());
+    }
+
+    private void fanOut(int kind, String source, String id, String title, double latitude, double longitude) {
+        if (!GeoUtils.hasCoordinates(latitude, longitude)) {
+            return;
+        }
+        // One notification per user, however many of their fences contain the point
+        Map<String, String> fences = new LinkedHashMap<>();
+        index.match(latitude, longitude, kind, fence -> fences.putIfAbsent(fence.userId(), fence.name()));
+        if (fences.isEmpty()) {
+            return;
+        }
+        // Citizens, and anyone whose role cannot be confirmed, learn only that something happened in their area
+        Query staff = Query.query(Criteria.where("_id").in(fences.keySet()).and("role").in("officer", "admin"));
+        staff.fields().include("_id");
+        Set<String> staffIds = new HashSet<>();
+        mongoTemplate.find(staff, User.class).forEach(user -> staffIds.add(user.getId()));
+
+        List<Notification> notifications = new ArrayList<>();
+        fences.forEach((userId, fenceName) -> {
+            Notification notification = new Notification();
+            notification.setUserId(userId);
+            notification.setType("geofence");
+            notification.setTitle("New " + source + " in " + fenceName);
+            if (staffIds.contains(userId)) {
+                notification.setMessage(title);
+                notification.setReferenceType(source);
+                notification.setReferenceId(id);
+            } else {
+                notification.setMessage("A new " + source + " was reported inside your geofence");
+            }
+            notifications.add(notification);
+        });
+        notificationService.sendAll(notifications);
+    }
+
+    private void rebuild() {
+        index.rebuild();
+        lastRebuild = System.currentTimeMillis();
+    }
+
+    private static GeofenceIndex.Fence toFence(GeofenceSubscription subscription) {
+        int kindMask = 0;
+        if (subscription.getSources() == null || subscription.getSources().isEmpty()) {
+            kindMask = CASE | INCIDENT;
+        } else {
+            kindMask |= subscription.getSources().contains("case") ? CASE : 0;
+            kindMask |= subscription.getSources().contains("incident") ? INCIDENT : 0;
+        }
+
+        if ("polygon".equals(subscription.getShape())) {
+            List<List<Double>> vertices = subscription.getPolygon();
+            double[] polygon = new double[vertices.size() * 2];
+            for (int i = 0; i < vertices.size(); i++) {
+                polygon[2 * i] = vertices.get(i).get(0);
+                polygon[2 * i + 1] = vertices.get(i).get(1);
+            }
+            return GeofenceIndex.Fence.polygon(subscription.getId(), subscription.getUserId(), subscription.getName(), kindMask, polygon);
+        }
+        return GeofenceIndex.Fence.circle(subscription.getId(), subscription.getUserId(), subscription.getName(), kindMask,
+                subscription.getLatitude(), subscription.getLongitude(), subscription.getRadiusMeters());
+    }
+}
@@ -0,0 +1,306 @@
+
+package com.safecity.service.impl;
+
+import com.safecity.analytics.CasePointStore;
+import com.safecity.analytics.KernelDensity;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.geo.GeoUtils;
+import com.safecity.model.Case;
+import com.safecity.payload.response.HotspotResponse;
+import com.safecity.service.HotspotService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class HotspotServiceImpl implements HotspotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotspotServiceImpl.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.hotspot.max-cells-per-side}")
+    private int maxCellsPerSide;
+
+    @Value("${analytics.hotspot.cache-ttl-ms}")
+    private long cacheTtlMs;
+
+    @Value("${analytics.hotspot.peaks}")
+    private int peakCount;
+
+    private final CasePointStore store = new CasePointStore();
+
+    private final ForkJoinPool pool;
+
+    // Case changes are applied off the saving thread, in order, after the startup load
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hotspot-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Key, Entry> cache;
+
+    private record Key(int days, String type, String district, double west, double south, double east, double north,
+                       int width, int height, double bandwidthMeters) {
+    }
+
+    // Mutable fields are guarded by the cache monitor
+    private static final class Entry {
+        final CasePointStore.Filter filter;
+        final KernelDensity density;
+        final long computedAt;
+        // Padded histogram, kept current by the updater
+        final double[] counts;
+        int pointCount;
+        long changes;
+        // Smoothed from the histogram as of smoothedChanges; replaced, never written, so readers share it
+        double[] raster;
+        int rasterPoints;
+        long smoothedChanges;
+
+        Entry(CasePointStore.Filter filter, KernelDensity density, double[] counts, double[] raster, int pointCount, long computedAt) {
+            this.filter = filter;
+            this.density = density;
+            this.counts = counts;
+            this.raster = raster;
+            this.pointCount = pointCount;
+            this.rasterPoints = pointCount;
+            this.computedAt = computedAt;
+        }
+    }
+
+    public HotspotServiceImpl(
+            @Value("${analytics.hotspot.parallelism}") int parallelism,
+            @Value("${analytics.hotspot.cache-size}") int cacheSize) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        updater.shutdown();
+        updater.awaitTermination(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPoints() {
+        updater.execute(() -> {
+            Query query = new Query();
+            query.fields().include("latitude", "longitude", "createdAt", "type", "district");
+            try (Stream<Case> cases = mongoTemplate.stream(query, Case.class)) {
+                cases.forEach(c -> {
+                    if (GeoUtils.hasCoordinates(c.getLatitude(), c.getLongitude())) {
+                        store.upsert(c.getId(), c.getLatitude(), c.getLongitude(), createdAtMillis(c), c.getType(), c.getDistrict());
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("Failed to load case points for hotspot analysis: {}", e.getMessage());
+            }
+            // Rasters built while loading saw a partial store
+            synchronized (cache) {
+                cache.clear();
+            }
+            logger.info("Loaded {} case points for hotspot analysis", store.size());
+        });
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        updater.execute(() -> apply(event.before(), event.after()));
+    }
+
+    // The histogram is a plain count per cell, so a change moves one point out of the old case's cell and into the new one's
+    private void apply(Case before, Case after) {
+        synchronized (cache) {
+            if (after != null && GeoUtils.hasCoordinates(after.getLatitude(), after.getLongitude())) {
+                store.upsert(after.getId(), after.getLatitude(), after.getLongitude(), createdAtMillis(after), after.getType(), after.getDistrict());
+            } else {
+                store.remove(after != null ? after.getId() : before.getId());
+            }
+            for (Entry entry : cache.values()) {
+                boolean changed = move(entry, before, -1);
+                if (move(entry, after, 1) || changed) {
+                    entry.changes++;
+                }
+            }
+        }
+    }
+
+    private static boolean move(Entry entry, Case c, int delta) {
+        if (!matches(entry.filter, c)) {
+            return false;
+        }
+        int cell = entry.density.paddedCell(c.getLatitude(), c.getLongitude());
+        if (cell < 0) {
+            return false;
+        }
+        entry.counts[cell] += delta;
+        entry.pointCount += delta;
+        return true;
+    }
+
+    @Override
+    public HotspotResponse findHotspots(int days, String type, String district,
+                                        double west, double south, double east, double north,
+                                        int width, int height, double bandwidthMeters) {
+        if (west >= east || south >= north) {
+            throw new RuntimeException("Invalid bounding box");
+        }
+        if (bandwidthMeters <= 0) {
+            throw new RuntimeException("Bandwidth must be positive");
+        }
+        int columns = Math.min(Math.max(width, 1), maxCellsPerSide);
+        int rows = Math.min(Math.max(height, 1), maxCellsPerSide);
+        String typeFilter = blankToNull(type);
+        String districtFilter = blankToNull(district);
+        Key key = new Key(Math.max(days, 0), typeFilter, districtFilter, west, south, east, north, columns, rows, bandwidthMeters);
+
+        long now = System.currentTimeMillis();
+        Entry cached;
+        double[] raster = null;
+        double[] counts = null;
+        int points;
+        long changes = 0;
+        synchronized (cache) {
+            cached = cache.get(key);
+            // Points age out of the window only on recompute
+            if (cached != null && now - cached.computedAt > cacheTtlMs) {
+                cached = null;
+            }
+            if (cached == null) {
+                points = 0;
+            } else if (cached.smoothedChanges == cached.changes) {
+                raster = cached.raster;
+                points = cached.rasterPoints;
+            } else {
+                counts = cached.counts.clone();
+                points = cached.pointCount;
+                changes = cached.changes;
+            }
+        }
+        if (cached != null) {
+            if (raster == null) {
+                // Cases changed since the last smoothing; only the smoothing is redone, the points are already binned
+                raster = cached.density.smooth(pool, counts);
+                synchronized (cache) {
+                    if (changes > cached.smoothedChanges) {
+                        cached.raster = raster;
+                        cached.rasterPoints = points;
+                        cached.smoothedChanges = changes;
+                    }
+                }
+            }
+            return toResponse(key, cached.density, raster, points, cached.computedAt);
+        }
+
+        long fromMillis = key.days() > 0 ? now - TimeUnit.DAYS.toMillis(key.days()) : Long.MIN_VALUE;
+        CasePointStore.Filter filter = new CasePointStore.Filter(fromMillis, typeFilter, districtFilter);
+        KernelDensity density = new KernelDensity(west, south, east, north, columns, rows, bandwidthMeters);
+        CasePointStore.Histogram histogram = store.histogram(pool, density, filter);
+        raster = density.smooth(pool, histogram.counts());
+
+        synchronized (cache) {
+            // The updater writes the store under this monitor, so every later change will reach the cached histogram
+            if (store.version() == histogram.version()) {
+                cache.put(key, new Entry(filter, density, histogram.counts(), raster, histogram.points(), now));
+            }
+        }
+        return toResponse(key, density, raster, histogram.points(), now);
+    }
+
+    private HotspotResponse toResponse(Key key, KernelDensity density, double[] raster, int points, long computedAt) {
+        int width = density.width();
+        int height = density.height();
+        double max = 0;
+        for (double value : raster) {
+            max = Math.max(max, value);
+        }
+
+        // Strongest local maxima, keeping a min-heap of the best seen so far
+        PriorityQueue<int[]> best = new PriorityQueue<>((a, b) -> Double.compare(raster[a[0]], raster[b[0]]));
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                if (raster[cell] > 1e-9 && isLocalMaximum(raster, width, height, x, y)) {
+                    if (best.size() < peakCount) {
+                        best.add(new int[]{cell});
+                    } else if (raster[cell] > raster[best.peek()[0]]) {
+                        best.poll();
+                        best.add(new int[]{cell});
+                    }
+                }
+            }
+        }
+        List<HotspotResponse.Peak> peaks = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int cell = best.poll()[0];
+            peaks.add(0, new HotspotResponse.Peak(density.latitude(cell / width), density.longitude(cell % width), raster[cell]));
+        }
+
+        return new HotspotResponse(key.west(), key.south(), key.east(), key.north(), width, height,
+                points, max, raster, peaks, Instant.ofEpochMilli(computedAt));
+    }
+
+    private static boolean isLocalMaximum(double[] raster, int width, int height, int x, int y) {
+        double value = raster[y * width + x];
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                int ny = y + dy;
+                if ((dx != 0 || dy != 0) && nx >= 0 && ny >= 0 && nx < width && ny < height
+                        && raster[ny * width + nx] > value) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(CasePointStore.Filter filter, Case c) {
+        return c != null
+                && GeoUtils.hasCoordinates(c.getLatitude(), c.getLongitude())
+                && createdAtMillis(c) >= filter.fromMillis()
+                && (filter.type() == null || filter.type().equals(c.getType()))
+                && (filter.district() == null || filter.district().equals(c.getDistrict()));
+    }
+
+    private static long createdAtMillis(Case c) {
+        LocalDateTime createdAt = Objects.requireNonNullElseGet(c.getCreatedAt(), LocalDateTime::now);
+        return createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
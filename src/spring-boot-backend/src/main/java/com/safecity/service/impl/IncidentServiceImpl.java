@@ -0,0 +1,343 @@
+package com.safecity.service.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.safecity.event.ChangeType;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.model.Incident;
+import com.safecity.model.IncidentUpdate;
+import com.safecity.repository.IncidentRepository;
+import com.safecity.service.IncidentService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incident reads, plus a write pipeline for the updates and responder changes that pile onto
+ * one incident during a major event. Commands are queued and a single writer thread collects
+ * them for a short window, folds each incident's commands into one pipeline update (push the
+ * new updates, apply responder adds and removals, set status) and sends every incident's
+ * update in one bulk write. Each incident's update is atomic, nothing is read-modify-written,
+ * and commands for an incident apply in submission order since one thread writes them all.
+ */
+@Service
+public class IncidentServiceImpl implements IncidentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncidentServiceImpl.class);
+
+    // Exactly one of update and responder is set
+    private record Command(String incidentId, IncidentUpdate update, String responder, boolean addResponder,
+                           CompletableFuture<Incident> result) {
+    }
+
+    @Autowired
+    private IncidentRepository incidentRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${incidents.commands.window-ms}")
+    private long windowMs;
+
+    @Value("${incidents.commands.max-batch}")
+    private int maxBatch;
+
+    @Value("${incidents.commands.queue-capacity}")
+    private int queueCapacity;
+
+    private BlockingQueue<Command> queue;
+
+    private Thread writer;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drain, "incident-command-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        List<Command> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, maxBatch) > 0) {
+            execute(remaining);
+            remaining.clear();
+        }
+    }
+
+    @Override
+    public Page<Incident> findAll(Pageable pageable) {
+        return incidentRepository.findAll(pageable);
+    }
+    
+    @Override
+    public Incident findById(String id) {
+        return incidentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Incident not found with id: " + id));
+    }
+    
+    @Override
+    public Page<Incident> findByStatus(String status, Pageable pageable) {
+        return incidentRepository.findByStatus(status, pageable);
+    }
+    
+    @Override
+    public Page<Incident> findByDistrictAndStatus(String district, String status, Pageable pageable) {
+        return incidentRepository.findByDistrictAndStatus(district, status, pageable);
+    }
+    
+    @Override
+    public Page<Incident> findBySeverityAndStatus(String severity, String status, Pageable pageable) {
+        return incidentRepository.findBySeverityAndStatus(severity, status, pageable);
+    }
+
+    @Override
+    public CompletableFuture<Incident> addUpdate(String id, IncidentUpdate update) {
+        if (update.getId() == null) {
+            update.setId(UUID.randomUUID().toString());
+        }
+        update.setTimestamp(LocalDateTime.now());
+        return submit(new Command(id, update, null, false, new CompletableFuture<>()));
+    }
+
+    @Override
+    public CompletableFuture<Incident> addResponder(String id, String userId) {
+        return submit(new Command(id, null, userId, true, new CompletableFuture<>()));
+    }
+
+    @Override
+    public CompletableFuture<Incident> removeResponder(String id, String userId) {
+        return submit(new Command(id, null, userId, false, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Incident> submit(Command command) {
+        if (!running || !queue.offer(command)) {
+            throw new RuntimeException("Incident updates are backed up, retry shortly");
+        }
+        return command.result();
+    }
+
+    private void drain() {
+        List<Command> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Command first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Hold the write briefly so concurrent posts to the same incident share it
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    Command next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                execute(batch);
+            } catch (InterruptedException e) {
+                // Write what was collected before stop() takes over, so per-incident order holds
+                execute(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<Command> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            logger.error("Failed to apply {} incident commands: {}", batch.size(), e.getMessage());
+            for (Command command : batch) {
+                command.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void write(List<Command> batch) {
+        Map<String, List<Command>> byIncident = new LinkedHashMap<>();
+        for (Command command : batch) {
+            byIncident.computeIfAbsent(command.incidentId(), id -> new ArrayList<>()).add(command);
+        }
+
+        // The previous state is only needed for change listeners; this thread is the only writer of these fields
+        Map<String, Incident> before = findAllById(byIncident.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Incident.class);
+        List<String> written = new ArrayList<>();
+        for (Map.Entry<String, List<Command>> entry : byIncident.entrySet()) {
+            if (!before.containsKey(entry.getKey())) {
+                fail(entry.getValue(), new RuntimeException("Incident not found with id: " + entry.getKey()));
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(entry.getKey())), coalesce(entry.getValue(), now));
+            written.add(entry.getKey());
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+
+        Set<String> failed = new HashSet<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                String id = written.get(error.getIndex());
+                failed.add(id);
+                fail(byIncident.get(id), new RuntimeException("Failed to update incident " + id + ": " + error.getMessage()));
+            }
+        }
+
+        written.removeAll(failed);
+        Map<String, Incident> after = findAllById(written);
+        List<IncidentChangedEvent> events = new ArrayList<>();
+        for (String id : written) {
+            Incident updated = after.get(id);
+            if (updated == null) {
+                fail(byIncident.get(id), new RuntimeException("Incident not found with id: " + id));
+                continue;
+            }
+            for (Command command : byIncident.get(id)) {
+                command.result().complete(updated);
+            }
+            events.add(new IncidentChangedEvent(ChangeType.UPDATED, before.get(id), updated));
+        }
+
+        // Every caller has its answer first, so a failing listener cannot report an applied write as failed
+        for (IncidentChangedEvent event : events) {
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                logger.error("Listener failed for incident {}: {}", event.after().getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Folds one incident's commands, in order, into a single pipeline update
+    private AggregationUpdate coalesce(List<Command> commands, LocalDateTime now) {
+        List<Document> updates = new ArrayList<>();
+        // Last operation per responder wins; re-inserting keeps the order of those last operations
+        Map<String, Boolean> responders = new LinkedHashMap<>();
+        String status = null;
+        for (Command command : commands) {
+            if (command.update() != null) {
+                Document update = new Document();
+                mongoTemplate.getConverter().write(command.update(), update);
+                update.remove("_class");
+                updates.add(update);
+                if (command.update().getStatus() != null) {
+                    status = command.update().getStatus();
+                }
+            } else {
+                responders.remove(command.responder());
+                responders.put(command.responder(), command.addResponder());
+            }
+        }
+
+        Document set = new Document("updatedAt", literal(toDate(now)));
+        if (!updates.isEmpty()) {
+            set.put("updates", new Document("$concatArrays", List.of(existing("$updates"), literal(updates))));
+        }
+        if (!responders.isEmpty()) {
+            List<String> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            responders.forEach((userId, add) -> (add ? added : removed).add(userId));
+            // Removals drop out where they stand; additions not already present go on the end
+            Document kept = filter(existing("$responders"), notIn("$$this", literal(removed)));
+            Document appended = filter(literal(added), notIn("$$this", existing("$responders")));
+            set.put("responders", new Document("$concatArrays", List.of(kept, appended)));
+        }
+        if (status != null) {
+            set.put("status", literal(status));
+            set.put("resolvedAt", "resolved".equals(status)
+                    ? new Document("$ifNull", List.of("$resolvedAt", literal(toDate(now))))
+                    : null);
+        }
+
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+
+    private Map<String, Incident> findAllById(Iterable<String> ids) {
+        Map<String, Incident> incidents = new HashMap<>();
+        for (Incident incident : incidentRepository.findAllById(ids)) {
+            incidents.put(incident.getId(), incident);
+        }
+        return incidents;
+    }
+
+    private static void fail(List<Command> commands, RuntimeException e) {
+        for (Command command : commands) {
+            command.result().completeExceptionally(e);
+        }
+    }
+
+    // Client-supplied values are wrapped so text starting with '$' is never read as a field path
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    private static Document existing(String field) {
+        return new Document("$ifNull", List.of(field, List.of()));
+    }
+
+    private static Document filter(Object input, Document condition) {
+        return new Document("$filter", new Document("input", input).append("cond", condition));
+    }
+
+    private static Document notIn(String value, Object array) {
+        return new Document("$not", List.of(new Document("$in", List.of(value, array))));
+    }
+
+    // Same conversion the mapping layer applies to LocalDateTime fields
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
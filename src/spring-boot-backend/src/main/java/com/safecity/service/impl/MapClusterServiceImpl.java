@@ -0,0 +1,143 @@
+
+package com.safecity.service.impl;
+
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.geo.ClusterIndex;
+import com.safecity.geo.GeoUtils;
+import com.safecity.model.Case;
+import com.safecity.model.Incident;
+import com.safecity.model.Report;
+import com.safecity.payload.response.MapFeatureResponse;
+import com.safecity.service.MapClusterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+public class MapClusterServiceImpl implements MapClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapClusterServiceImpl.class);
+
+    private static final List<String> KINDS = List.of("case", "incident", "report");
+    private static final int CASE = 0;
+    private static final int INCIDENT = 1;
+    private static final int REPORT = 2;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ClusterIndex index;
+
+    public MapClusterServiceImpl(
+            @Value("${map.cluster.max-zoom}") int maxZoom,
+            @Value("${map.cluster.cells-per-tile}") int cellsPerTile,
+            @Value("${map.cluster.tile-cache-size}") int tileCacheSize,
+            @Value("${map.cluster.max-points}") int maxPoints) {
+        this.index = new ClusterIndex(maxZoom, cellsPerTile, tileCacheSize, maxPoints);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPoints() {
+        // Only coordinates are read; documents are streamed rather than materialised as a list
+        try (Stream<Case> cases = mongoTemplate.stream(coordinates(), Case.class)) {
+            cases.forEach(c -> upsert(CASE, c.getId(), c.getLatitude(), c.getLongitude()));
+        }
+        try (Stream<Incident> incidents = mongoTemplate.stream(coordinates(), Incident.class)) {
+            incidents.forEach(i -> upsert(INCIDENT, i.getId(), i.getLatitude(), i.getLongitude()));
+        }
+        try (Stream<Report> reports = mongoTemplate.stream(coordinates(), Report.class)) {
+            reports.forEach(r -> upsert(REPORT, r.getId(), r.getLatitude(), r.getLongitude()));
+        }
+        logger.info("Loaded {} map points into the cluster index", index.size());
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        if (event.after() == null) {
+            index.remove(pointId(CASE, event.before().getId()));
+        } else {
+            upsert(CASE, event.after().getId(), event.after().getLatitude(), event.after().getLongitude());
+        }
+    }
+
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        if (event.after() == null) {
+            index.remove(pointId(INCIDENT, event.before().getId()));
+        } else {
+            upsert(INCIDENT, event.after().getId(), event.after().getLatitude(), event.after().getLongitude());
+        }
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        if (event.after() == null) {
+            index.remove(pointId(REPORT, event.before().getId()));
+        } else {
+            upsert(REPORT, event.after().getId(), event.after().getLatitude(), event.after().getLongitude());
+        }
+    }
+
+    @Override
+    public List<MapFeatureResponse> findClusters(double west, double south, double east, double north, int zoom, Set<String> kinds) {
+        int kindMask = 0;
+        for (int kind = 0; kind < KINDS.size(); kind++) {
+            if (kinds == null || kinds.isEmpty() || kinds.contains(KINDS.get(kind))) {
+                kindMask |= 1 << kind;
+            }
+        }
+        if (kindMask == 0) {
+            return List.of();
+        }
+
+        List<ClusterIndex.Feature> features = index.query(west, south, east, north, zoom, kindMask);
+        List<MapFeatureResponse> response = new ArrayList<>(features.size());
+        for (ClusterIndex.Feature feature : features) {
+            int[] counts = feature.countsByKind();
+            response.add(new MapFeatureResponse(
+                    feature.isCluster() ? "cluster" : "point",
+                    feature.isCluster() ? null : feature.id().substring(feature.id().indexOf(':') + 1),
+                    feature.isCluster() ? null : KINDS.get(feature.kind()),
+                    feature.latitude(),
+                    feature.longitude(),
+                    feature.count(),
+                    counts[CASE],
+                    counts[INCIDENT],
+                    counts[REPORT]));
+        }
+        return response;
+    }
+
+    private void upsert(int kind, String id, double latitude, double longitude) {
+        String pointId = pointId(kind, id);
+        if (GeoUtils.hasCoordinates(latitude, longitude)) {
+            index.upsert(new ClusterIndex.Point(pointId, kind, latitude, longitude));
+        } else {
+            index.remove(pointId);
+        }
+    }
+
+    // Converted cases share their report's ID, so point IDs are namespaced by kind
+    private static String pointId(int kind, String id) {
+        return KINDS.get(kind) + ":" + id;
+    }
+
+    private static Query coordinates() {
+        Query query = new Query();
+        query.fields().include("latitude", "longitude");
+        return query;
+    }
+}
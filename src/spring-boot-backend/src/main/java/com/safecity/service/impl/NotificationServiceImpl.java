@@ -0,0 +1,87 @@
+package com.safecity.service.impl;
+
+import com.safecity.model.Notification;
+import com.safecity.repository.NotificationRepository;
+import com.safecity.service.NotificationService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class NotificationServiceImpl implements NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${notification.batch-size}")
+    private int batchSize;
+
+    // Fan-out is written off the request thread; one writer keeps inserts in arrival order
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "notification-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void sendAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Notification notification : notifications) {
+            if (notification.getCreatedAt() == null) {
+                notification.setCreatedAt(now);
+            }
+        }
+        writer.execute(() -> {
+            try {
+                for (int from = 0; from < notifications.size(); from += batchSize) {
+                    mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                            .insert(notifications.subList(from, Math.min(from + batchSize, notifications.size())))
+                            .execute();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to store {} notifications: {}", notifications.size(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Page<Notification> findByUserId(String userId, Pageable pageable) {
+        return notificationRepository.findByUserId(userId, pageable);
+    }
+
+    @Override
+    public Notification markRead(String id, String userId) {
+        Notification notification = notificationRepository.findById(id)
+                .filter(n -> n.getUserId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Notification not found with id: " + id));
+        notification.setRead(true);
+        return notificationRepository.save(notification);
+    }
+}
@@ -0,0 +1,186 @@
+
+package com.safecity.service.impl;
+
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.geo.OfficerLocationIndex;
+import com.safecity.model.Incident;
+import com.safecity.model.OfficerLocation;
+import com.safecity.payload.request.LocationUpdateRequest;
+import com.safecity.payload.response.NearbyOfficerResponse;
+import com.safecity.repository.OfficerLocationRepository;
+import com.safecity.service.OfficerLocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class OfficerLocationServiceImpl implements OfficerLocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfficerLocationServiceImpl.class);
+
+    private static final List<String> CLOSED_STATUSES = List.of("resolved", "closed");
+
+    @Autowired
+    private OfficerLocationRepository officerLocationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${officer.location.stale-after-ms}")
+    private long staleAfterMs;
+
+    @Value("${officer.dispatch.max-distance-meters}")
+    private double maxDistanceMeters;
+
+    private final OfficerLocationIndex index;
+
+    // Officers whose position changed since the last snapshot; repeated pings coalesce into one write
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public OfficerLocationServiceImpl(@Value("${officer.location.cell-size-degrees}") double cellSizeDegrees) {
+        this.index = new OfficerLocationIndex(cellSizeDegrees);
+    }
+
+    // First of the ready listeners: SOS replay dispatches against this index
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshot() {
+        for (OfficerLocation location : officerLocationRepository.findAll()) {
+            long updatedAt = location.getUpdatedAt() != null
+                    ? location.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : 0L;
+            index.update(new OfficerLocationIndex.Position(
+                    location.getId(), location.getLatitude(), location.getLongitude(), location.getStatus(), updatedAt));
+        }
+        logger.info("Loaded {} officer locations", index.size());
+    }
+
+    @Override
+    public void updateLocation(String officerId, LocationUpdateRequest locationRequest) {
+        OfficerLocationIndex.Position previous = index.get(officerId);
+        String status = locationRequest.getStatus() != null
+                ? locationRequest.getStatus()
+                : previous != null ? previous.status() : OfficerLocationIndex.AVAILABLE;
+        
+        index.update(new OfficerLocationIndex.Position(
+                officerId, locationRequest.getLatitude(), locationRequest.getLongitude(), status, System.currentTimeMillis()));
+        dirty.add(officerId);
+    }
+
+    @Override
+    public void updateStatus(String officerId, String status) {
+        OfficerLocationIndex.Position previous = index.get(officerId);
+        if (previous == null) {
+            return;
+        }
+        index.update(new OfficerLocationIndex.Position(
+                officerId, previous.latitude(), previous.longitude(), status, System.currentTimeMillis()));
+        dirty.add(officerId);
+    }
+
+    // Officers put on an open incident are busy; officers taken off one, or whose incident is resolved,
+    // are available again unless another open incident holds them
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        Set<String> assigned = new HashSet<>(responders(event.after()));
+        assigned.removeAll(responders(event.before()));
+        for (String officerId : assigned) {
+            updateStatus(officerId, OfficerLocationIndex.BUSY);
+        }
+
+        Set<String> released = new HashSet<>(responders(event.before()));
+        released.removeAll(responders(event.after()));
+        String incidentId = event.before() != null ? event.before().getId() : null;
+        for (String officerId : released) {
+            OfficerLocationIndex.Position position = index.get(officerId);
+            if (position == null || !OfficerLocationIndex.BUSY.equals(position.status())) {
+                continue;
+            }
+            Query elsewhere = Query.query(Criteria.where("responders").is(officerId)
+                    .and("_id").ne(incidentId)
+                    .and("status").nin(CLOSED_STATUSES));
+            if (!mongoTemplate.exists(elsewhere, Incident.class)) {
+                updateStatus(officerId, OfficerLocationIndex.AVAILABLE);
+            }
+        }
+    }
+
+    @Override
+    public List<NearbyOfficerResponse> findNearestAvailable(double latitude, double longitude, int k) {
+        long freshAfter = System.currentTimeMillis() - staleAfterMs;
+        List<NearbyOfficerResponse> result = new ArrayList<>(k);
+        for (OfficerLocationIndex.Neighbour neighbour : index.nearestAvailable(latitude, longitude, k, maxDistanceMeters, freshAfter)) {
+            OfficerLocationIndex.Position position = neighbour.position();
+            result.add(new NearbyOfficerResponse(
+                    position.officerId(), position.latitude(), position.longitude(), position.status(), neighbour.distanceMeters()));
+        }
+        return result;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${officer.location.snapshot-interval-ms}")
+    public void snapshot() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OfficerLocation.class);
+        // Taken out before reading the position, so a ping arriving meanwhile marks the officer dirty again
+        List<String> taken = new ArrayList<>();
+        int count = 0;
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String officerId = it.next();
+            it.remove();
+            taken.add(officerId);
+            OfficerLocationIndex.Position position = index.get(officerId);
+            if (position == null) {
+                continue;
+            }
+            Update update = new Update()
+                    .set("latitude", position.latitude())
+                    .set("longitude", position.longitude())
+                    .set("status", position.status())
+                    .set("updatedAt", LocalDateTime.ofInstant(Instant.ofEpochMilli(position.updatedAt()), ZoneId.systemDefault()));
+            bulk.upsert(Query.query(Criteria.where("_id").is(officerId)), update);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+        
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            // Retried by the next snapshot
+            dirty.addAll(taken);
+            throw e;
+        }
+        logger.debug("Snapshotted {} officer locations", count);
+    }
+
+    private static List<String> responders(Incident incident) {
+        return incident == null || CLOSED_STATUSES.contains(incident.getStatus()) ? List.of() : incident.getResponders();
+    }
+}
@@ -0,0 +1,182 @@
+package com.safecity.service.impl;
+
+import com.safecity.analytics.OfficerMetrics;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.User;
+import com.safecity.payload.response.OfficerMetricsResponse;
+import com.safecity.repository.UserRepository;
+import com.safecity.service.OfficerMetricsService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Officer performance metrics kept current from case change events: every transition
+ * retracts the case's old contribution and adds its new one. A periodic rebuild recomputes
+ * everything from one aggregation pass.
+ */
+@Service
+public class OfficerMetricsServiceImpl implements OfficerMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfficerMetricsServiceImpl.class);
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${analytics.officer-metrics.sla-hours.high}")
+    private long slaHoursHigh;
+
+    @Value("${analytics.officer-metrics.sla-hours.medium}")
+    private long slaHoursMedium;
+
+    @Value("${analytics.officer-metrics.sla-hours.low}")
+    private long slaHoursLow;
+
+    private final OfficerMetrics metrics = new OfficerMetrics();
+
+    // Events applied to the metrics so far; guarded by the metrics' monitor
+    private long changes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild(true);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.officer-metrics.rebuild-interval-ms}",
+            initialDelayString = "${analytics.officer-metrics.rebuild-interval-ms}")
+    public void refresh() {
+        rebuild(false);
+    }
+
+    /**
+     * Recomputes the metrics and swaps them in, unless an event was applied meanwhile: the
+     * aggregation may or may not include that event's change, so swapping could lose it or
+     * count it twice. The live metrics are kept instead and the pass retried; at startup the
+     * last attempt swaps regardless, as there is nothing to keep yet.
+     */
+    private void rebuild(boolean required) {
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            long seen;
+            synchronized (metrics) {
+                seen = changes;
+            }
+            long start = System.currentTimeMillis();
+            List<OfficerMetrics.CaseFacts> facts = scan();
+            synchronized (metrics) {
+                if (changes == seen || (required && attempt == REBUILD_ATTEMPTS)) {
+                    metrics.replaceAll(facts);
+                    logger.debug("Rebuilt officer metrics from {} cases in {} ms", facts.size(), System.currentTimeMillis() - start);
+                    return;
+                }
+            }
+        }
+        logger.debug("Kept the live officer metrics; changes arrived during each of {} rebuilds", REBUILD_ATTEMPTS);
+    }
+
+    private List<OfficerMetrics.CaseFacts> scan() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("assignedTo").ne(null)),
+                Aggregation.project("assignedTo", "status", "priority")
+                        .and(ArithmeticOperators.Subtract.valueOf("resolvedAt")
+                                .subtract(ConditionalOperators.ifNull("reportedAt").thenValueOf("createdAt")))
+                        .as("resolutionMillis"));
+        List<OfficerMetrics.CaseFacts> facts = new ArrayList<>();
+        try (Stream<Document> documents = mongoTemplate.aggregateStream(aggregation, "cases", Document.class)) {
+            documents.forEach(document -> {
+                Object millis = document.get("resolutionMillis");
+                facts.add(facts(document.getString("assignedTo"), document.getString("status"),
+                        document.getString("priority"), millis instanceof Number number ? number.longValue() : null));
+            });
+        }
+        return facts;
+    }
+
+    @EventListener
+    public void onCaseChanged(CaseChangedEvent event) {
+        OfficerMetrics.CaseFacts before = facts(event.before());
+        OfficerMetrics.CaseFacts after = facts(event.after());
+        synchronized (metrics) {
+            changes++;
+            metrics.remove(before);
+            metrics.add(after);
+        }
+    }
+
+    @Override
+    public List<OfficerMetricsResponse> getMetrics(String officerId) {
+        List<OfficerMetrics.Summary> summaries;
+        if (officerId != null) {
+            OfficerMetrics.Summary summary = metrics.summary(officerId);
+            summaries = summary != null ? List.of(summary) : List.of();
+        } else {
+            summaries = metrics.summaries();
+        }
+
+        Map<String, String> names = userRepository.findAllById(summaries.stream().map(OfficerMetrics.Summary::officerId).toList())
+                .stream()
+                .filter(user -> user.getName() != null)
+                .collect(Collectors.toMap(User::getId, User::getName));
+        return summaries.stream()
+                .sorted(Comparator.comparing(OfficerMetrics.Summary::officerId))
+                .map(summary -> new OfficerMetricsResponse(summary.officerId(), names.get(summary.officerId()),
+                        summary.open(), summary.resolved(), summary.meanHours(), summary.medianHours(),
+                        summary.p90Hours(), summary.slaCompliance(), OfficerMetrics.BUCKET_HOURS.clone(),
+                        summary.histogram()))
+                .toList();
+    }
+
+    private OfficerMetrics.CaseFacts facts(Case caseObj) {
+        if (caseObj == null || caseObj.getAssignedTo() == null) {
+            return null;
+        }
+        LocalDateTime openedAt = caseObj.getReportedAt() != null ? caseObj.getReportedAt() : caseObj.getCreatedAt();
+        Long resolutionMillis = openedAt != null && caseObj.getResolvedAt() != null
+                ? Duration.between(openedAt, caseObj.getResolvedAt()).toMillis()
+                : null;
+        return facts(caseObj.getAssignedTo(), caseObj.getStatus(), caseObj.getPriority(), resolutionMillis);
+    }
+
+    private OfficerMetrics.CaseFacts facts(String officerId, String status, String priority, Long resolutionMillis) {
+        boolean done = "resolved".equals(status) || "closed".equals(status);
+        // Clock skew between reporting devices and the server can make the span slightly negative
+        long millis = done && resolutionMillis != null ? Math.max(0, resolutionMillis) : -1;
+        return new OfficerMetrics.CaseFacts(officerId, !done, millis,
+                millis >= 0 && millis <= Duration.ofHours(slaHours(priority)).toMillis());
+    }
+
+    private long slaHours(String priority) {
+        if ("high".equals(priority)) {
+            return slaHoursHigh;
+        }
+        if ("low".equals(priority)) {
+            return slaHoursLow;
+        }
+        return slaHoursMedium;
+    }
+}
@@ -0,0 +1,527 @@
+
+package com.safecity.service.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.safecity.dedup.ReportDedupIndex;
+import com.safecity.event.ChangeType;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.geo.ReverseGeocoder;
+import com.safecity.model.IdempotencyKey;
+import com.safecity.model.Report;
+import com.safecity.model.ReportDeadLetter;
+import com.safecity.payload.response.ReportReceiptResponse;
+import com.safecity.repository.IdempotencyKeyRepository;
+import com.safecity.repository.ReportRepository;
+import com.safecity.service.ReportService;
+import com.safecity.service.ReverseGeocodingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report reads and intake. Submitted reports are numbered, geocoded and checked for
+ * duplicates in memory, acknowledged straight away and queued; a single writer thread
+ * persists them with bulk inserts. Clients that retry send an idempotency key, which is
+ * looked up in a bounded in-memory map and then in a TTL collection, so a retry gets the
+ * original receipt rather than filing the report twice. A batch that keeps failing is split
+ * until the reports that cannot be written are on their own, and those are moved to a
+ * dead-letter collection so they stop holding up the queue. Creation events are published
+ * once a report is fully written, outside the retries.
+ */
+@Service
+public class ReportServiceImpl implements ReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportServiceImpl.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private record Receipt(String reportId, String reportNumber, Instant receivedAt, long expiresAt) {
+    }
+
+    // The steps already done for a report survive retries of its batch, so none is repeated
+    private static final class Pending {
+        final Report report;
+        final String idempotencyKey;
+        final Receipt receipt;
+        boolean inserted;
+        boolean keyInserted;
+        boolean counted;
+
+        Pending(Report report, String idempotencyKey, Receipt receipt) {
+            this.report = report;
+            this.idempotencyKey = idempotencyKey;
+            this.receipt = receipt;
+        }
+
+        boolean done() {
+            return inserted && (idempotencyKey == null || keyInserted) && (report.getDuplicateOf() == null || counted);
+        }
+    }
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ReverseGeocodingService reverseGeocodingService;
+
+    @Value("${report.intake.batch-size}")
+    private int batchSize;
+
+    @Value("${report.intake.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${report.intake.retry.backoff-ms}")
+    private long retryBackoffMs;
+
+    @Value("${report.intake.retry.max-attempts}")
+    private int maxAttempts;
+
+    private final ReportDedupIndex dedupIndex;
+
+    private final long dedupWindowMs;
+
+    private final long idempotencyTtlMs;
+
+    // Keys seen recently, most recently used last; older ones are found in Mongo
+    private final Map<String, Receipt> receipts;
+
+    private BlockingQueue<Pending> queue;
+
+    private Thread writer;
+
+    private volatile boolean running = true;
+
+    public ReportServiceImpl(
+            @Value("${report.dedup.cell-size-degrees}") double cellSizeDegrees,
+            @Value("${report.dedup.window-minutes}") long windowMinutes,
+            @Value("${report.dedup.radius-meters}") double radiusMeters,
+            @Value("${report.dedup.similarity-threshold}") double similarityThreshold,
+            @Value("${report.dedup.hashes}") int hashes,
+            @Value("${report.intake.idempotency.ttl-hours}") long idempotencyTtlHours,
+            @Value("${report.intake.idempotency.cache-size}") int idempotencyCacheSize) {
+        this.dedupWindowMs = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.dedupIndex = new ReportDedupIndex(cellSizeDegrees, dedupWindowMs, radiusMeters, similarityThreshold, hashes);
+        this.idempotencyTtlMs = TimeUnit.HOURS.toMillis(idempotencyTtlHours);
+        this.receipts = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Receipt> eldest) {
+                return size() > idempotencyCacheSize;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        // Each key carries its own expiry, so a changed TTL applies without rebuilding the index
+        mongoTemplate.indexOps(IdempotencyKey.class)
+                .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drain, "report-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        List<Pending> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            persistOnce(remaining);
+            remaining.clear();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRecentReports() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Report> recent = reportRepository.findByReportCreatedBetween(
+                now.minus(dedupWindowMs, ChronoUnit.MILLIS), now);
+        recent.sort(Comparator.comparing(Report::getCreatedAt));
+        for (Report report : recent) {
+            if (report.getDuplicateOf() == null) {
+                indexReport(report, dedupIndex.signature(report.getDescription()));
+            }
+        }
+        logger.info("Loaded {} recent reports into the duplicate index", dedupIndex.size());
+    }
+
+    @Override
+    public Page<Report> findAll(Pageable pageable) {
+        return reportRepository.findAll(pageable);
+    }
+    
+    @Override
+    public Report findById(String id) {
+        return reportRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Report not found with id: " + id));
+    }
+    
+    @Override
+    public Page<Report> findByStatus(String status, Pageable pageable) {
+        return reportRepository.findByStatus(status, pageable);
+    }
+    
+    @Override
+    public Page<Report> findByReportedBy(String reportedBy, Pageable pageable) {
+        return reportRepository.findByReportedBy(reportedBy, pageable);
+    }
+    
+    @Override
+    public ReportReceiptResponse submit(Report report, String userId, String idempotencyKey) {
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? userId + ":" + idempotencyKey : null;
+        if (key != null) {
+            Receipt previous = findReceipt(key);
+            if (previous != null) {
+                return toResponse(previous, true);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        report.setId(new ObjectId().toHexString());
+        report.setReportNumber("RPT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        report.setStatus("new");
+        report.setCreatedAt(now);
+        report.setUpdatedAt(now);
+        
+        ReverseGeocoder.Region region = reverseGeocodingService.lookup(report.getLatitude(), report.getLongitude());
+        if (region != null) {
+            report.setDistrict(region.district());
+            report.setState(region.state());
+        }
+        
+        // Link likely duplicates to their primary report instead of queueing them for review
+        int[] signature = dedupIndex.signature(report.getDescription());
+        String duplicateOf = dedupIndex.findDuplicate(
+                report.getReportType(), report.getLatitude(), report.getLongitude(), toEpochMillis(now), signature);
+        if (duplicateOf != null) {
+            report.setStatus("duplicate");
+            report.setDuplicateOf(duplicateOf);
+        }
+
+        Receipt receipt = new Receipt(report.getId(), report.getReportNumber(),
+                now.atZone(ZoneId.systemDefault()).toInstant(), System.currentTimeMillis() + idempotencyTtlMs);
+        if (key != null) {
+            // A concurrent retry with the same key may have got here first
+            synchronized (receipts) {
+                Receipt raced = receipts.get(key);
+                if (raced != null) {
+                    return toResponse(raced, true);
+                }
+                receipts.put(key, receipt);
+            }
+        }
+        if (!running || !queue.offer(new Pending(report, key, receipt))) {
+            if (key != null) {
+                synchronized (receipts) {
+                    receipts.remove(key);
+                }
+            }
+            throw new IllegalStateException("Report intake is busy, retry shortly");
+        }
+
+        // Indexed on acceptance so reports still in the queue are matched too
+        if (duplicateOf == null) {
+            indexReport(report, signature);
+        }
+        return toResponse(receipt, false);
+    }
+
+    @Scheduled(fixedDelayString = "${report.dedup.sweep-interval-ms}")
+    public void evictExpiredReports() {
+        dedupIndex.evictExpired(System.currentTimeMillis());
+    }
+
+    private Receipt findReceipt(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (receipts) {
+            Receipt receipt = receipts.get(key);
+            if (receipt != null && receipt.expiresAt() > now) {
+                return receipt;
+            }
+        }
+        IdempotencyKey stored = idempotencyKeyRepository.findById(key).orElse(null);
+        // The TTL monitor only runs once a minute, so expired keys can still be read
+        if (stored == null || toEpochMillis(stored.getExpiresAt()) <= now) {
+            return null;
+        }
+        Receipt receipt = new Receipt(stored.getReportId(), stored.getReportNumber(),
+                stored.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant(), toEpochMillis(stored.getExpiresAt()));
+        synchronized (receipts) {
+            receipts.putIfAbsent(key, receipt);
+        }
+        return receipt;
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    Pending first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                if (attempts < maxAttempts) {
+                    persist(batch);
+                    publish(batch);
+                    batch.clear();
+                } else {
+                    isolate(batch);
+                }
+                attempts = 0;
+            } catch (InterruptedException e) {
+                // stop() writes whatever is still queued
+                persistOnce(batch);
+                return;
+            } catch (RuntimeException e) {
+                // Keep the batch and retry; requests already have their receipts
+                attempts++;
+                logger.error("Failed to persist {} reports (attempt {}), retrying: {}", batch.size(), attempts, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException ie) {
+                    persistOnce(batch);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void persistOnce(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            isolate(batch);
+        } catch (RuntimeException e) {
+            logger.error("Dropped {} queued reports at shutdown: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Writes what it can of a batch that has failed as a whole, halving it until each failing
+     * report is alone, and dead-letters those that are not stored. Handled reports are
+     * published and removed from the batch, so if this throws (Mongo itself is down) a retry
+     * neither rewrites nor republishes them.
+     */
+    private void isolate(List<Pending> batch) {
+        Set<Pending> handled = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            isolate(batch, handled);
+        } finally {
+            publish(batch.stream().filter(handled::contains).toList());
+            batch.removeIf(handled::contains);
+        }
+    }
+
+    private void isolate(List<Pending> part, Set<Pending> handled) {
+        try {
+            persist(part);
+            handled.addAll(part);
+        } catch (RuntimeException e) {
+            if (part.size() > 1) {
+                int middle = part.size() / 2;
+                isolate(part.subList(0, middle), handled);
+                isolate(part.subList(middle, part.size()), handled);
+                return;
+            }
+            Pending pending = part.get(0);
+            if (pending.inserted) {
+                // The report is stored; only its idempotency key or its primary's count is missing
+                logger.error("Report {} is stored but its {} could not be written: {}", pending.report.getReportNumber(),
+                        pending.keyInserted || pending.idempotencyKey == null ? "duplicate count" : "idempotency key", e.getMessage());
+                handled.add(pending);
+                return;
+            }
+            ReportDeadLetter deadLetter = new ReportDeadLetter();
+            deadLetter.setId(pending.report.getId());
+            deadLetter.setReport(pending.report);
+            deadLetter.setIdempotencyKey(pending.idempotencyKey);
+            deadLetter.setError(String.valueOf(e.getMessage()));
+            deadLetter.setFailedAt(LocalDateTime.now());
+            mongoTemplate.save(deadLetter);
+            handled.add(pending);
+            logger.error("Moved report {} to the dead-letter collection: {}", pending.report.getReportNumber(), e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts the reports, then their idempotency keys, then counts them against their primaries,
+     * each step only for the reports that have not done it yet. Throws if any report is left
+     * unfinished; the steps that succeeded are kept for the retry.
+     */
+    private void persist(List<Pending> batch) {
+        String error = null;
+
+        List<Pending> unwritten = batch.stream().filter(pending -> !pending.inserted).toList();
+        if (!unwritten.isEmpty()) {
+            Map<Integer, String> failed = insert(unwritten.stream().map(pending -> pending.report).toList(), Report.class);
+            for (int i = 0; i < unwritten.size(); i++) {
+                unwritten.get(i).inserted = !failed.containsKey(i);
+            }
+            error = failed.isEmpty() ? error : failed.values().iterator().next();
+        }
+
+        // Reports go first: losing a key after a crash risks a duplicate, never a receipt for a missing report
+        List<Pending> unkeyed = batch.stream()
+                .filter(pending -> pending.inserted && pending.idempotencyKey != null && !pending.keyInserted).toList();
+        if (!unkeyed.isEmpty()) {
+            List<IdempotencyKey> keys = new ArrayList<>(unkeyed.size());
+            for (Pending pending : unkeyed) {
+                IdempotencyKey key = new IdempotencyKey();
+                key.setId(pending.idempotencyKey);
+                key.setReportId(pending.report.getId());
+                key.setReportNumber(pending.report.getReportNumber());
+                key.setCreatedAt(pending.report.getCreatedAt());
+                key.setExpiresAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(pending.receipt.expiresAt()), ZoneId.systemDefault()));
+                keys.add(key);
+            }
+            Map<Integer, String> failed = insert(keys, IdempotencyKey.class);
+            for (int i = 0; i < unkeyed.size(); i++) {
+                unkeyed.get(i).keyInserted = !failed.containsKey(i);
+            }
+            error = failed.isEmpty() ? error : failed.values().iterator().next();
+        }
+
+        // An increment is not idempotent, so each report is counted once and then marked
+        Map<String, List<Pending>> uncounted = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            if (pending.inserted && pending.report.getDuplicateOf() != null && !pending.counted) {
+                uncounted.computeIfAbsent(pending.report.getDuplicateOf(), id -> new ArrayList<>()).add(pending);
+            }
+        }
+        if (!uncounted.isEmpty()) {
+            List<String> primaries = new ArrayList<>(uncounted.keySet());
+            BulkOperations counts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Report.class);
+            for (String primaryId : primaries) {
+                counts.updateOne(Query.query(Criteria.where("_id").is(primaryId)),
+                        new Update().inc("duplicateCount", uncounted.get(primaryId).size()));
+            }
+            Map<Integer, String> failed = new HashMap<>();
+            try {
+                counts.execute();
+            } catch (BulkOperationException e) {
+                if (e.getErrors().isEmpty()) {
+                    throw e;
+                }
+                for (BulkWriteError writeError : e.getErrors()) {
+                    failed.put(writeError.getIndex(), writeError.getMessage());
+                }
+            }
+            for (int i = 0; i < primaries.size(); i++) {
+                if (!failed.containsKey(i)) {
+                    uncounted.get(primaries.get(i)).forEach(pending -> pending.counted = true);
+                }
+            }
+            error = failed.isEmpty() ? error : failed.values().iterator().next();
+        }
+
+        if (error != null) {
+            long unfinished = batch.stream().filter(pending -> !pending.done()).count();
+            throw new RuntimeException(unfinished + " reports not fully written: " + error);
+        }
+    }
+
+    // Listeners run after the writes and outside the retries; one that fails is logged, not retried
+    private void publish(List<Pending> handled) {
+        for (Pending pending : handled) {
+            if (!pending.inserted) {
+                continue;
+            }
+            try {
+                eventPublisher.publishEvent(new ReportChangedEvent(ChangeType.CREATED, null, pending.report));
+            } catch (RuntimeException e) {
+                logger.error("Listener failed for report {}: {}", pending.report.getReportNumber(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Inserts the documents and returns the write errors by position. Ids are assigned at
+     * submission, so a duplicate key means an earlier attempt already stored the document.
+     */
+    private Map<Integer, String> insert(List<?> documents, Class<?> type) {
+        Map<Integer, String> failed = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().isEmpty()) {
+                throw e;
+            }
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    failed.put(error.getIndex(), error.getMessage());
+                }
+            }
+        }
+        return failed;
+    }
+
+    private static ReportReceiptResponse toResponse(Receipt receipt, boolean replayed) {
+        return new ReportReceiptResponse(receipt.reportId(), receipt.reportNumber(), "received", receipt.receivedAt(), replayed);
+    }
+
+    private void indexReport(Report report, int[] signature) {
+        dedupIndex.add(report.getReportType(), new ReportDedupIndex.Entry(
+                report.getId(), report.getLatitude(), report.getLongitude(), toEpochMillis(report.getCreatedAt()), signature));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,393 @@
+
+package com.safecity.service.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.model.Case;
+import com.safecity.model.Report;
+import com.safecity.model.TriageBatch;
+import com.safecity.payload.request.TriageBatchRequest;
+import com.safecity.payload.response.TriageBatchResponse;
+import com.safecity.service.CaseAssignmentService;
+import com.safecity.service.ReportTriageService;
+import com.safecity.triage.ReportTriageQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ReportTriageServiceImpl implements ReportTriageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportTriageServiceImpl.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String APPLIED = "applied";
+    private static final String ALREADY_APPLIED = "already-applied";
+    private static final String NOT_FOUND = "not-found";
+    private static final String INVALID_STATE = "invalid-state";
+    private static final String FAILED = "failed";
+
+    // Outcomes that a retried batch must not redo
+    private static final Set<String> FINAL_OUTCOMES = Set.of(APPLIED, ALREADY_APPLIED, NOT_FOUND, INVALID_STATE);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CaseAssignmentService caseAssignmentService;
+
+    @Value("${report.triage.batch-lease-seconds}")
+    private long batchLeaseSeconds;
+
+    private final ReportTriageQueue queue;
+
+    public ReportTriageServiceImpl(
+            @Value("${report.triage.medium-penalty-hours}") long mediumPenaltyHours,
+            @Value("${report.triage.low-penalty-hours}") long lowPenaltyHours) {
+        this.queue = new ReportTriageQueue(TimeUnit.HOURS.toMillis(mediumPenaltyHours), TimeUnit.HOURS.toMillis(lowPenaltyHours));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingReports() {
+        Query query = Query.query(Criteria.where("status").is("new"));
+        query.fields().include("district", "priority", "createdAt");
+        for (Report report : mongoTemplate.find(query, Report.class)) {
+            enqueue(report);
+        }
+        logger.info("Loaded {} pending reports into the triage queue", queue.size());
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        Report after = event.after();
+        if (after != null && "new".equals(after.getStatus())) {
+            enqueue(after);
+        } else if (event.before() != null) {
+            queue.remove(event.before().getId());
+        } else if (after != null) {
+            queue.remove(after.getId());
+        }
+    }
+
+    @Override
+    public List<Report> nextPending(int limit, String district) {
+        List<ReportTriageQueue.Item> items = queue.peek(limit, district);
+        List<String> ids = new ArrayList<>(items.size());
+        for (ReportTriageQueue.Item item : items) {
+            ids.add(item.reportId());
+        }
+
+        Map<String, Report> byId = loadReports(ids);
+        List<Report> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Report report = byId.get(id);
+            if (report != null) {
+                result.add(report);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TriageBatchResponse applySingle(String reportId, String action, String reviewerId) {
+        TriageBatchRequest.Action single = new TriageBatchRequest.Action();
+        single.setReportId(reportId);
+        single.setAction(action);
+
+        // The conditional report updates already make a single action idempotent, so nothing is recorded
+        Map<String, String> results = apply(Map.of(reportId, single), reviewerId, LocalDateTime.now());
+        return new TriageBatchResponse(null, Map.of(reportId, results.get(reportId)));
+    }
+
+    @Override
+    public TriageBatchResponse applyBatch(TriageBatchRequest batchRequest, String reviewerId) {
+        LocalDateTime now = LocalDateTime.now();
+        TriageBatch batch = claim(batchRequest.getBatchId(), reviewerId, now);
+
+        // Resume a partially applied batch: only actions without a final outcome are attempted again
+        Map<String, TriageBatchRequest.Action> pending = new LinkedHashMap<>();
+        for (TriageBatchRequest.Action action : batchRequest.getActions()) {
+            if (!FINAL_OUTCOMES.contains(batch.getResults().get(action.getReportId()))) {
+                pending.put(action.getReportId(), action);
+            }
+        }
+
+        Update release = new Update().unset("claimedUntil");
+        try {
+            if (!pending.isEmpty()) {
+                Map<String, String> applied = apply(pending, reviewerId, now);
+                batch.getResults().putAll(applied);
+                applied.forEach((reportId, outcome) -> release.set("results." + reportId, outcome));
+            }
+        } finally {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(batch.getId())), release, TriageBatch.class);
+        }
+
+        Map<String, String> results = new LinkedHashMap<>();
+        for (TriageBatchRequest.Action action : batchRequest.getActions()) {
+            results.put(action.getReportId(), batch.getResults().get(action.getReportId()));
+        }
+        return new TriageBatchResponse(batch.getId(), results);
+    }
+
+    /**
+     * Takes the batch ID before any action is applied. A new ID is claimed by inserting it, so
+     * of two concurrent first attempts only one gets past the unique _id. A known ID is a
+     * replay and is taken over only when no other request holds it, or its hold has lapsed.
+     */
+    private TriageBatch claim(String batchId, String reviewerId, LocalDateTime now) {
+        LocalDateTime claimedUntil = now.plus(Duration.ofSeconds(batchLeaseSeconds));
+        TriageBatch created = new TriageBatch();
+        created.setId(batchId);
+        created.setCreatedBy(reviewerId);
+        created.setCreatedAt(now);
+        created.setClaimedUntil(claimedUntil);
+        try {
+            return mongoTemplate.insert(created);
+        } catch (DuplicateKeyException e) {
+            Query free = Query.query(new Criteria().andOperator(
+                    Criteria.where("_id").is(batchId),
+                    new Criteria().orOperator(Criteria.where("claimedUntil").is(null), Criteria.where("claimedUntil").lt(now))));
+            TriageBatch replayed = mongoTemplate.findAndModify(free, new Update().set("claimedUntil", claimedUntil),
+                    FindAndModifyOptions.options().returnNew(true), TriageBatch.class);
+            if (replayed == null) {
+                throw new IllegalStateException("Triage batch " + batchId + " is already being applied");
+            }
+            return replayed;
+        }
+    }
+
+    private Map<String, String> apply(Map<String, TriageBatchRequest.Action> actions, String reviewerId, LocalDateTime now) {
+        Map<String, String> results = new HashMap<>();
+        Map<String, Report> before = loadReports(new ArrayList<>(actions.keySet()));
+
+        List<String> approveIds = new ArrayList<>();
+        List<String> rejectIds = new ArrayList<>();
+        List<Case> newCases = new ArrayList<>();
+        for (TriageBatchRequest.Action action : actions.values()) {
+            Report report = before.get(action.getReportId());
+            if (report == null) {
+                results.put(action.getReportId(), NOT_FOUND);
+            } else if (targetStatus(action.getAction()).equals(report.getStatus())) {
+                results.put(action.getReportId(), ALREADY_APPLIED);
+            } else if (!allowedFrom(action.getAction()).contains(report.getStatus())) {
+                results.put(action.getReportId(), INVALID_STATE);
+            } else {
+                switch (action.getAction()) {
+                    case "approve" -> approveIds.add(report.getId());
+                    case "reject" -> rejectIds.add(report.getId());
+                    default -> newCases.add(toCase(report, action, now));
+                }
+            }
+        }
+
+        Map<String, Case> casesById = new HashMap<>();
+        for (Case newCase : newCases) {
+            casesById.put(newCase.getId(), newCase);
+        }
+        List<String> convertIds = insertCases(newCases, results);
+
+        List<String> attempted = new ArrayList<>(approveIds);
+        attempted.addAll(rejectIds);
+        attempted.addAll(convertIds);
+        if (attempted.isEmpty()) {
+            return results;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Report.class);
+            if (!approveIds.isEmpty()) {
+                bulk.updateMulti(pendingReports(approveIds, "approve"), review("approved", reviewerId, now));
+            }
+            if (!rejectIds.isEmpty()) {
+                bulk.updateMulti(pendingReports(rejectIds, "reject"), review("rejected", reviewerId, now));
+            }
+            for (String reportId : convertIds) {
+                bulk.updateOne(pendingReports(List.of(reportId), "convert"),
+                        review("converted-to-case", reviewerId, now).set("convertedCaseId", reportId));
+            }
+            bulk.execute();
+        } catch (DataAccessException e) {
+            logger.error("Triage update failed for {} reports: {}", attempted.size(), e.getMessage());
+        }
+
+        // Outcomes come from the stored state so concurrent reviewers and partial failures are reported accurately
+        Map<String, Report> after = loadReports(attempted);
+        for (String reportId : attempted) {
+            Report updated = after.get(reportId);
+            String action = actions.get(reportId).getAction();
+            if (updated != null && targetStatus(action).equals(updated.getStatus()) && reviewerId.equals(updated.getReviewedBy())) {
+                results.put(reportId, APPLIED);
+                if (casesById.containsKey(reportId)) {
+                    // Read back, since a case left by an earlier attempt has that attempt's case number
+                    Case stored = mongoTemplate.findById(reportId, Case.class);
+                    eventPublisher.publishEvent(new CaseChangedEvent(ChangeType.CREATED, null,
+                            stored != null ? stored : casesById.get(reportId)));
+                }
+                eventPublisher.publishEvent(new ReportChangedEvent(ChangeType.UPDATED, before.get(reportId), updated));
+            } else {
+                results.put(reportId, FAILED);
+                if (casesById.containsKey(reportId) && (updated == null || !"converted-to-case".equals(updated.getStatus()))) {
+                    removeOrphanCase(reportId);
+                }
+            }
+        }
+        return results;
+    }
+
+    // The case shares the report's ID, so while the report is not converted no conversion can refer to it
+    private void removeOrphanCase(String caseId) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(caseId)), Case.class);
+        } catch (DataAccessException e) {
+            logger.error("Could not remove case {} left by a failed conversion: {}", caseId, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the report IDs whose case now exists; a case left by an earlier attempt counts as
+     * created. Nothing is published here: a case is only announced once its report update wins.
+     */
+    private List<String> insertCases(List<Case> newCases, Map<String, String> results) {
+        List<String> created = new ArrayList<>(newCases.size());
+        if (newCases.isEmpty()) {
+            return created;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Case.class)
+                    .insert(newCases)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    failed.add(error.getIndex());
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.error("Case creation failed for {} converted reports: {}", newCases.size(), e.getMessage());
+            for (int i = 0; i < newCases.size(); i++) {
+                failed.add(i);
+            }
+        }
+
+        for (int i = 0; i < newCases.size(); i++) {
+            Case newCase = newCases.get(i);
+            if (failed.contains(i)) {
+                results.put(newCase.getId(), FAILED);
+                continue;
+            }
+            created.add(newCase.getId());
+        }
+        return created;
+    }
+
+    private Case toCase(Report report, TriageBatchRequest.Action action, LocalDateTime now) {
+        Case newCase = new Case();
+        // Sharing the report ID makes the conversion idempotent across retries
+        newCase.setId(report.getId());
+        newCase.setCaseNumber("FIR-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        newCase.setTitle(action.getCaseTitle() != null
+                ? action.getCaseTitle()
+                : report.getReportType() + " report " + report.getReportNumber());
+        newCase.setDescription(report.getDescription());
+        newCase.setStatus("new");
+        newCase.setPriority(action.getCasePriority() != null
+                ? action.getCasePriority()
+                : report.getPriority() != null ? report.getPriority() : "medium");
+        newCase.setType(report.getReportType());
+        newCase.setLocation(report.getLocation());
+        newCase.setDistrict(report.getDistrict());
+        newCase.setState(report.getState());
+        newCase.setLatitude(report.getLatitude());
+        newCase.setLongitude(report.getLongitude());
+        newCase.setComplainant(report.isAnonymous() || report.getReporterName() == null ? "Anonymous" : report.getReporterName());
+        newCase.setComplainantContact(report.isAnonymous() ? null : report.getReporterContact());
+        // Without an explicit assignee the case goes to the least loaded officer, as cases filed directly do
+        if (action.getAssignedTo() != null) {
+            newCase.setAssignedTo(action.getAssignedTo());
+        } else {
+            newCase.setAssignedTo(caseAssignmentService.pickAssignee(report.getDistrict()));
+            newCase.setAutoAssigned(newCase.getAssignedTo() != null);
+        }
+        newCase.setReportedAt(report.getCreatedAt());
+        newCase.setCreatedAt(now);
+        newCase.setUpdatedAt(now);
+        return newCase;
+    }
+
+    private Map<String, Report> loadReports(List<String> ids) {
+        Map<String, Report> byId = new HashMap<>();
+        if (ids.isEmpty()) {
+            return byId;
+        }
+        for (Report report : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Report.class)) {
+            byId.put(report.getId(), report);
+        }
+        return byId;
+    }
+
+    private static Query pendingReports(List<String> ids, String action) {
+        return Query.query(Criteria.where("_id").in(ids).and("status").in(allowedFrom(action)));
+    }
+
+    private static Update review(String status, String reviewerId, LocalDateTime now) {
+        return new Update()
+                .set("status", status)
+                .set("reviewedBy", reviewerId)
+                .set("reviewedAt", now)
+                .set("updatedAt", now);
+    }
+
+    private static String targetStatus(String action) {
+        return switch (action) {
+            case "approve" -> "approved";
+            case "reject" -> "rejected";
+            default -> "converted-to-case";
+        };
+    }
+
+    private static List<String> allowedFrom(String action) {
+        return "approve".equals(action) ? List.of("new") : List.of("new", "approved");
+    }
+
+    private void enqueue(Report report) {
+        LocalDateTime createdAt = report.getCreatedAt() != null ? report.getCreatedAt() : LocalDateTime.now();
+        queue.add(report.getId(), report.getDistrict(), report.getPriority(),
+                createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
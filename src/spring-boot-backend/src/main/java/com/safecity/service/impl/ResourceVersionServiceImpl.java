@@ -0,0 +1,67 @@
+package com.safecity.service.impl;
+
+import com.safecity.service.ResourceVersionService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Entity tags for conditional GETs. A document's tag comes from its id and updatedAt and is
+ * looked up with an updatedAt-only projection, so an unchanged document is never loaded.
+ * List tags come from the collection's latest updatedAt and its document count, both read
+ * from Mongo (an index lookup and collection metadata), so every instance derives the same
+ * tag from the same data: every write stamps updatedAt, which moves the latest value, and a
+ * delete moves the count.
+ * Tags are weak: the same version is served as JSON, CBOR or Smile and possibly gzipped, and
+ * Tomcat will not compress a response that carries a strong tag.
+ */
+@Service
+public class ResourceVersionServiceImpl implements ResourceVersionService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public String documentTag(String collection, String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("updatedAt");
+        Document document = mongoTemplate.findOne(query, Document.class, collection);
+        if (document == null || !(document.get("updatedAt") instanceof Date updatedAt)) {
+            return null;
+        }
+        return tag(id, updatedAt.getTime());
+    }
+
+    @Override
+    public String tagOf(String id, LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return null;
+        }
+        // Same conversion Spring Data applies when it stores the field, so both paths agree
+        return tag(id, updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @Override
+    public String listTag(String collection, Object... parameters) {
+        Query latest = new Query().with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(1);
+        latest.fields().include("updatedAt");
+        Document document = mongoTemplate.findOne(latest, Document.class, collection);
+        long updatedAt = document != null && document.get("updatedAt") instanceof Date date ? date.getTime() : 0;
+        long count = mongoTemplate.estimatedCount(collection);
+        return "W/\"" + collection + "-" + Long.toHexString(updatedAt) + "-" + count
+                + "-" + Integer.toHexString(Arrays.deepHashCode(parameters)) + "\"";
+    }
+
+    private static String tag(String id, long updatedAtMillis) {
+        return "W/\"" + id + "-" + Long.toHexString(updatedAtMillis) + "\"";
+    }
+}
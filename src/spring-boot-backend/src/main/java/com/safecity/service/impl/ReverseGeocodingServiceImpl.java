@@ -0,0 +1,241 @@
+
+package com.safecity.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safecity.event.CaseChangedEvent;
+import com.safecity.event.ChangeType;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.event.ReportChangedEvent;
+import com.safecity.geo.GeoUtils;
+import com.safecity.geo.ReverseGeocoder;
+import com.safecity.model.Case;
+import com.safecity.model.Incident;
+import com.safecity.model.Report;
+import com.safecity.payload.response.GeocodeBackfillResponse;
+import com.safecity.service.ReverseGeocodingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class ReverseGeocodingServiceImpl implements ReverseGeocodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReverseGeocodingServiceImpl.class);
+
+    private record Source<T>(Class<T> type, Function<T, String> id, Function<T, String> district,
+                             Function<T, String> state, BiFunction<T, T, Object> updated) {
+    }
+
+    private static final List<Source<?>> SOURCES = List.of(
+            new Source<>(Case.class, Case::getId, Case::getDistrict, Case::getState,
+                    (before, after) -> new CaseChangedEvent(ChangeType.UPDATED, before, after)),
+            new Source<>(Report.class, Report::getId, Report::getDistrict, Report::getState,
+                    (before, after) -> new ReportChangedEvent(ChangeType.UPDATED, before, after)),
+            new Source<>(Incident.class, Incident::getId, Incident::getDistrict, Incident::getState,
+                    (before, after) -> new IncidentChangedEvent(ChangeType.UPDATED, before, after)));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${geo.boundaries.path}")
+    private String boundariesPath;
+
+    @Value("${geo.boundaries.district-property}")
+    private String districtProperty;
+
+    @Value("${geo.boundaries.state-property}")
+    private String stateProperty;
+
+    @Value("${geo.backfill.batch-size}")
+    private int batchSize;
+
+    private volatile ReverseGeocoder geocoder;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "geocode-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong scanned = new AtomicLong();
+
+    private final AtomicLong updated = new AtomicLong();
+
+    private volatile boolean running;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile String error;
+
+    @PostConstruct
+    public void loadBoundaries() {
+        if (boundariesPath == null || boundariesPath.isBlank() || !Files.isReadable(Path.of(boundariesPath))) {
+            logger.info("No district boundaries at '{}', reverse geocoding is disabled", boundariesPath);
+            return;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(boundariesPath))) {
+            geocoder = ReverseGeocoder.fromGeoJson(in, objectMapper, districtProperty, stateProperty);
+            logger.info("Loaded {} district boundary polygons from {}", geocoder.size(), boundariesPath);
+        } catch (IOException e) {
+            logger.error("Failed to load district boundaries from {}: {}", boundariesPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        backfillExecutor.shutdownNow();
+    }
+
+    @Override
+    public ReverseGeocoder.Region lookup(double latitude, double longitude) {
+        ReverseGeocoder current = geocoder;
+        if (current == null || !GeoUtils.hasCoordinates(latitude, longitude)) {
+            return null;
+        }
+        return current.lookup(latitude, longitude);
+    }
+
+    @Override
+    public synchronized GeocodeBackfillResponse startBackfill() {
+        if (geocoder == null) {
+            throw new RuntimeException("Reverse geocoding is disabled: no district boundaries loaded");
+        }
+        if (running) {
+            return getBackfillStatus();
+        }
+        running = true;
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        scanned.set(0);
+        updated.set(0);
+        backfillExecutor.execute(this::backfill);
+        return getBackfillStatus();
+    }
+
+    @Override
+    public GeocodeBackfillResponse getBackfillStatus() {
+        return new GeocodeBackfillResponse(running, startedAt, finishedAt, scanned.get(), updated.get(), error);
+    }
+
+    private void backfill() {
+        try {
+            for (Source<?> source : SOURCES) {
+                backfill(source);
+            }
+            logger.info("Geocode backfill scanned {} documents and updated {}", scanned.get(), updated.get());
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            logger.error("Geocode backfill failed: {}", e.getMessage());
+        } finally {
+            finishedAt = Instant.now();
+            running = false;
+        }
+    }
+
+    private <T> void backfill(Source<T> source) {
+        Query query = new Query();
+        query.fields().include("latitude", "longitude", "district", "state");
+        Map<String, ReverseGeocoder.Region> stale = new LinkedHashMap<>();
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(source.type()))) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                scanned.incrementAndGet();
+                ReverseGeocoder.Region region = lookup(number(document, "latitude"), number(document, "longitude"));
+                if (region == null
+                        || (Objects.equals(region.district(), document.getString("district"))
+                        && Objects.equals(region.state(), document.getString("state")))) {
+                    continue;
+                }
+                stale.put(document.get("_id").toString(), region);
+                if (stale.size() == batchSize) {
+                    update(source, stale);
+                    stale.clear();
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            update(source, stale);
+        }
+    }
+
+    /**
+     * Writes the new regions, each conditioned on the district and state read just before, and
+     * publishes an update for every document that changed so the in-memory views follow.
+     */
+    private <T> void update(Source<T> source, Map<String, ReverseGeocoder.Region> regions) {
+        Map<String, T> befores = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, source.type());
+        for (T before : mongoTemplate.find(Query.query(Criteria.where("_id").in(regions.keySet())), source.type())) {
+            String id = source.id().apply(before);
+            ReverseGeocoder.Region region = regions.get(id);
+            if (Objects.equals(region.district(), source.district().apply(before))
+                    && Objects.equals(region.state(), source.state().apply(before))) {
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id)
+                            .and("district").is(source.district().apply(before))
+                            .and("state").is(source.state().apply(before))),
+                    new Update().set("district", region.district())
+                            .set("state", region.state())
+                            .set("updatedAt", now));
+            befores.put(id, before);
+        }
+        if (befores.isEmpty()) {
+            return;
+        }
+        updated.addAndGet(bulk.execute().getModifiedCount());
+
+        // Documents changed in between kept their values and publish nothing here
+        for (T after : mongoTemplate.find(Query.query(Criteria.where("_id").in(befores.keySet()).and("updatedAt").is(now)), source.type())) {
+            try {
+                eventPublisher.publishEvent(source.updated().apply(befores.get(source.id().apply(after)), after));
+            } catch (RuntimeException e) {
+                logger.error("Listener failed for geocoded {} {}: {}", source.type().getSimpleName(), source.id().apply(after), e.getMessage());
+            }
+        }
+    }
+
+    private static double number(Document document, String field) {
+        Object value = document.get(field);
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,353 @@
+
+package com.safecity.service.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.safecity.event.ChangeType;
+import com.safecity.event.IncidentChangedEvent;
+import com.safecity.geo.OfficerLocationIndex;
+import com.safecity.geo.ReverseGeocoder;
+import com.safecity.model.Incident;
+import com.safecity.model.SosDeadLetter;
+import com.safecity.payload.request.SosRequest;
+import com.safecity.payload.response.NearbyOfficerResponse;
+import com.safecity.payload.response.SosResponse;
+import com.safecity.service.OfficerLocationService;
+import com.safecity.service.ReverseGeocodingService;
+import com.safecity.service.SosService;
+import com.safecity.sos.SosEvent;
+import com.safecity.sos.SosJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class SosServiceImpl implements SosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosServiceImpl.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private SosJournal journal;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OfficerLocationService officerLocationService;
+
+    @Autowired
+    private ReverseGeocodingService reverseGeocodingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sos.batch.size}")
+    private int batchSize;
+
+    @Value("${sos.retry.backoff-ms}")
+    private long retryBackoffMs;
+
+    @Value("${sos.retry.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${sos.dispatch.responders}")
+    private int dispatchResponders;
+
+    // Unbounded on purpose: every queued event is already durable in the journal
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+
+    private Thread writer;
+
+    private volatile boolean running = true;
+
+    // replayed is set for events recovered from the journal, which may already be in Mongo
+    private record Queued(SosEvent event, SosJournal.Position position, boolean replayed) {
+    }
+
+    // The journal has to be recovered before the first append, so this runs before requests are served
+    @PostConstruct
+    public void recover() {
+        for (SosJournal.Entry entry : journal.recover()) {
+            queue.add(new Queued(SosEvent.decode(entry.payload()), entry.position(), true));
+        }
+    }
+
+    // Dispatch needs the officer locations, which are loaded by an earlier ready listener; SOS events queue until then
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Dedicated high-priority writer so SOS persistence never waits behind request threads
+        writer = new Thread(this::drain, "sos-writer");
+        writer.setPriority(Thread.MAX_PRIORITY);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Override
+    public SosResponse trigger(SosRequest sosRequest, String userId) {
+        String id = UUID.randomUUID().toString();
+        Instant receivedAt = Instant.now();
+        SosEvent event = new SosEvent(
+                id,
+                "SOS-" + id.substring(0, 8).toUpperCase(),
+                userId,
+                sosRequest.getLocation().getLat(),
+                sosRequest.getLocation().getLng(),
+                sosRequest.getAddress(),
+                sosRequest.getDetails(),
+                receivedAt.toEpochMilli());
+
+        SosJournal.Position position = journal.append(event.encode());
+        queue.add(new Queued(event, position, false));
+
+        return new SosResponse(event.id(), event.incidentNumber(), "received", receivedAt);
+    }
+
+    @Override
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        // Incidents built (and officers dispatched) for the batch but not yet stored
+        List<Incident> pending = new ArrayList<>(batchSize);
+        List<Incident> created = new ArrayList<>(batchSize);
+        Map<String, Queued> byId = new HashMap<>();
+        boolean dispatched = false;
+        int attempts = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    attempts = 0;
+                }
+                if (!dispatched) {
+                    // Replays of events written before the restart are only marked persisted, so nobody is dispatched twice
+                    Set<String> written = alreadyPersisted(batch);
+                    for (Queued queued : batch) {
+                        byId.put(queued.event().id(), queued);
+                        if (!written.contains(queued.event().id())) {
+                            pending.add(toIncident(queued.event()));
+                        }
+                    }
+                    dispatched = true;
+                }
+                try {
+                    if (attempts < maxAttempts) {
+                        insertAll(pending, byId, created);
+                    } else {
+                        insertEach(pending, byId, created);
+                    }
+                } finally {
+                    // Stored incidents are announced once, whatever happens to the rest of the batch
+                    publish(created);
+                }
+                for (Queued queued : batch) {
+                    journal.markPersisted(queued.position());
+                }
+                batch.clear();
+                byId.clear();
+                dispatched = false;
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Keep what is left of the batch and retry; the journal still holds every event
+                attempts++;
+                logger.error("Failed to persist {} SOS incidents (attempt {}), retrying: {}", pending.size(), attempts, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException ie) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Stored incidents move from pending to created, so a retry only sends what is still missing
+    private void insertAll(List<Incident> pending, Map<String, Queued> byId, List<Incident> created) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Incident.class)
+                    .insert(pending)
+                    .execute();
+            created.addAll(pending);
+            pending.clear();
+        } catch (BulkOperationException e) {
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error);
+            }
+            List<Incident> failed = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                BulkWriteError error = errors.get(i);
+                if (error == null) {
+                    created.add(pending.get(i));
+                } else if (error.getCode() == DUPLICATE_KEY) {
+                    duplicate(pending.get(i), byId, created);
+                } else {
+                    failed.add(pending.get(i));
+                }
+            }
+            pending.retainAll(failed);
+            if (!pending.isEmpty()) {
+                throw e;
+            }
+        }
+    }
+
+    // Once a batch has failed too often, incidents go one at a time and those that still fail are dead-lettered
+    private void insertEach(List<Incident> pending, Map<String, Queued> byId, List<Incident> created) {
+        for (Iterator<Incident> iterator = pending.iterator(); iterator.hasNext(); ) {
+            Incident incident = iterator.next();
+            try {
+                mongoTemplate.insert(incident);
+                created.add(incident);
+            } catch (DuplicateKeyException e) {
+                duplicate(incident, byId, created);
+            } catch (RuntimeException e) {
+                SosDeadLetter deadLetter = new SosDeadLetter();
+                deadLetter.setId(incident.getId());
+                deadLetter.setEvent(byId.get(incident.getId()).event());
+                deadLetter.setError(String.valueOf(e.getMessage()));
+                deadLetter.setFailedAt(LocalDateTime.now());
+                mongoTemplate.save(deadLetter);
+                release(incident);
+                logger.error("Moved SOS {} to the dead-letter collection: {}", incident.getIncidentNumber(), e.getMessage());
+            }
+            iterator.remove();
+        }
+    }
+
+    private void duplicate(Incident incident, Map<String, Queued> byId, List<Incident> created) {
+        if (byId.get(incident.getId()).replayed()) {
+            // Written before a restart; the stored incident keeps its own responders, so the ones picked now go back
+            release(incident);
+        } else {
+            // Written by an earlier attempt of this batch whose acknowledgement was lost
+            created.add(incident);
+        }
+    }
+
+    private void release(Incident incident) {
+        for (String officerId : incident.getResponders()) {
+            officerLocationService.updateStatus(officerId, OfficerLocationIndex.AVAILABLE);
+        }
+    }
+
+    private void publish(List<Incident> created) {
+        for (Incident incident : created) {
+            try {
+                eventPublisher.publishEvent(new IncidentChangedEvent(ChangeType.CREATED, null, incident));
+            } catch (RuntimeException e) {
+                logger.error("Listener failed for SOS incident {}: {}", incident.getIncidentNumber(), e.getMessage());
+            }
+        }
+        created.clear();
+    }
+
+    private Set<String> alreadyPersisted(List<Queued> batch) {
+        List<String> replayed = new ArrayList<>();
+        for (Queued queued : batch) {
+            if (queued.replayed()) {
+                replayed.add(queued.event().id());
+            }
+        }
+        Set<String> written = new HashSet<>();
+        if (replayed.isEmpty()) {
+            return written;
+        }
+        Query query = Query.query(Criteria.where("_id").in(replayed));
+        query.fields().include("_id");
+        for (Incident incident : mongoTemplate.find(query, Incident.class)) {
+            written.add(incident.getId());
+        }
+        return written;
+    }
+
+    private Incident toIncident(SosEvent event) {
+        LocalDateTime receivedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.receivedAt()), ZoneId.systemDefault());
+
+        Incident incident = new Incident();
+        incident.setId(event.id());
+        incident.setIncidentNumber(event.incidentNumber());
+        incident.setTitle("SOS alert");
+        incident.setDescription(event.details());
+        incident.setIncidentType("sos");
+        incident.setSeverity("critical");
+        incident.setStatus("active");
+        incident.setLocation(event.address() != null
+                ? event.address()
+                : event.latitude() + "," + event.longitude());
+        incident.setLatitude(event.latitude());
+        incident.setLongitude(event.longitude());
+        ReverseGeocoder.Region region = reverseGeocodingService.lookup(event.latitude(), event.longitude());
+        if (region != null) {
+            incident.setDistrict(region.district());
+            incident.setState(region.state());
+        }
+        incident.setReportedBy(event.userId());
+        incident.setReportedAt(receivedAt);
+        incident.setCreatedAt(receivedAt);
+        incident.setUpdatedAt(receivedAt);
+        
+        // Dispatch the nearest available officers and take them out of the available pool
+        List<NearbyOfficerResponse> nearest = officerLocationService.findNearestAvailable(
+                event.latitude(), event.longitude(), dispatchResponders);
+        for (NearbyOfficerResponse officer : nearest) {
+            incident.getResponders().add(officer.getOfficerId());
+            officerLocationService.updateStatus(officer.getOfficerId(), OfficerLocationIndex.BUSY);
+        }
+        if (!nearest.isEmpty()) {
+            incident.setLeadResponder(nearest.get(0).getOfficerId());
+        }
+        return incident;
+    }
+}
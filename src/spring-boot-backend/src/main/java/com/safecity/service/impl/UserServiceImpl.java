@@ -1,10 +1,15 @@
 
 package com.safecity.service.impl;
 
+import com.safecity.event.ChangeType;
+import com.safecity.event.UserChangedEvent;
 import com.safecity.model.User;
 import com.safecity.repository.UserRepository;
+import com.safecity.security.PermissionRegistry;
 import com.safecity.service.UserService;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,7 +17,6 @@ import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +28,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder encoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public User findById(String id) {
         return userRepository.findById(id)
@@ -49,45 +56,16 @@ public class UserServiceImpl implements UserService {
         user.setPassword(encoder.encode(password));
         user.setRole(role);
         
-        // Set default permissions based on role
-        Set<String> permissions = new HashSet<>();
-        
-        switch (role.toLowerCase()) {
-            case "admin":
-                permissions.add("user:read");
-                permissions.add("user:write");
-                permissions.add("case:read");
-                permissions.add("case:write");
-                permissions.add("report:read");
-                permissions.add("report:write");
-                permissions.add("incident:read");
-                permissions.add("incident:write");
-                permissions.add("analytics:read");
-                break;
-            case "officer":
-                permissions.add("case:read");
-                permissions.add("case:write");
-                permissions.add("report:read");
-                permissions.add("report:write");
-                permissions.add("incident:read");
-                permissions.add("incident:write");
-                break;
-            case "user":
-                permissions.add("report:create");
-                permissions.add("report:read-own");
-                break;
-            default:
-                break;
-        }
-        
-        user.setPermissions(permissions);
+        user.setPermissions(new HashSet<>(PermissionRegistry.defaultPermissions(role)));
         
         // Generate badge number for officers and admins
         if ("officer".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
             user.setBadgeNumber(generateBadgeNumber());
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.CREATED, null, savedUser));
+        return savedUser;
     }
     
     private String generateBadgeNumber() {
@@ -98,6 +76,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public User update(String id, User userDetails) {
         User user = findById(id);
+        User before = snapshot(user);
         
         user.setName(userDetails.getName());
         if (userDetails.getPhone() != null) {
@@ -106,61 +85,41 @@ public class UserServiceImpl implements UserService {
         if (userDetails.getDepartment() != null) {
             user.setDepartment(userDetails.getDepartment());
         }
+        if (userDetails.getDistrict() != null) {
+            user.setDistrict(userDetails.getDistrict());
+        }
         if (userDetails.getAvatar() != null) {
             user.setAvatar(userDetails.getAvatar());
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.UPDATED, before, savedUser));
+        return savedUser;
     }
     
     @Override
     public User updateRole(String id, String role) {
         User user = findById(id);
+        User before = snapshot(user);
         user.setRole(role);
         
-        // Update permissions based on the new role
-        Set<String> permissions = new HashSet<>();
-        
-        switch (role.toLowerCase()) {
-            case "admin":
-                permissions.add("user:read");
-                permissions.add("user:write");
-                permissions.add("case:read");
-                permissions.add("case:write");
-                permissions.add("report:read");
-                permissions.add("report:write");
-                permissions.add("incident:read");
-                permissions.add("incident:write");
-                permissions.add("analytics:read");
-                break;
-            case "officer":
-                permissions.add("case:read");
-                permissions.add("case:write");
-                permissions.add("report:read");
-                permissions.add("report:write");
-                permissions.add("incident:read");
-                permissions.add("incident:write");
-                break;
-            case "user":
-                permissions.add("report:create");
-                permissions.add("report:read-own");
-                break;
-        }
-        
-        user.setPermissions(permissions);
+        user.setPermissions(new HashSet<>(PermissionRegistry.defaultPermissions(role)));
         
         // Generate badge number if not exists and new role is officer or admin
         if (user.getBadgeNumber() == null && ("officer".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role))) {
             user.setBadgeNumber(generateBadgeNumber());
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.UPDATED, before, savedUser));
+        return savedUser;
     }
     
     @Override
     public void deleteById(String id) {
         User user = findById(id);
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.DELETED, user, null));
     }
     
     @Override
@@ -174,4 +133,11 @@ public class UserServiceImpl implements UserService {
                 .filter(user -> role.equalsIgnoreCase(user.getRole()))
                 .collect(Collectors.toList());
     }
+    
+    private static User snapshot(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        copy.setPermissions(user.getPermissions() != null ? new HashSet<>(user.getPermissions()) : null);
+        return copy;
+    }
 }
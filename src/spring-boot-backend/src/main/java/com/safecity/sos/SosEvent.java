@@ -0,0 +1,65 @@
+
+package com.safecity.sos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public record SosEvent(
+        String id,
+        String incidentNumber,
+        String userId,
+        double latitude,
+        double longitude,
+        String address,
+        String details,
+        long receivedAt) {
+
+    // Compact binary form stored in the journal; strings are nullable
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(id);
+            out.writeUTF(incidentNumber);
+            writeNullable(out, userId);
+            out.writeDouble(latitude);
+            out.writeDouble(longitude);
+            writeNullable(out, address);
+            writeNullable(out, details);
+            out.writeLong(receivedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SosEvent decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return new SosEvent(
+                    in.readUTF(),
+                    in.readUTF(),
+                    readNullable(in),
+                    in.readDouble(),
+                    in.readDouble(),
+                    readNullable(in),
+                    readNullable(in),
+                    in.readLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
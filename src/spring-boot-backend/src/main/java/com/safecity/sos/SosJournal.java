@@ -0,0 +1,202 @@
+
+package com.safecity.sos;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of SOS events backed by memory-mapped segment files.
+ * An SOS is acknowledged once its record is in the journal; the record is
+ * flagged as persisted after the Mongo write and replayed on restart otherwise.
+ */
+@Component
+public class SosJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosJournal.class);
+
+    // Record layout: [int payloadLength][byte state][payload]; a zero length marks the end of a segment
+    private static final int HEADER_SIZE = 5;
+    private static final byte STATE_PENDING = 1;
+    private static final byte STATE_PERSISTED = 2;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    @Value("${sos.journal.dir}")
+    private String journalDir;
+
+    @Value("${sos.journal.segment-size}")
+    private int segmentSize;
+
+    @Value("${sos.journal.sync}")
+    private boolean syncOnAppend;
+
+    private Segment active;
+
+    private long nextSegmentId;
+
+    public record Position(Segment segment, int offset) {
+    }
+
+    public record Entry(Position position, byte[] payload) {
+    }
+
+    /**
+     * Scans existing segments and returns every record not yet flagged as persisted.
+     * Must be called once before the first append.
+     */
+    public synchronized List<Entry> recover() {
+        List<Entry> pending = new ArrayList<>();
+        Path dir = Paths.get(journalDir);
+        try {
+            Files.createDirectories(dir);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(dir)) {
+                files = stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                long id = segmentId(file);
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+                Segment segment = Segment.open(file, id, (int) Files.size(file));
+                segment.sealed = true;
+                int offset = 0;
+                while (offset + HEADER_SIZE <= segment.size) {
+                    int length = segment.buffer.getInt(offset);
+                    if (length <= 0 || offset + HEADER_SIZE + length > segment.size) {
+                        break;
+                    }
+                    if (segment.buffer.get(offset + 4) == STATE_PENDING) {
+                        byte[] payload = new byte[length];
+                        segment.buffer.get(offset + HEADER_SIZE, payload);
+                        segment.pending.incrementAndGet();
+                        pending.add(new Entry(new Position(segment, offset), payload));
+                    }
+                    offset += HEADER_SIZE + length;
+                }
+                if (segment.pending.get() == 0) {
+                    segment.delete();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to recover SOS journal in " + journalDir, e);
+        }
+        logger.info("SOS journal recovered {} pending events", pending.size());
+        return pending;
+    }
+
+    public synchronized Position append(byte[] payload) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("SOS record of " + payload.length + " bytes exceeds journal segment size");
+        }
+        if (active == null || active.writePosition + recordSize > active.size) {
+            roll();
+        }
+
+        int offset = active.writePosition;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.put(offset + 4, STATE_PENDING);
+        buffer.put(offset + HEADER_SIZE, payload);
+        // Length goes last so a torn write is never read back as a record
+        buffer.putInt(offset, payload.length);
+        if (syncOnAppend) {
+            buffer.force(offset, recordSize);
+        }
+        active.writePosition += recordSize;
+        active.pending.incrementAndGet();
+        return new Position(active, offset);
+    }
+
+    public void markPersisted(Position position) {
+        Segment segment = position.segment();
+        segment.buffer.put(position.offset() + 4, STATE_PERSISTED);
+        if (segment.pending.decrementAndGet() == 0) {
+            synchronized (this) {
+                if (segment.sealed && segment.pending.get() == 0) {
+                    segment.delete();
+                }
+            }
+        }
+    }
+
+    private void roll() {
+        if (active != null) {
+            active.sealed = true;
+            if (active.pending.get() == 0) {
+                active.delete();
+            }
+        }
+        long id = nextSegmentId++;
+        Path file = Paths.get(journalDir, String.format("sos-%016d%s", id, SEGMENT_SUFFIX));
+        try {
+            active = Segment.open(file, id, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create SOS journal segment " + file, e);
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    public static final class Segment {
+
+        private final Path file;
+        private final long id;
+        private final int size;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger pending = new AtomicInteger();
+        private int writePosition;
+        private volatile boolean sealed;
+
+        private Segment(Path file, long id, int size, MappedByteBuffer buffer) {
+            this.file = file;
+            this.id = id;
+            this.size = size;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, long id, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(file, id, size, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Unable to delete SOS journal segment {}: {}", file, e.getMessage());
+            }
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.safecity.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed file store. Uploads stream through a fixed buffer into a temp file while
+ * being hashed, then move to a path derived from their SHA-256, so identical content is kept
+ * once. Callers hold {@link #lock(String)} around {@link #commit(Staged)} and {@link #delete(String)}
+ * together with their own bookkeeping, so a blob is never removed while a new reference is
+ * being recorded for it.
+ */
+@Component
+public class ContentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    public record Staged(Path temp, String sha256, long size) {
+    }
+
+    @Value("${attachments.dir}")
+    private String storeDir;
+
+    private Path objectsDir;
+
+    private Path tempDir;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ContentStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        objectsDir = Paths.get(storeDir, "objects");
+        tempDir = Paths.get(storeDir, "tmp");
+        Files.createDirectories(objectsDir);
+        Files.createDirectories(tempDir);
+        // Leftovers from uploads interrupted by a crash
+        try (var leftovers = Files.list(tempDir)) {
+            for (Path leftover : (Iterable<Path>) leftovers::iterator) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    /**
+     * Streams the input to a temp file, failing once more than maxBytes have been read.
+     */
+    public Staged write(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        long size = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                size += n;
+                if (size > maxBytes) {
+                    throw new RuntimeException("Upload exceeds the limit of " + maxBytes + " bytes");
+                }
+                digest.update(buffer, 0, n);
+                wrapped.clear().limit(n);
+                while (wrapped.hasRemaining()) {
+                    out.write(wrapped);
+                }
+            }
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new Staged(temp, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Moves a staged upload to its content path, or drops it when that content is already stored.
+     * Call with the content's lock held.
+     */
+    public void commit(Staged staged) {
+        Path target = path(staged.sha256());
+        try {
+            if (Files.exists(target)) {
+                Files.delete(staged.temp());
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(staged.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void discard(Staged staged) {
+        try {
+            Files.deleteIfExists(staged.temp());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores a derivative of the content next to it, replacing any previous one. Call with the
+     * content's lock held; does nothing when the content itself has been deleted meanwhile.
+     */
+    public boolean writeRendition(String sha256, String name, byte[] data) {
+        if (!Files.exists(path(sha256))) {
+            return false;
+        }
+        try {
+            Path temp = Files.createTempFile(tempDir, "rendition-", ".part");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, renditionPath(sha256, name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the content and its derivatives. Call with the content's lock held.
+     */
+    public void delete(String sha256) {
+        Path file = path(sha256);
+        try (var siblings = Files.newDirectoryStream(file.getParent(), sha256 + ".*")) {
+            for (Path rendition : siblings) {
+                Files.deleteIfExists(rendition);
+            }
+            Files.deleteIfExists(file);
+        } catch (NoSuchFileException e) {
+            // Nothing was ever stored under this prefix
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path path(String sha256) {
+        return objectsDir.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    public Path renditionPath(String sha256, String name) {
+        return objectsDir.resolve(sha256.substring(0, 2)).resolve(sha256 + "." + name + ".jpg");
+    }
+
+    public Object lock(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,120 @@
+
+package com.safecity.triage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pending reports ordered per district by an effective timestamp: the creation time
+ * plus a penalty for lower priorities, so old low-priority reports eventually overtake
+ * fresh high-priority ones. Reads interleave districts round-robin so one busy district
+ * cannot starve the others.
+ */
+public class ReportTriageQueue {
+
+    public static final String UNKNOWN_DISTRICT = "unknown";
+
+    public record Item(String reportId, String district, String priority, long createdAt, long effectiveAt) {
+    }
+
+    private static final Comparator<Item> ORDER = Comparator.comparingLong(Item::effectiveAt)
+            .thenComparing(Item::reportId);
+
+    private final long mediumPenaltyMs;
+
+    private final long lowPenaltyMs;
+
+    private final Map<String, Item> items = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListSet<Item>> districts = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger rotation = new AtomicInteger();
+
+    public ReportTriageQueue(long mediumPenaltyMs, long lowPenaltyMs) {
+        this.mediumPenaltyMs = mediumPenaltyMs;
+        this.lowPenaltyMs = lowPenaltyMs;
+    }
+
+    public void add(String reportId, String district, String priority, long createdAt) {
+        String key = district != null && !district.isBlank() ? district : UNKNOWN_DISTRICT;
+        Item item = new Item(reportId, key, priority, createdAt, createdAt + penalty(priority));
+        Item previous = items.put(reportId, item);
+        if (previous != null) {
+            removeFromDistrict(previous);
+        }
+        districts.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(ORDER)).add(item);
+    }
+
+    public void remove(String reportId) {
+        Item item = items.remove(reportId);
+        if (item != null) {
+            removeFromDistrict(item);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns up to {@code limit} items without removing them, taking one report per district in turn.
+     * The starting district rotates between calls.
+     */
+    public List<Item> peek(int limit, String district) {
+        List<Item> result = new ArrayList<>(limit);
+        if (district != null) {
+            ConcurrentSkipListSet<Item> queue = districts.get(district);
+            if (queue != null) {
+                for (Iterator<Item> it = queue.iterator(); it.hasNext() && result.size() < limit; ) {
+                    result.add(it.next());
+                }
+            }
+            return result;
+        }
+
+        List<Iterator<Item>> cursors = new ArrayList<>();
+        for (ConcurrentSkipListSet<Item> queue : districts.values()) {
+            cursors.add(queue.iterator());
+        }
+        if (cursors.isEmpty()) {
+            return result;
+        }
+        int start = Math.floorMod(rotation.getAndIncrement(), cursors.size());
+        boolean progressed = true;
+        while (result.size() < limit && progressed) {
+            progressed = false;
+            for (int i = 0; i < cursors.size() && result.size() < limit; i++) {
+                Iterator<Item> cursor = cursors.get((start + i) % cursors.size());
+                if (cursor.hasNext()) {
+                    result.add(cursor.next());
+                    progressed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void removeFromDistrict(Item item) {
+        ConcurrentSkipListSet<Item> queue = districts.get(item.district());
+        if (queue != null) {
+            queue.remove(item);
+        }
+    }
+
+    private long penalty(String priority) {
+        if ("high".equalsIgnoreCase(priority)) {
+            return 0;
+        }
+        if ("low".equalsIgnoreCase(priority)) {
+            return lowPenaltyMs;
+        }
+        return mediumPenaltyMs;
+    }
+}